@@ -14,6 +14,11 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // 다운로드 서비스/엔진을 UI와 다른 프로세스(:ota)에서 실행할지 여부 (gradle.properties의 ota.separateProcess)
+        // 별도 프로세스면 다운로드 버퍼와 UI가 힙/GC를 나눠 쓰지 않고, 진행률은 공유 메모리로 전달됨
+        val separateProcess = (project.findProperty("ota.separateProcess") as String?)?.toBoolean() ?: false
+        manifestPlaceholders["downloadServiceProcess"] = if (separateProcess) ":ota" else applicationId!!
     }
 
     buildTypes {
@@ -29,6 +34,13 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    buildFeatures {
+        aidl = true
+    }
+    testOptions {
+        // 로컬 단위 테스트에서 android.util.Log 등 프레임워크 호출은 기본값 반환
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -149,6 +149,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 break;
 
             case DownloadProgressInfo.STATUS_DOWNLOADING:
+            case DownloadProgressInfo.STATUS_VERIFYING:
                 progressBar.setVisibility(View.VISIBLE);
                 progressBar.setIndeterminate(false);
                 progressBar.setProgress(progress.getProgress());
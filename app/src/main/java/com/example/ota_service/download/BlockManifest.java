@@ -0,0 +1,202 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import com.example.ota_service.network.ConnectionManager;
+import com.example.ota_service.utils.ResumableSha256;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+// 블록 단위 해시 목록(매니페스트) + 머클 루트
+// 형식 (텍스트, 줄 단위)
+//   block_size=4194304
+//   total_size=1073741824
+//   root=<머클 루트 16진수>
+//   <블록 0 SHA-256 16진수>
+//   <블록 1 SHA-256 16진수> ...
+public class BlockManifest {
+    private static final String TAG = BlockManifest.class.getSimpleName();
+
+    private final int blockSize;
+    private final long totalBytes;
+    private final byte[][] blockHashes;
+    private final byte[] rootHash;
+
+    private BlockManifest(int blockSize, long totalBytes, byte[][] blockHashes, byte[] rootHash) {
+        this.blockSize = blockSize;
+        this.totalBytes = totalBytes;
+        this.blockHashes = blockHashes;
+        this.rootHash = rootHash;
+    }
+
+    /**
+     * 서버에서 매니페스트를 받아 파싱 및 검증
+     *
+     * @param connectionManager 네트워크 연결 관리
+     * @param url 매니페스트 URL
+     * @param expectedRootHex 신뢰할 머클 루트 (null이면 매니페스트 자체 루트만 확인)
+     * @return 검증된 매니페스트
+     * @throws IOException 다운로드 실패 또는 형식/루트 불일치 시
+     */
+    public static BlockManifest fetch(ConnectionManager connectionManager, String url,
+                                      String expectedRootHex) throws IOException {
+        try (Response response = connectionManager.connect(url, 0)) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("매니페스트 다운로드 실패 ▶ " + response.code());
+            }
+            BlockManifest manifest = parse(body.string());
+
+            if (expectedRootHex != null && !expectedRootHex.equalsIgnoreCase(manifest.getRootHex())) {
+                throw new IOException("매니페스트 루트 불일치 ▶ " + manifest.getRootHex());
+            }
+
+            Log.d(TAG, "매니페스트 로드 ▶ 블록 " + manifest.getBlockCount() + "개, 블록 크기 "
+                    + manifest.blockSize + ", 루트 " + manifest.getRootHex());
+            return manifest;
+        }
+    }
+
+    /**
+     * 매니페스트 텍스트 파싱 (블록 해시로 계산한 루트와 기재된 루트가 같아야 함)
+     *
+     * @param text 매니페스트 내용
+     * @return 매니페스트
+     * @throws IOException 형식 오류 시
+     */
+    public static BlockManifest parse(String text) throws IOException {
+        int blockSize = 0;
+        long totalBytes = -1;
+        byte[] rootHash = null;
+        List<byte[]> hashes = new ArrayList<>();
+
+        try {
+            for (String rawLine : text.split("\n")) {
+                String line = rawLine.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                if (line.startsWith("block_size=")) {
+                    blockSize = Integer.parseInt(line.substring(11).trim());
+                } else if (line.startsWith("total_size=")) {
+                    totalBytes = Long.parseLong(line.substring(11).trim());
+                } else if (line.startsWith("root=")) {
+                    rootHash = fromHex(line.substring(5).trim());
+                } else {
+                    hashes.add(fromHex(line));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("매니페스트 형식 오류", e);
+        }
+
+        if (blockSize <= 0 || totalBytes < 0 || rootHash == null) {
+            throw new IOException("매니페스트 헤더 누락");
+        }
+        long expectedBlocks = (totalBytes + blockSize - 1) / blockSize;
+        if (hashes.size() != expectedBlocks) {
+            throw new IOException("블록 개수 불일치 ▶ " + hashes.size() + " / " + expectedBlocks);
+        }
+
+        byte[][] blockHashes = hashes.toArray(new byte[0][]);
+        if (!MessageDigest.isEqual(rootHash, computeRoot(blockHashes))) {
+            throw new IOException("매니페스트 루트가 블록 해시와 일치하지 않음");
+        }
+        return new BlockManifest(blockSize, totalBytes, blockHashes, rootHash);
+    }
+
+    /**
+     * 블록 해시 목록으로 머클 루트 계산 (짝이 없는 마지막 노드는 그대로 상위로 올림)
+     *
+     * @param leaves 블록 해시 목록
+     * @return 루트 해시
+     */
+    public static byte[] computeRoot(byte[][] leaves) {
+        if (leaves.length == 0) {
+            return newSha256().digest();
+        }
+
+        MessageDigest sha = newSha256();
+        byte[][] level = leaves;
+        while (level.length > 1) {
+            byte[][] next = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                int left = i * 2;
+                if (left + 1 < level.length) {
+                    sha.update(level[left]);
+                    sha.update(level[left + 1]);
+                    next[i] = sha.digest();
+                } else {
+                    next[i] = level[left];
+                }
+            }
+            level = next;
+        }
+        return level[0];
+    }
+
+    // SHA-256 MessageDigest 생성
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 미지원", e);
+        }
+    }
+
+    private static byte[] fromHex(String hex) throws IOException {
+        if (hex.length() != 64) {
+            throw new IOException("해시 길이 오류 ▶ " + hex);
+        }
+        byte[] bytes = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("해시 형식 오류 ▶ " + hex);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getBlockCount() {
+        return blockHashes.length;
+    }
+
+    // 블록 시작 위치
+    public long getBlockStart(int index) {
+        return (long) index * blockSize;
+    }
+
+    // 블록 끝 위치(미포함)
+    public long getBlockEnd(int index) {
+        return Math.min(totalBytes, (long) (index + 1) * blockSize);
+    }
+
+    public byte[] getBlockHash(int index) {
+        return blockHashes[index];
+    }
+
+    public byte[] getRootHash() {
+        return rootHash.clone();
+    }
+
+    public String getRootHex() {
+        return ResumableSha256.toHex(rootHash);
+    }
+}
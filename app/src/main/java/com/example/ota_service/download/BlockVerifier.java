@@ -0,0 +1,177 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import com.example.ota_service.model.RangeSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.BitSet;
+
+// 매니페스트 기준으로 블록이 완성되는 즉시 검증하는 클래스
+// 블록이 완료 구간에 모두 포함되면 디스크(페이지 캐시)에서 다시 읽어 해시 비교
+// 불일치 블록은 완료 구간에서 제거되어 해당 블록만 다시 받게 됨
+public class BlockVerifier {
+    private static final String TAG = BlockVerifier.class.getSimpleName();
+
+    private final BlockManifest manifest;
+    private final File file;
+    private final RangeSet completed;
+    private final BitSet verifiedBlocks;
+    private final MessageDigest sha;
+
+    private RandomAccessFile raf;
+    private ByteBuffer blockBuffer;
+    private int failedBlockCount = 0;
+
+    /**
+     * BlockVerifier 생성자
+     *
+     * @param manifest 블록 매니페스트
+     * @param file 검증할 파일
+     * @param completed 완료 구간 (불일치 블록은 여기서 제거됨)
+     * @param verifiedBlocks 검증 완료 블록 (이어받기 시 저장된 값 재사용)
+     */
+    public BlockVerifier(BlockManifest manifest, File file, RangeSet completed, BitSet verifiedBlocks) {
+        this.manifest = manifest;
+        this.file = file;
+        this.completed = completed;
+        this.verifiedBlocks = verifiedBlocks;
+        this.sha = BlockManifest.newSha256();
+    }
+
+    /**
+     * 이미 완료된 구간 중 검증되지 않은 블록 검사 (이어받기 시작 시)
+     *
+     * @return 불일치로 제거된 블록 수
+     * @throws IOException 파일 읽기 오류 시
+     */
+    public synchronized int verifyExisting() throws IOException {
+        int removed = 0;
+        for (int i = 0; i < manifest.getBlockCount(); i++) {
+            long start = manifest.getBlockStart(i);
+            long end = manifest.getBlockEnd(i);
+            if (!completed.contains(start, end)) {
+                // 완료되지 않은 블록은 검증 기록도 무효
+                markVerified(i, false);
+                continue;
+            }
+            if (!verifiedBlocks.get(i) && !checkBlock(i)) {
+                completed.remove(start, end);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            Log.w(TAG, "이어받기 전 손상 블록 " + removed + "개 발견, 해당 블록만 다시 받음");
+        }
+        return removed;
+    }
+
+    /**
+     * 새로 기록된 구간이 블록을 완성했으면 검증 (쓰기 스레드에서 호출)
+     *
+     * @param start 기록 시작 위치
+     * @param end 기록 끝 위치(미포함)
+     * @throws BlockMismatchException 블록 해시 불일치 시
+     * @throws IOException 파일 읽기 오류 시
+     */
+    public synchronized void onRangeWritten(long start, long end) throws IOException {
+        int blockSize = manifest.getBlockSize();
+        int first = (int) (start / blockSize);
+        int last = (int) Math.min(manifest.getBlockCount() - 1, (end - 1) / blockSize);
+
+        for (int i = first; i <= last; i++) {
+            if (verifiedBlocks.get(i)) continue;
+
+            long blockStart = manifest.getBlockStart(i);
+            long blockEnd = manifest.getBlockEnd(i);
+            if (!completed.contains(blockStart, blockEnd)) continue;
+
+            if (!checkBlock(i)) {
+                completed.remove(blockStart, blockEnd);
+                throw new BlockMismatchException(i, blockStart, blockEnd);
+            }
+        }
+    }
+
+    // 모든 블록 검증 완료 여부
+    public synchronized boolean isAllVerified() {
+        return verifiedBlocks.cardinality() == manifest.getBlockCount();
+    }
+
+    // 지금까지 불일치로 판정된 블록 수
+    public synchronized int getFailedBlockCount() {
+        return failedBlockCount;
+    }
+
+    // 리소스 정리
+    public synchronized void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                Log.e(TAG, "리소스 정리 오류", e);
+            }
+            raf = null;
+        }
+        blockBuffer = null;
+    }
+
+    // 블록 하나를 읽어 해시 비교, 일치하면 검증 완료로 표시
+    private boolean checkBlock(int index) throws IOException {
+        if (raf == null) {
+            raf = new RandomAccessFile(file, "r");
+        }
+        if (blockBuffer == null) {
+            blockBuffer = ByteBuffer.allocate(manifest.getBlockSize());
+        }
+
+        FileChannel channel = raf.getChannel();
+        long position = manifest.getBlockStart(index);
+        long end = manifest.getBlockEnd(index);
+
+        blockBuffer.clear();
+        blockBuffer.limit((int) (end - position));
+        while (blockBuffer.hasRemaining()) {
+            int read = channel.read(blockBuffer, position + blockBuffer.position());
+            if (read <= 0) {
+                throw new IOException("블록 읽기 실패 ▶ " + index);
+            }
+        }
+
+        sha.reset();
+        sha.update(blockBuffer.array(), 0, blockBuffer.limit());
+        boolean matched = MessageDigest.isEqual(sha.digest(), manifest.getBlockHash(index));
+        markVerified(index, matched);
+        if (!matched) {
+            failedBlockCount++;
+            Log.w(TAG, "블록 해시 불일치 ▶ " + index + " (" + position + "-" + end + ")");
+        }
+        return matched;
+    }
+
+    // 검증 기록 갱신 (체크포인트 스레드가 복사할 수 있으므로 BitSet 기준으로 동기화)
+    private void markVerified(int index, boolean verified) {
+        synchronized (verifiedBlocks) {
+            verifiedBlocks.set(index, verified);
+        }
+    }
+
+    // 블록 해시 불일치 예외 (스트림을 즉시 중단시키기 위해 IOException으로 전달)
+    public static class BlockMismatchException extends IOException {
+        private final int blockIndex;
+
+        public BlockMismatchException(int blockIndex, long start, long end) {
+            super("블록 해시 불일치 ▶ " + blockIndex + " (" + start + "-" + end + ")");
+            this.blockIndex = blockIndex;
+        }
+
+        public int getBlockIndex() {
+            return blockIndex;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.ota_service.download;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okio.BufferedSource;
+
+// 네트워크 읽기/디스크 쓰기 사이에서 재사용하는 버퍼 풀
+// 모든 버퍼는 생성 시 한 번만 할당하고 이후에는 반환/재사용만 함
+public class BufferPool {
+    private final BlockingQueue<Chunk> freeChunks;
+    private final int bufferSize;
+    private final int capacity;
+
+    /**
+     * BufferPool 생성자
+     *
+     * @param bufferSize 버퍼 하나의 크기(bytes)
+     * @param capacity 버퍼 개수
+     */
+    public BufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+        this.freeChunks = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            freeChunks.add(new Chunk(bufferSize));
+        }
+    }
+
+    /**
+     * 빈 버퍼 가져오기 (남은 버퍼가 없으면 최대 timeoutMs 동안 대기)
+     *
+     * @param timeoutMs 대기 시간(ms)
+     * @return 버퍼, 대기 시간 초과 시 null
+     * @throws InterruptedException 대기 중 인터럽트 발생 시
+     */
+    public Chunk acquire(long timeoutMs) throws InterruptedException {
+        Chunk chunk = freeChunks.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (chunk != null) {
+            chunk.reset();
+        }
+        return chunk;
+    }
+
+    // 사용이 끝난 버퍼 반환
+    public void release(Chunk chunk) {
+        freeChunks.offer(chunk);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 파일의 특정 위치에 기록할 데이터 조각
+    public static class Chunk {
+        private final ByteBuffer buffer;
+        private long position;  // 파일 내 기록 위치
+        private int length;     // 유효 데이터 길이
+
+        Chunk(int size) {
+            this.buffer = ByteBuffer.allocate(size);
+        }
+
+        void reset() {
+            buffer.clear();
+            position = 0;
+            length = 0;
+        }
+
+        // 데이터를 채울 배열 반환
+        public byte[] array() {
+            return buffer.array();
+        }
+
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getCapacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * 스트림에서 읽어 버퍼 채우기 (버퍼가 차거나 스트림이 끝날 때까지)
+         *
+         * @param source 읽을 스트림
+         * @param maxBytes 최대 읽을 크기
+         * @return 읽은 바이트 수, 스트림이 이미 끝났으면 -1
+         * @throws IOException 읽기 오류 발생 시
+         */
+        public int fill(BufferedSource source, int maxBytes) throws IOException {
+            byte[] array = buffer.array();
+            int limit = Math.min(maxBytes, array.length);
+            int filled = 0;
+            while (filled < limit) {
+                int read = source.read(array, filled, limit - filled);
+                if (read == -1) break;
+                filled += read;
+            }
+            return (filled == 0 && limit > 0) ? -1 : filled;
+        }
+
+        /**
+         * 채운 데이터 정보 설정
+         *
+         * @param position 파일 내 기록 위치
+         * @param length 유효 데이터 길이
+         */
+        public void set(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
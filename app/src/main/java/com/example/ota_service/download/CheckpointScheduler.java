@@ -0,0 +1,200 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import com.example.ota_service.model.DownloadState;
+import com.example.ota_service.model.DownloadStateManager;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 다운로드 스레드 밖에서 상태를 저장하는 체크포인트 스케줄러
+// 저장 순서: 상태 복사 -> 임시 파일 force -> 복사본 저장
+// 복사 시점까지 기록된 데이터는 force로 디스크에 반영되므로 저장된 위치가 실제 파일보다 앞서지 않음
+// 저장 요청이 밀리면 마지막 요청 하나로 합쳐서 처리
+public class CheckpointScheduler {
+    private static final String TAG = CheckpointScheduler.class.getSimpleName();
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+
+    private final DownloadStateManager stateManager;
+    private final File tempFile;
+    private final ExecutorService executor;
+
+    private final AtomicReference<DownloadState> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private volatile Policy policy;
+    private long lastCheckpointBytes = -1;
+    private long lastCheckpointTime = 0;
+
+    /**
+     * CheckpointScheduler 생성자
+     *
+     * @param stateManager 상태 저장 관리
+     * @param tempFile 임시 저장 파일 (저장 전 force 대상)
+     * @param policy 저장 주기 정책
+     */
+    public CheckpointScheduler(DownloadStateManager stateManager, File tempFile, Policy policy) {
+        this.stateManager = stateManager;
+        this.tempFile = tempFile;
+        this.policy = policy;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ota-checkpoint");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    // 저장 주기 정책 변경
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * 진행 상황 보고 - 정책 조건을 만족하면 비동기 저장 요청 (호출 스레드에서는 비교만 수행)
+     *
+     * @param state 다운로드 상태 객체
+     * @param currentBytes 현재 다운로드 바이트 수
+     * @param bytesPerSecond 측정된 다운로드 속도
+     */
+    public synchronized void onProgress(DownloadState state, long currentBytes, long bytesPerSecond) {
+        long now = System.currentTimeMillis();
+        if (lastCheckpointBytes < 0 || currentBytes < lastCheckpointBytes) {
+            // 새 다운로드 시작 또는 처음부터 다시 받는 경우 기준점만 설정
+            lastCheckpointBytes = currentBytes;
+            lastCheckpointTime = now;
+            return;
+        }
+
+        if (policy.shouldCheckpoint(currentBytes - lastCheckpointBytes, now - lastCheckpointTime, bytesPerSecond)) {
+            lastCheckpointBytes = currentBytes;
+            lastCheckpointTime = now;
+            requestCheckpoint(state);
+        }
+    }
+
+    // 비동기 저장 요청 (이미 대기 중인 요청이 있으면 최신 상태로 합쳐짐)
+    public void requestCheckpoint(DownloadState state) {
+        pending.set(state);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::runPending);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "종료된 뒤의 체크포인트 요청 무시");
+            }
+        }
+    }
+
+    // 저장된 상태 삭제 (대기 중인 저장은 버리고, 진행 중인 저장이 끝난 뒤 삭제)
+    public void clear() {
+        pending.set(null);
+        resetBaseline();
+        try {
+            executor.execute(stateManager::clearState);
+        } catch (RejectedExecutionException e) {
+            stateManager.clearState();
+        }
+    }
+
+    // 진행 기준점 초기화 (다음 다운로드 시작 시)
+    public synchronized void resetBaseline() {
+        lastCheckpointBytes = -1;
+        lastCheckpointTime = 0;
+    }
+
+    // 남은 저장을 마치고 종료
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "체크포인트 종료 대기 시간 초과");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 대기 중인 최신 요청 처리 (저장 스레드)
+    private void runPending() {
+        scheduled.set(false);
+        DownloadState state = pending.getAndSet(null);
+        if (state == null) {
+            return;
+        }
+
+        try {
+            long startTime = System.nanoTime();
+
+            // 1. 복사 (이 시점까지 기록된 데이터만 포함)
+            DownloadState snapshot = state.snapshot();
+            if (snapshot.getTotalBytes() <= 0) {
+                return;
+            }
+
+            // 2. 복사본에 포함된 데이터를 디스크에 반영
+            try (RandomAccessFile raf = new RandomAccessFile(tempFile, "r")) {
+                raf.getChannel().force(false);
+            }
+
+            // 3. 저장
+            stateManager.saveState(snapshot);
+            Log.d(TAG, "체크포인트 저장 ▶ " + snapshot.getDownloadedBytes() + "/" + snapshot.getTotalBytes()
+                    + " (" + (System.nanoTime() - startTime) / 1000 + "us)");
+        } catch (FileNotFoundException e) {
+            // 임시 파일이 없으면 저장할 진행 상황도 없음
+            Log.d(TAG, "임시 파일 없음, 체크포인트 생략");
+        } catch (IOException e) {
+            Log.e(TAG, "체크포인트 저장 중 오류 발생", e);
+        }
+    }
+
+    /**
+     * 일정 바이트마다 저장
+     *
+     * @param bytes 저장 간격(bytes)
+     * @return 정책
+     */
+    public static Policy everyBytes(final long bytes) {
+        return (bytesSinceLast, millisSinceLast, bytesPerSecond) -> bytesSinceLast >= bytes;
+    }
+
+    /**
+     * 일정 시간마다 저장 (진행이 있을 때만)
+     *
+     * @param intervalMs 저장 간격(ms)
+     * @return 정책
+     */
+    public static Policy everyInterval(final long intervalMs) {
+        return (bytesSinceLast, millisSinceLast, bytesPerSecond) -> bytesSinceLast > 0 && millisSinceLast >= intervalMs;
+    }
+
+    /**
+     * 속도에 맞춰 저장 간격 조절 - 약 targetMs 동안 받는 분량마다 저장하되 minBytes ~ maxBytes 범위로 제한
+     * 빠른 회선에서는 잃을 수 있는 분량을 maxBytes로 묶고, 느린 회선에서는 force 횟수를 minBytes로 묶음
+     *
+     * @param targetMs 목표 저장 간격(ms)
+     * @param minBytes 최소 저장 간격(bytes)
+     * @param maxBytes 최대 저장 간격(bytes)
+     * @return 정책
+     */
+    public static Policy adaptive(final long targetMs, final long minBytes, final long maxBytes) {
+        return (bytesSinceLast, millisSinceLast, bytesPerSecond) -> {
+            long threshold = Math.max(minBytes, Math.min(maxBytes, bytesPerSecond * targetMs / 1000));
+            // 속도가 크게 떨어져도 너무 오래 저장하지 않는 일은 없도록 시간 상한 적용
+            return bytesSinceLast >= threshold || (bytesSinceLast > 0 && millisSinceLast >= targetMs * 10);
+        };
+    }
+
+    // 저장 주기 정책 인터페이스
+    public interface Policy {
+        boolean shouldCheckpoint(long bytesSinceLast, long millisSinceLast, long bytesPerSecond);
+    }
+}
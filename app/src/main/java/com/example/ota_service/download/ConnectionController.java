@@ -0,0 +1,196 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+// 분할 다운로드의 동시 연결 수를 실제 처리량에 맞춰 조절하는 클래스 (AIMD)
+// 연결을 하나씩 늘려 보며(가산 증가) 늘린 만큼 처리량이 오르는지 확인하고,
+// 이득이 없으면 이전 수로 돌아가고, 처리량이 크게 떨어지면(혼잡) 연결 수를 절반으로 줄임(승산 감소)
+// 혼잡한 모바일망에서는 적은 수에, 빠른 Wi-Fi에서는 많은 수에 머무르게 됨
+public class ConnectionController {
+    private static final String TAG = ConnectionController.class.getSimpleName();
+
+    // 판단 결과
+    public static final int DECISION_INCREASE = 1;  // 연결 추가 (처리량 증가 확인)
+    public static final int DECISION_REVERT = 2;    // 늘린 연결이 이득이 없어 되돌림
+    public static final int DECISION_DECREASE = 3;  // 처리량 급감으로 절반으로 줄임
+
+    public static final long DEFAULT_SAMPLE_INTERVAL_MS = 2000;
+    private static final double MIN_GAIN = 0.05;        // 연결 하나 추가 시 유지할 최소 처리량 증가율
+    private static final double CONGESTION_DROP = 0.3;  // 이 비율 이상 떨어지면 혼잡으로 판단
+    private static final double DECREASE_FACTOR = 0.5;  // 승산 감소 비율
+    private static final int HOLD_SAMPLES = 5;          // 안정 상태에서 다시 늘려 보기 전 대기 측정 수
+
+    private final int minConnections;
+    private final int maxConnections;
+    private final long sampleIntervalMs;
+
+    private int connectionCount;
+    private int baselineCount;          // 마지막으로 처리량을 확인한 연결 수
+    private long baselineThroughput;    // baselineCount일 때의 처리량
+    private boolean probing = false;    // 연결 추가 후 결과 확인 중
+    private boolean warmingUp = true;   // 변경 직후 측정은 연결 수립 구간이 섞이므로 건너뜀
+    private int holdSamples = 0;
+
+    private Listener listener;
+
+    /**
+     * ConnectionController 생성자
+     *
+     * @param minConnections 최소 연결 수
+     * @param maxConnections 최대 연결 수
+     * @param initialConnections 시작 연결 수
+     */
+    public ConnectionController(int minConnections, int maxConnections, int initialConnections) {
+        this(minConnections, maxConnections, initialConnections, DEFAULT_SAMPLE_INTERVAL_MS);
+    }
+
+    /**
+     * ConnectionController 생성자
+     *
+     * @param minConnections 최소 연결 수
+     * @param maxConnections 최대 연결 수
+     * @param initialConnections 시작 연결 수
+     * @param sampleIntervalMs 처리량 측정 주기(ms)
+     */
+    public ConnectionController(int minConnections, int maxConnections, int initialConnections, long sampleIntervalMs) {
+        this.minConnections = Math.max(1, minConnections);
+        this.maxConnections = Math.max(this.minConnections, maxConnections);
+        this.sampleIntervalMs = Math.max(1, sampleIntervalMs);
+        this.connectionCount = clamp(initialConnections);
+        this.baselineCount = connectionCount;
+    }
+
+    // 연결 수 변경 리스너 설정
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int getMinConnections() {
+        return minConnections;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public long getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+
+    // 현재 목표 연결 수 반환
+    public synchronized int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * 측정 주기마다 실제 처리량 보고 - 다음 목표 연결 수를 결정
+     *
+     * @param bytesPerSecond 지난 측정 구간의 처리량(디스크로 넘긴 바이트 기준)
+     * @return 새 목표 연결 수
+     */
+    public int onSample(long bytesPerSecond) {
+        int previous;
+        int decision;
+        int count;
+        synchronized (this) {
+            if (warmingUp) {
+                warmingUp = false;
+                return connectionCount;
+            }
+
+            previous = connectionCount;
+            decision = decide(bytesPerSecond);
+            if (decision == 0) {
+                return connectionCount;
+            }
+            warmingUp = true;
+            count = connectionCount;
+        }
+
+        Log.d(TAG, "연결 수 조절 ▶ " + previous + " -> " + count
+                + " (" + decisionName(decision) + ", " + bytesPerSecond + " bytes/s)");
+        Listener current = listener;
+        if (current != null) {
+            current.onConnectionCountChanged(previous, count, bytesPerSecond, decision);
+        }
+        return count;
+    }
+
+    // 처리량으로 다음 연결 수 결정 (변경이 없으면 0)
+    private int decide(long throughput) {
+        if (probing) {
+            probing = false;
+            if (throughput >= baselineThroughput * (1 + MIN_GAIN)) {
+                // 늘린 연결만큼 처리량이 올랐음 -> 새 기준으로 삼고 한 번 더 늘려 봄
+                baselineCount = connectionCount;
+                baselineThroughput = throughput;
+                return probeUp();
+            }
+            // 이득이 없음 -> 이전 수로 돌아가서 한동안 유지
+            holdSamples = 0;
+            return setCount(baselineCount) ? DECISION_REVERT : 0;
+        }
+
+        if (baselineThroughput > 0 && throughput < baselineThroughput * (1 - CONGESTION_DROP)
+                && connectionCount > minConnections) {
+            // 혼잡 -> 승산 감소 후 새 처리량을 기준으로 다시 시작
+            int reduced = clamp((int) Math.floor(connectionCount * DECREASE_FACTOR));
+            baselineCount = reduced;
+            baselineThroughput = throughput;
+            holdSamples = 0;
+            return setCount(reduced) ? DECISION_DECREASE : 0;
+        }
+
+        // 안정 상태 - 처리량을 천천히 따라가다가 일정 시간 지나면 다시 늘려 봄
+        boolean first = baselineThroughput == 0;
+        baselineCount = connectionCount;
+        baselineThroughput = first ? throughput : (baselineThroughput + throughput) / 2;
+        if (first || ++holdSamples >= HOLD_SAMPLES) {
+            holdSamples = 0;
+            return probeUp();
+        }
+        return 0;
+    }
+
+    // 연결 하나 추가 시도
+    private int probeUp() {
+        if (!setCount(connectionCount + 1)) {
+            return 0;
+        }
+        probing = true;
+        return DECISION_INCREASE;
+    }
+
+    // 목표 연결 수 변경 (범위 밖이거나 같으면 false)
+    private boolean setCount(int count) {
+        int clamped = clamp(count);
+        if (clamped == connectionCount) {
+            return false;
+        }
+        connectionCount = clamped;
+        return true;
+    }
+
+    private int clamp(int count) {
+        return Math.max(minConnections, Math.min(maxConnections, count));
+    }
+
+    // 판단 결과 이름 (로그용)
+    public static String decisionName(int decision) {
+        switch (decision) {
+            case DECISION_INCREASE:
+                return "증가";
+            case DECISION_REVERT:
+                return "복귀";
+            case DECISION_DECREASE:
+                return "감소";
+            default:
+                return "유지";
+        }
+    }
+
+    // 연결 수 변경 리스너
+    public interface Listener {
+        void onConnectionCountChanged(int previousCount, int newCount, long bytesPerSecond, int decision);
+    }
+}
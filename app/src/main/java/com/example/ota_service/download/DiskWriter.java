@@ -0,0 +1,207 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// 네트워크 읽기 스레드와 분리된 디스크 쓰기 스레드
+// 읽기 스레드는 풀에서 버퍼를 받아 채운 뒤 submit, 쓰기 스레드는 큐에서 꺼내 위치 지정 쓰기 후 풀에 반환
+// 큐와 풀의 크기가 제한되어 있으므로 디스크가 느리면 읽기 스레드가 자연스럽게 대기함(backpressure)
+public class DiskWriter {
+    private static final String TAG = DiskWriter.class.getSimpleName();
+    private static final long ACQUIRE_POLL_MS = 200;
+
+    // 쓰기 스레드 종료 신호용 조각
+    private static final BufferPool.Chunk END_OF_STREAM = new BufferPool.Chunk(0);
+
+    private final FileChannel channel;
+    private final BufferPool bufferPool;
+    private final BlockingQueue<BufferPool.Chunk> writeQueue;
+    private final WriteListener listener;
+
+    private Thread writerThread;
+    private volatile IOException failure;
+    private volatile boolean aborted = false;
+
+    /**
+     * DiskWriter 생성자
+     *
+     * @param channel 기록할 파일 채널
+     * @param bufferSize 버퍼 하나의 크기(bytes)
+     * @param queueDepth 쓰기 대기 큐 깊이
+     * @param listener 기록 완료 리스너(쓰기 스레드에서 호출, null 가능)
+     */
+    public DiskWriter(FileChannel channel, int bufferSize, int queueDepth, WriteListener listener) {
+        this.channel = channel;
+        // 큐에 쌓인 버퍼 + 읽기 스레드가 채우는 버퍼 + 쓰기 스레드가 기록 중인 버퍼
+        this.bufferPool = new BufferPool(bufferSize, queueDepth + 2);
+        this.writeQueue = new ArrayBlockingQueue<>(queueDepth + 1);
+        this.listener = listener;
+    }
+
+    // 쓰기 스레드 시작
+    public void start() {
+        writerThread = new Thread(this::runWriter, "ota-disk-writer");
+        writerThread.start();
+    }
+
+    /**
+     * 데이터를 채울 빈 버퍼 가져오기 (디스크가 밀려 있으면 대기)
+     *
+     * @return 빈 버퍼
+     * @throws IOException 쓰기 오류가 발생했거나 중단된 경우
+     */
+    public BufferPool.Chunk acquire() throws IOException {
+        try {
+            while (true) {
+                checkFailure();
+                BufferPool.Chunk chunk = bufferPool.acquire(ACQUIRE_POLL_MS);
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("버퍼 대기 중 인터럽트");
+        }
+    }
+
+    /**
+     * 채운 버퍼를 쓰기 큐에 전달
+     *
+     * @param chunk 기록할 데이터 조각(position, length 설정 필요)
+     * @throws IOException 쓰기 오류가 발생했거나 중단된 경우
+     */
+    public void submit(BufferPool.Chunk chunk) throws IOException {
+        if (chunk.getLength() <= 0) {
+            bufferPool.release(chunk);
+            return;
+        }
+        try {
+            // 쓰기 스레드가 멈춘 경우 가득 찬 큐에서 계속 기다리지 않도록 주기적으로 오류 확인
+            do {
+                checkFailure();
+            } while (!writeQueue.offer(chunk, ACQUIRE_POLL_MS, TimeUnit.MILLISECONDS));
+        } catch (IOException e) {
+            bufferPool.release(chunk);
+            throw e;
+        } catch (InterruptedException e) {
+            bufferPool.release(chunk);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("쓰기 큐 대기 중 인터럽트");
+        }
+    }
+
+    // 사용하지 않은 버퍼 반환
+    public void release(BufferPool.Chunk chunk) {
+        bufferPool.release(chunk);
+    }
+
+    /**
+     * 큐에 남은 데이터를 모두 기록하고 쓰기 스레드 종료
+     *
+     * @throws IOException 기록 중 오류가 발생했던 경우
+     */
+    public void finish() throws IOException {
+        stopWriter();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // 남은 데이터를 버리고 즉시 종료 (취소/실패 시)
+    public void abort() {
+        aborted = true;
+        stopWriter();
+    }
+
+    // 쓰기 스레드 종료 신호 전달 후 대기
+    // 쓰기 스레드가 이미 끝났으면 큐가 가득 찬 채 남아 있을 수 있으므로 기다리지 않고 넘어감
+    private void stopWriter() {
+        if (writerThread == null) return;
+        try {
+            while (!writeQueue.offer(END_OF_STREAM, ACQUIRE_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (!writerThread.isAlive()) {
+                    break;
+                }
+            }
+            writerThread.join();
+            writeQueue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (aborted) {
+            throw new InterruptedIOException("디스크 쓰기 중단됨");
+        }
+    }
+
+    // 쓰기 스레드 루프
+    private void runWriter() {
+        boolean stopped = false;
+        try {
+            while (true) {
+                BufferPool.Chunk chunk = writeQueue.take();
+                if (chunk == END_OF_STREAM) {
+                    stopped = true;
+                    break;
+                }
+
+                try {
+                    // 오류 발생 후 혹은 중단 후에는 버퍼만 반환
+                    if (failure == null && !aborted) {
+                        writeChunk(chunk);
+                        if (listener != null) {
+                            listener.onChunkWritten(chunk);
+                        }
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "디스크 쓰기 오류", e);
+                    failure = e;
+                } catch (RuntimeException e) {
+                    // 리스너(RangeSet, 블록 검증, 해시 등) 오류도 쓰기 실패로 처리 (스레드가 죽으면 읽기 쪽이 멈춤)
+                    Log.e(TAG, "기록 완료 처리 오류", e);
+                    failure = new IOException(e);
+                } finally {
+                    bufferPool.release(chunk);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 종료 신호 없이 끝난 경우 읽기 스레드가 버퍼를 기다리며 멈추지 않도록 실패로 표시
+            if (!stopped && failure == null) {
+                failure = new IOException("디스크 쓰기 스레드가 종료됨");
+            }
+        }
+    }
+
+    // 조각 하나를 지정된 위치에 기록
+    private void writeChunk(BufferPool.Chunk chunk) throws IOException {
+        ByteBuffer buffer = chunk.getBuffer();
+        buffer.clear();
+        buffer.limit(chunk.getLength());
+
+        long position = chunk.getPosition();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // 기록 완료 리스너 (쓰기 스레드에서 호출됨)
+    public interface WriteListener {
+        void onChunkWritten(BufferPool.Chunk chunk) throws IOException;
+    }
+}
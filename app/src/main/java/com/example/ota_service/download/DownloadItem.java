@@ -0,0 +1,139 @@
+package com.example.ota_service.download;
+
+import com.example.ota_service.model.DownloadState;
+import com.example.ota_service.model.DownloadStateManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 다운로드 큐에 들어가는 아티팩트 하나 (시스템 이미지, 모뎀 펌웨어, 지도, 앱 번들 등)
+// 파일, 상태 저장, 체크포인트, 진행 정보를 항목마다 따로 가지므로 서로 영향을 주지 않음
+public class DownloadItem {
+    // 우선순위 (값이 클수록 먼저 시작)
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 50;
+    public static final int PRIORITY_HIGH = 100;
+
+    private final String id;
+    private final String url;
+    private final String fileName;
+    private final int priority;
+
+    private String expectedSha256;
+    private String manifestUrl;
+    private String expectedManifestRoot;
+    private List<String> mirrorUrls = Collections.emptyList();
+
+    // 큐 내부에서 사용하는 값
+    long sequence;              // 같은 우선순위 안에서의 등록 순서
+    File downloadFile;
+    File tempFile;
+    DownloadStateManager stateManager;
+    CheckpointScheduler checkpointScheduler;
+    DownloadState state;
+    DownloadTask task;          // DownloadManager 잠금 안에서 설정
+    boolean cancelRequested;    // 작업이 만들어지기 전에 취소 요청됨 (DownloadManager 잠금 안에서 변경)
+    long startTime;
+    long speed;
+    volatile DownloadProgressInfo progressInfo = new DownloadProgressInfo();
+    final DownloadProgressInfo progressSnapshot = new DownloadProgressInfo(); // 다운로드/검증 중 계속 갱신하는 진행 정보
+    ProgressBus progressBus;    // 항목별 진행 상황 전달 (리스너는 다운로드 스레드가 아닌 버스 전달 스레드에서 호출)
+
+    /**
+     * DownloadItem 생성자
+     *
+     * @param id 항목 ID (큐 안에서 고유해야 함)
+     * @param url 다운로드할 파일의 URL
+     * @param fileName 저장할 파일 이름 (다운로드 디렉토리 기준)
+     * @param priority 우선순위 (PRIORITY_ 상수 또는 임의 값)
+     */
+    public DownloadItem(String id, String url, String fileName, int priority) {
+        this.id = id;
+        this.url = url;
+        this.fileName = fileName;
+        this.priority = priority;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getExpectedSha256() {
+        return expectedSha256;
+    }
+
+    // 완료 후 비교할 SHA-256 값 설정 (16진수, null이면 검증 안 함)
+    public void setExpectedSha256(String expectedSha256) {
+        this.expectedSha256 = expectedSha256;
+    }
+
+    public String getManifestUrl() {
+        return manifestUrl;
+    }
+
+    public String getExpectedManifestRoot() {
+        return expectedManifestRoot;
+    }
+
+    // 블록 매니페스트 설정 (null이면 블록 검증 안 함)
+    public void setBlockManifest(String manifestUrl, String expectedRoot) {
+        this.manifestUrl = manifestUrl;
+        this.expectedManifestRoot = expectedRoot;
+    }
+
+    public List<String> getMirrors() {
+        return mirrorUrls;
+    }
+
+    // 같은 파일을 제공하는 미러 URL 설정 (다운로드 URL 외 추가 미러, 빈 목록이면 사용 안 함)
+    public void setMirrors(List<String> mirrorUrls) {
+        this.mirrorUrls = mirrorUrls != null
+                ? Collections.unmodifiableList(new ArrayList<>(mirrorUrls)) : Collections.<String>emptyList();
+    }
+
+    // 현재 진행 정보의 복사본 반환 (다운로드/검증 중 계속 갱신되는 객체는 넘기지 않고 마지막 발행 시점의 값을 복사)
+    public DownloadProgressInfo getProgressInfo() {
+        ProgressBus bus = progressBus;
+        DownloadProgressInfo published = bus != null ? bus.getLastPublished() : null;
+        return published != null ? published : new DownloadProgressInfo(progressInfo);
+    }
+
+    // 느린 연결로 판단해서 다시 연결한 횟수 (현재 또는 마지막 다운로드 기준)
+    public int getStallReconnectCount() {
+        DownloadTask current = task;
+        return current != null ? current.getStallReconnectCount() : 0;
+    }
+
+    // 느린 구간을 다른 연결로 다시 요청한 횟수 (현재 또는 마지막 다운로드 기준)
+    public int getHedgeCount() {
+        DownloadTask current = task;
+        return current != null ? current.getHedgeCount() : 0;
+    }
+
+    // 완료/실패/취소 여부
+    public boolean isFinished() {
+        int status = progressInfo.getStatus();
+        return status == DownloadProgressInfo.STATUS_COMPLETED
+                || status == DownloadProgressInfo.STATUS_FAILED
+                || status == DownloadProgressInfo.STATUS_CANCELLED;
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadItem[" + id + ", 우선순위 " + priority + "]";
+    }
+}
@@ -1,38 +1,123 @@
 package com.example.ota_service.download;
 
 import android.content.Context;
-import android.provider.MediaStore;
 import android.util.Log;
 
 import com.example.ota_service.model.DownloadState;
 import com.example.ota_service.model.DownloadStateManager;
+import com.example.ota_service.network.BandwidthShaper;
 import com.example.ota_service.network.ConnectionManager;
-import com.example.ota_service.download.DownloadTask;
+import com.example.ota_service.network.NetworkMonitor;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
-public class DownloadManager implements DownloadTask.DownloadTaskListener {
+import okhttp3.HttpUrl;
+
+// 다운로드 큐 관리 클래스
+// 여러 아티팩트를 우선순위 순서로 받되 동시에 받는 개수는 전체 제한 안에서 조절
+// 모든 항목이 하나의 ConnectionManager(클라이언트)와 속도 제한을 공유하고, 상태/파일은 항목별로 따로 관리
+// 기존 단일 파일(update.bin) 다운로드는 기본 항목으로 큐에 넣어 처리
+public class DownloadManager {
     private static final String TAG = DownloadManager.class.getSimpleName();
     private static final String DOWNLOAD_URL = "https://s3.ap-southeast-2.amazonaws.com/avn.directed.kr/firmware/TEST/random_file_1GB.bin";
+    private static final String PRIMARY_ITEM_ID = "update.bin";
+    // 기본값은 기존과 같은 단일 연결 다운로드 (분할/연결 수 조절/헤지는 설정 메서드로 켬)
+    // 켜면 항목마다 여러 연결을 쓰고 동시에 받는 항목 수만큼 곱해지므로 서버 부하를 고려해서 설정
+    // 자동 재시도와 느린 연결 감시는 기본으로 켜 둠 - 연결 수를 늘리지 않고 실패하거나 멈춘 연결만 다시 연결
+    private static final int DEFAULT_SEGMENT_COUNT = 1;   // 분할 연결 수 (1이면 단일 연결)
+    private static final int DEFAULT_MAX_CONNECTIONS = 0; // 연결 수 자동 조절 최대값 (분할 연결 수 이하면 조절 안 함)
+    private static final long DEFAULT_HEDGE_STALL_MS = 0;        // 헤지 요청 사용 안 함
+    private static final double DEFAULT_HEDGE_SLOW_RATIO = 0;
+    private static final double DEFAULT_HEDGE_MAX_RATIO = 0;
+    private static final int DEFAULT_MAX_RETRIES = 5;             // 진행 없이 연속 실패 시 최대 재시도 횟수 (오프라인이면 연결될 때까지 대기)
+    private static final long DEFAULT_RETRY_BASE_MS = 1000;       // 첫 재시도 간격 (실패할 때마다 두 배)
+    private static final long DEFAULT_RETRY_MAX_MS = 60000;       // 최대 재시도 간격
+    private static final long DEFAULT_STALL_MIN_RATE = 8 * 1024;  // 연결당 최소 속도 8KB/s
+    private static final long DEFAULT_STALL_WINDOW_MS = 20000;    // 최소 속도를 평균할 구간 20초
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024; // 읽기/쓰기 버퍼 크기
+    private static final int DEFAULT_QUEUE_DEPTH = 16;  // 디스크 쓰기 대기 버퍼 수
+    private static final int DEFAULT_MAX_CONCURRENT = 2; // 동시에 받는 항목 수
+    private static final int DEFAULT_RECOVERY_TAIL_CHECK = 64 * 1024; // 복구 시 다시 확인할 끝부분 크기
+    private static final long CHECKPOINT_TARGET_MS = 3000;              // 약 3초 분량마다 체크포인트
+    private static final long CHECKPOINT_MIN_BYTES = 4L * 1024 * 1024;  // 최소 4MB 간격
+    private static final long CHECKPOINT_MAX_BYTES = 64L * 1024 * 1024; // 최대 64MB 간격
 
     private final Context context;
     private final File downloadDir;
-    private final DownloadStateManager stateManager;
     private final ConnectionManager connectionManager;
+    private final BandwidthShaper bandwidthShaper = new BandwidthShaper();
 
-    private File downloadFile;
-    private File tempFile;
-    private DownloadTask downloadTask;
-    private DownloadManagerListener listener;
-
-    private long downloadStartTime;
-    private DownloadState currentState;
+    private volatile DownloadManagerListener listener;
+    private ProgressBus.Subscriber listenerSubscriber;
     private DownloadProgressInfo progressInfo;
-
-    private ExecutorService executorService;
+    private final DownloadProgressInfo aggregateProgress = new DownloadProgressInfo(); // 여러 항목 합계 (재사용)
+
+    // 큐 전체 진행 상황 전달 (다운로드 스레드는 발행만 하고 소비자마다 자기 주기로 받음)
+    private final ProgressBus progressBus = new ProgressBus();
+
+    // 항목별 진행 상황 전달 스레드 (항목마다 버스를 두고 전달 스레드는 공유)
+    private final ScheduledExecutorService itemProgressExecutor = ProgressBus.newDeliveryExecutor("ota-item-progress");
+
+    private final ExecutorService executorService;
+
+    // 큐 상태 (this 기준으로 동기화)
+    private final PriorityQueue<DownloadItem> pendingItems = new PriorityQueue<>(11, (a, b) ->
+            a.getPriority() != b.getPriority() ? Integer.compare(b.getPriority(), a.getPriority())
+                    : Long.compare(a.sequence, b.sequence));
+    private final List<DownloadItem> activeItems = new ArrayList<>();
+    private final Map<String, DownloadItem> batchItems = new LinkedHashMap<>(); // 이번 묶음에 들어온 항목
+    private final Map<String, DownloadItem> knownItems = new LinkedHashMap<>(); // 파일/상태가 준비된 항목
+    private int maxConcurrentDownloads = DEFAULT_MAX_CONCURRENT;
+    private long nextSequence = 0;
+    private long batchStartTime;
+
+    // 기본 항목 (update.bin)
+    private final DownloadItem primaryItem;
+
+    // 분할 다운로드 연결 수 (1이면 단일 연결)
+    private int segmentCount = DEFAULT_SEGMENT_COUNT;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private boolean multiplexing = true;    // HTTP/2 서버면 구간 요청을 연결 하나에 다중화
+
+    // 헤지 요청 설정
+    private long hedgeStallTimeoutMs = DEFAULT_HEDGE_STALL_MS;
+    private double hedgeSlowRatio = DEFAULT_HEDGE_SLOW_RATIO;
+    private double hedgeMaxRatio = DEFAULT_HEDGE_MAX_RATIO;
+
+    // 자동 재시도 설정
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long retryBaseDelayMs = DEFAULT_RETRY_BASE_MS;
+    private long retryMaxDelayMs = DEFAULT_RETRY_MAX_MS;
+    private final NetworkMonitor networkMonitor;
+
+    // 느린 연결 감시 설정
+    private long stallMinRate = DEFAULT_STALL_MIN_RATE;
+    private long stallWindowMs = DEFAULT_STALL_WINDOW_MS;
+
+    // 읽기/쓰기 파이프라인 설정
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int queueDepth = DEFAULT_QUEUE_DEPTH;
+
+    // 체크포인트 설정
+    private CheckpointScheduler.Policy checkpointPolicy =
+            CheckpointScheduler.adaptive(CHECKPOINT_TARGET_MS, CHECKPOINT_MIN_BYTES, CHECKPOINT_MAX_BYTES);
+    private int recoveryTailCheck = DEFAULT_RECOVERY_TAIL_CHECK;
+
+    // 속도 제한 정책 (null이면 고정 속도 또는 제한 없음)
+    private BandwidthShaper.Policy bandwidthPolicy;
+    private boolean appInForeground = true;
 
     /**
      * DownloadManager 생성자
@@ -44,36 +129,209 @@ public class DownloadManager implements DownloadTask.DownloadTaskListener {
         this.context = context;
         this.downloadDir = downloadDir;
 
-        // 네트워크 연결 관리자 초기화
-        this.connectionManager = new ConnectionManager();
+        // 네트워크 연결 관리자 초기화 (모든 항목이 공유)
+        this.connectionManager = new ConnectionManager(context);
 
-        // 파일 경로 및 이름 설정
-        downloadFile = new File(downloadDir, "update.bin");
-        tempFile = new File(downloadDir, "update.bin.tmp");
+        // 네트워크가 다시 연결되면 재시도 대기 중인 항목을 바로 이어받음
+        networkMonitor = new NetworkMonitor(context);
+        networkMonitor.addListener(this::onNetworkAvailable);
+        networkMonitor.start();
 
-        // 다운로드 상태 관리자 초기화
-        stateManager = new DownloadStateManager(tempFile);
+        // 기본 항목 설정
+        primaryItem = new DownloadItem(PRIMARY_ITEM_ID, DOWNLOAD_URL, "update.bin", DownloadItem.PRIORITY_HIGH);
 
-        // 현재 상태 및 진행 정보 초기화
-        currentState = new DownloadState();
+        // 진행 정보 초기화
         progressInfo = new DownloadProgressInfo();
 
-        // ExecutorService 초기화
-        executorService = Executors.newSingleThreadExecutor();
+        // 항목마다 스레드 하나씩 사용 (동시 실행 수는 큐에서 제한)
+        executorService = Executors.newCachedThreadPool();
     }
 
     // 다운로드 매니저 리스너 설정
     public void setListener(DownloadManagerListener listener) {
+        if (listenerSubscriber != null) {
+            progressBus.unsubscribe(listenerSubscriber);
+            listenerSubscriber = null;
+        }
         this.listener = listener;
+        if (listener != null) {
+            // 큐 전체 진행 상황은 버스 전달 스레드에서 호출 (간격 제한 없이 밀린 진행 정보만 합침)
+            listenerSubscriber = listener::onStatusChanged;
+            progressBus.subscribe(listenerSubscriber, 0);
+        }
+    }
+
+    // 진행 상황 이벤트 버스 (소비자별 전달 간격이 필요하면 직접 구독)
+    public ProgressBus getProgressBus() {
+        return progressBus;
+    }
+
+    // 동시에 받을 최대 항목 수 설정
+    public void setMaxConcurrentDownloads(int maxConcurrentDownloads) {
+        synchronized (this) {
+            this.maxConcurrentDownloads = Math.max(1, maxConcurrentDownloads);
+        }
+        dispatch();
+    }
+
+    // 체크포인트 저장 주기 정책 설정 (CheckpointScheduler.everyBytes / everyInterval / adaptive)
+    public synchronized void setCheckpointPolicy(CheckpointScheduler.Policy policy) {
+        checkpointPolicy = policy;
+        for (DownloadItem item : knownItems.values()) {
+            item.checkpointScheduler.setPolicy(policy);
+        }
+    }
+
+    // 비정상 종료 후 복구 시 내용을 다시 확인할 끝부분 크기 설정 (순차 다운로드, 0이면 크기만 맞춤)
+    public synchronized void setRecoveryTailCheck(int bytes) {
+        recoveryTailCheck = bytes;
+        for (DownloadItem item : knownItems.values()) {
+            item.stateManager.setTailCheckBytes(bytes);
+        }
+    }
+
+    // 다운로드 속도 제한 설정 (0이면 제한 없음, 진행 중인 다운로드에도 즉시 적용)
+    public void setBandwidthLimit(long bytesPerSecond) {
+        bandwidthPolicy = null;
+        bandwidthShaper.setRate(bytesPerSecond);
+    }
+
+    // 앱 상태에 따른 속도 제한 정책 설정 (null이면 제한 해제)
+    public void setBandwidthPolicy(BandwidthShaper.Policy policy) {
+        bandwidthPolicy = policy;
+        applyBandwidthPolicy();
+    }
+
+    // 앱 포그라운드 상태 전달 - 정책에 따라 속도 제한 조정
+    public void setAppInForeground(boolean inForeground) {
+        appInForeground = inForeground;
+        applyBandwidthPolicy();
+    }
+
+    // 현재 앱 상태로 정책 적용
+    private void applyBandwidthPolicy() {
+        bandwidthShaper.setRate(bandwidthPolicy != null ?
+                bandwidthPolicy.getRateLimit(appInForeground) : BandwidthShaper.UNLIMITED);
+    }
+
+    // 분할 다운로드 연결 수 설정 (다음 다운로드부터 적용, 기본 1 = 단일 연결)
+    public void setSegmentCount(int segmentCount) {
+        this.segmentCount = Math.max(1, segmentCount);
+    }
+
+    // 연결 수 자동 조절 최대값 설정 (분할 연결 수 이하면 조절 안 함, 다음 다운로드부터 적용)
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    // HTTP/2 다중화 사용 설정 (false면 HTTP/2 서버에도 구간마다 별도 연결, 다음 다운로드부터 적용)
+    public void setMultiplexing(boolean multiplexing) {
+        this.multiplexing = multiplexing;
     }
 
-    // 이전 다운로드 확인
+    // TCP 수신 버퍼 크기 설정 (0이면 OS 자동 조절, 새로 여는 연결부터 적용)
+    public void setSocketReceiveBufferSize(int bytes) {
+        ConnectionManager.setSocketReceiveBufferSize(bytes);
+    }
+
+    /**
+     * 막바지 구간 헤지 요청 설정 (다음 다운로드부터 적용)
+     *
+     * @param stallTimeoutMs 데이터 없이 이 시간이 지나면 남은 범위를 다시 요청 (0이면 사용 안 함)
+     * @param slowRatio 다른 구간 속도 중앙값 대비 이 비율보다 느리면 다시 요청 (0이면 속도 기준 사용 안 함)
+     * @param maxRatio 다시 요청할 수 있는 최대 분량 (전체 크기 대비 비율)
+     */
+    public void setHedging(long stallTimeoutMs, double slowRatio, double maxRatio) {
+        this.hedgeStallTimeoutMs = stallTimeoutMs;
+        this.hedgeSlowRatio = slowRatio;
+        this.hedgeMaxRatio = maxRatio;
+    }
+
+    /**
+     * 자동 재시도 설정 (다음 다운로드부터 적용)
+     *
+     * @param maxRetries 진행 없이 연속 실패 시 최대 재시도 횟수 (0이면 재시도 안 함)
+     * @param baseDelayMs 첫 재시도 간격(ms), 실패할 때마다 두 배
+     * @param maxDelayMs 최대 재시도 간격(ms)
+     */
+    public void setRetryPolicy(int maxRetries, long baseDelayMs, long maxDelayMs) {
+        this.maxRetries = maxRetries;
+        this.retryBaseDelayMs = baseDelayMs;
+        this.retryMaxDelayMs = maxDelayMs;
+    }
+
+    // 네트워크 연결 시 재시도 대기 중인 항목 깨우기
+    private void onNetworkAvailable(boolean wasOffline) {
+        List<DownloadItem> items;
+        synchronized (this) {
+            items = new ArrayList<>(activeItems);
+        }
+        for (DownloadItem item : items) {
+            DownloadTask task = item.task;
+            if (task != null) {
+                Log.d(TAG, "네트워크 연결됨, 바로 재시도 ▶ " + item.getId());
+                task.retryNow();
+            }
+        }
+    }
+
+    /**
+     * 느린 연결 감시 설정 - 최소 속도보다 느린 연결은 끊고 현재 위치부터 다시 연결 (다음 다운로드부터 적용)
+     *
+     * @param minBytesPerSecond 연결당 최소 속도(bytes/s, 0 이하면 감시 안 함)
+     * @param windowMs 속도를 평균할 구간(ms)
+     */
+    public void setStallWatchdog(long minBytesPerSecond, long windowMs) {
+        this.stallMinRate = minBytesPerSecond;
+        this.stallWindowMs = windowMs;
+    }
+
+    /**
+     * 읽기/쓰기 파이프라인 설정 (다음 다운로드부터 적용)
+     *
+     * @param bufferSize 버퍼 하나의 크기(bytes)
+     * @param queueDepth 디스크 쓰기 대기 버퍼 수
+     */
+    public void setPipelineConfig(int bufferSize, int queueDepth) {
+        this.bufferSize = bufferSize;
+        this.queueDepth = queueDepth;
+    }
+
+    // 기본 항목(update.bin)의 완료 후 비교할 SHA-256 값 설정 (16진수, null이면 검증 안 함)
+    public void setExpectedSha256(String expectedSha256) {
+        primaryItem.setExpectedSha256(expectedSha256);
+    }
+
+    /**
+     * 기본 항목(update.bin)의 블록 매니페스트 설정 - 블록이 도착하는 즉시 검증하고 손상 블록만 다시 받음
+     *
+     * @param manifestUrl 매니페스트 URL (null이면 블록 검증 안 함)
+     * @param expectedRoot 신뢰할 머클 루트 16진수 (null 가능)
+     */
+    public void setBlockManifest(String manifestUrl, String expectedRoot) {
+        primaryItem.setBlockManifest(manifestUrl, expectedRoot);
+    }
+
+    // 기본 항목(update.bin)의 미러 URL 설정 - 시작 시 측정해서 빠른 미러로 받고 느려지거나 실패하면 다른 미러로 전환
+    public void setMirrors(List<String> mirrorUrls) {
+        primaryItem.setMirrors(mirrorUrls);
+    }
+
+    // 이전 다운로드 확인 (기본 항목 기준)
     public DownloadProgressInfo checkPreviousDownload() {
-        DownloadState state = stateManager.loadState();
-        if (state != null && state.getDownloadedBytes() > 0 && state.getTotalBytes() > 0 &&
-        tempFile.exists() && tempFile.length() == state.getDownloadedBytes()) {
+        DownloadItem item = primaryItem;
+        synchronized (this) {
+            if (pendingItems.contains(item) || activeItems.contains(item)) {
+                return null;
+            }
+            prepareItem(item);
+        }
+
+        DownloadState state = item.stateManager.loadState();
+        // 임시 파일 크기 불일치는 loadState에서 마지막 체크포인트 기준으로 복구됨
+        if (state != null && state.getDownloadedBytes() > 0 && state.getTotalBytes() > 0 && item.tempFile.exists()) {
             // 현재 상태 업데이트
-            currentState = state;
+            item.state = state;
 
             int progress = state.getProgress();
 
@@ -83,6 +341,7 @@ public class DownloadManager implements DownloadTask.DownloadTaskListener {
             progressInfo.setProgress(progress);
             progressInfo.setDownloadedBytes(state.getDownloadedBytes());
             progressInfo.setTotalBytes(state.getTotalBytes());
+            item.progressInfo = progressInfo;
 
             Log.d(TAG, "이전 다운로드 파일 발견 ▶ " + state.getDownloadedBytes() + "/" + state.getTotalBytes());
 
@@ -91,79 +350,279 @@ public class DownloadManager implements DownloadTask.DownloadTaskListener {
         return null;
     }
 
-    // 다운로드 시작
+    // 다운로드 시작 (기본 항목을 큐에 추가)
     public void startDownload() {
-        if (isDownloading()) {
-            return;
+        enqueue(primaryItem);
+    }
+
+    /**
+     * 다운로드 큐에 항목 추가 (우선순위가 높은 항목부터 동시 실행 제한 안에서 시작)
+     *
+     * @param item 다운로드 항목
+     * @return 추가 여부 (같은 ID의 항목이 이미 대기/진행 중이면 false)
+     */
+    public boolean enqueue(DownloadItem item) {
+        synchronized (this) {
+            DownloadItem existing = batchItems.get(item.getId());
+            if (existing != null && !existing.isFinished()) {
+                Log.w(TAG, "이미 큐에 있는 항목 ▶ " + item.getId());
+                return false;
+            }
+            if (batchItems.isEmpty()) {
+                batchStartTime = System.currentTimeMillis();
+            }
+
+            prepareItem(item);
+            item.sequence = nextSequence++;
+            item.cancelRequested = false;
+            item.progressInfo = DownloadProgressInfo.createStarting();
+            batchItems.put(item.getId(), item);
+            pendingItems.add(item);
+            Log.d(TAG, "큐에 추가 ▶ " + item + ", 대기 " + pendingItems.size() + "개");
         }
 
-        downloadStartTime = System.currentTimeMillis();
+        notifyItemChanged(item);
+        dispatch();
+        return true;
+    }
 
-        // 진행 정보 초기화
-        progressInfo = DownloadProgressInfo.createStarting();
+    // 항목 파일/상태 관리자 준비 (처음 한 번)
+    private void prepareItem(DownloadItem item) {
+        DownloadItem known = knownItems.get(item.getId());
+        if (known != null && known != item) {
+            // 같은 ID로 새 객체가 들어오면 기존 상태 파일을 그대로 이어서 사용
+            item.stateManager = known.stateManager;
+            item.checkpointScheduler = known.checkpointScheduler;
+            if (known.progressBus != null) {
+                known.progressBus.shutdown();
+            }
+        }
+        if (item.stateManager == null) {
+            item.stateManager = new DownloadStateManager(new File(downloadDir, item.getFileName() + ".tmp"));
+            item.stateManager.setTailCheckBytes(recoveryTailCheck);
+        }
+        if (item.checkpointScheduler == null) {
+            item.checkpointScheduler = new CheckpointScheduler(item.stateManager,
+                    new File(downloadDir, item.getFileName() + ".tmp"), checkpointPolicy);
+        }
+        if (item.progressBus == null) {
+            // 진행 정보가 밀리면 마지막 것만 전달 (상태 변경은 모두 전달), 리스너는 전달 시점의 것을 사용
+            item.progressBus = new ProgressBus(itemProgressExecutor);
+            item.progressBus.subscribe(progress -> {
+                DownloadManagerListener current = listener;
+                if (current != null) {
+                    current.onItemStatusChanged(item, progress);
+                }
+            }, 0);
+        }
+        item.downloadFile = new File(downloadDir, item.getFileName());
+        item.tempFile = new File(downloadDir, item.getFileName() + ".tmp");
+        knownItems.put(item.getId(), item);
+    }
 
-        // 리스너 알림
-        if (listener != null) {
-            listener.onStatusChanged(progressInfo);
+    // 빈 자리가 있으면 우선순위가 높은 대기 항목 시작
+    private void dispatch() {
+        List<DownloadItem> toStart = new ArrayList<>();
+        synchronized (this) {
+            while (activeItems.size() < maxConcurrentDownloads && !pendingItems.isEmpty()) {
+                DownloadItem item = pendingItems.poll();
+                activeItems.add(item);
+                toStart.add(item);
+            }
+        }
+        for (DownloadItem item : toStart) {
+            startItem(item);
         }
+    }
+
+    // 항목 하나의 다운로드 작업 시작
+    private void startItem(DownloadItem item) {
+        item.startTime = System.currentTimeMillis();
 
         try {
             // 현재 다운로드 상태 가져오기
-            DownloadState state = stateManager.loadState();
+            DownloadState state = item.stateManager.loadState();
             if (state == null) {
                 state = new DownloadState();
                 state.setDownloadId(UUID.randomUUID().toString());
             }
-            currentState = state;
+            item.state = state;
+            item.checkpointScheduler.resetBaseline();
 
             // 이미 다운로드된 바이트 수 확인
             long downloadedBytes = 0;
-            if (tempFile.exists()) {
-                downloadedBytes = tempFile.length();
-                Log.d(TAG, "이전 다운로드 내역 확인 ▶ " + downloadedBytes + " bytes");
+            if (state.isSegmented()) {
+                downloadedBytes = state.getCompletedRanges().getCoveredBytes();
+                Log.d(TAG, "이전 분할 다운로드 내역 확인 ▶ " + item.getId() + ", " + downloadedBytes + " bytes");
+            } else if (item.tempFile.exists()) {
+                downloadedBytes = item.tempFile.length();
+                Log.d(TAG, "이전 다운로드 내역 확인 ▶ " + item.getId() + ", " + downloadedBytes + " bytes");
             }
 
             // 다운로드 작업 초기화
-            downloadTask = new DownloadTask(
+            DownloadTask task = new DownloadTask(
                     connectionManager,
-                    tempFile,
-                    downloadFile
+                    item.tempFile,
+                    item.downloadFile
             );
-            downloadTask.setListener(this);
+            task.setListener(new ItemTaskListener(item));
+            task.setSegmentCount(segmentCount);
+            task.setMaxConnections(maxConnections);
+            task.setMultiplexing(multiplexing);
+            task.setMirrors(item.getMirrors());
+            task.setHedging(hedgeStallTimeoutMs, hedgeSlowRatio, hedgeMaxRatio);
+            task.setStallWatchdog(stallMinRate, stallWindowMs);
+            task.setRetryPolicy(maxRetries, retryBaseDelayMs, retryMaxDelayMs);
+            task.setNetworkMonitor(networkMonitor);
+            task.setPipelineConfig(bufferSize, queueDepth);
+            task.setExpectedSha256(item.getExpectedSha256());
+            task.setBlockManifest(item.getManifestUrl(), item.getExpectedManifestRoot());
+            task.setBandwidthShaper(bandwidthShaper);
+
+            // 활성 목록으로 옮긴 뒤 작업을 만드는 사이에 취소 요청이 들어왔으면 시작하지 않음
+            boolean cancelRequested;
+            synchronized (this) {
+                item.task = task;
+                cancelRequested = item.cancelRequested;
+            }
+            if (cancelRequested) {
+                Log.d(TAG, "시작 전 취소됨 ▶ " + item.getId());
+                item.progressInfo = DownloadProgressInfo.createCancelled();
+                notifyItemChanged(item);
+                finishItem(item);
+                return;
+            }
 
             // 다운로드 작업 실행
-            executeDownload(state, downloadedBytes);
+            executeDownload(item, state, downloadedBytes);
         } catch (Exception e) {
-            Log.e(TAG, "다운로드 시작 중 예외 상황 발생함", e);
+            Log.e(TAG, "다운로드 시작 중 예외 상황 발생함 ▶ " + item.getId(), e);
 
-            // 실패 상태 업데이트
-            progressInfo = DownloadProgressInfo.createFailed(e.getMessage());
-            if  (listener != null) {
-                listener.onStatusChanged(progressInfo);
-            }
+            // 실패 상태 업데이트 후 다음 항목 진행
+            item.progressInfo = DownloadProgressInfo.createFailed(e.getMessage());
+            notifyItemChanged(item);
+            finishItem(item);
         }
     }
 
     /**
      * 다운로드 작업 실행
      *
+     * @param item 다운로드 항목
      * @param state 다운로드 상태 객체
      * @param downloadedBytes 이미 다운로드된 바이트 수
      */
-    private void executeDownload(final DownloadState state, final long downloadedBytes) {
+    private void executeDownload(final DownloadItem item, final DownloadState state, final long downloadedBytes) {
         executorService.execute(() -> {
-            boolean success = downloadTask.startDownload(DOWNLOAD_URL, downloadedBytes, state);
-
-            if (success) {
-                stateManager.clearState();
-                currentState.setCompleted(true);
-            } else if (downloadTask.isDownloading()) {
-                // 상태 저장
-                saveDownloadState();
+            try {
+                boolean success = item.task.startDownload(item.getUrl(), downloadedBytes, state);
+
+                if (success) {
+                    item.checkpointScheduler.clear();
+                    state.setCompleted(true);
+                } else {
+                    // 상태 저장 (취소 후 마저 기록된 분량까지 반영)
+                    saveItemState(item);
+                }
+            } catch (RuntimeException e) {
+                // 한 항목의 예외가 다른 항목에 영향을 주지 않도록 여기서 처리
+                Log.e(TAG, "다운로드 작업 오류 ▶ " + item.getId(), e);
+                item.progressInfo = DownloadProgressInfo.createFailed(e.getMessage());
+                notifyItemChanged(item);
+            } finally {
+                finishItem(item);
             }
         });
     }
 
+    // 항목 종료 처리 후 다음 항목 시작, 모두 끝났으면 최종 상태 알림
+    private void finishItem(DownloadItem item) {
+        synchronized (this) {
+            activeItems.remove(item);
+            if (!item.isFinished()) {
+                // 결과 알림 없이 끝난 경우(취소 직후 등)는 취소로 처리
+                item.progressInfo = DownloadProgressInfo.createCancelled();
+            }
+        }
+        dispatch();
+        publishProgress();
+    }
+
+    /**
+     * 이미 받아 둔 update.bin을 매니페스트 기준으로 다시 검증 (여러 코어로 병렬 처리)
+     * 결과는 DownloadManagerListener로 전달됨
+     */
+    public void verifyDownloadedFile() {
+        if (isDownloading()) {
+            return;
+        }
+
+        final DownloadItem item = primaryItem;
+        executorService.execute(() -> {
+            DownloadProgressInfo result;
+            try {
+                if (item.getManifestUrl() == null) {
+                    throw new IOException("블록 매니페스트가 설정되지 않음");
+                }
+                File file = new File(downloadDir, item.getFileName());
+                if (!file.exists()) {
+                    throw new IOException("검증할 파일이 없음");
+                }
+
+                long startTime = System.currentTimeMillis();
+                BlockManifest manifest = BlockManifest.fetch(connectionManager, item.getManifestUrl(),
+                        item.getExpectedManifestRoot());
+                DownloadProgressInfo verifying = new DownloadProgressInfo();
+                List<Integer> mismatched = new ParallelFileVerifier().verify(file, manifest, (verified, total) -> {
+                    synchronized (DownloadManager.this) {
+                        progressInfo = verifying.setVerifying(verified, total);
+                        progressBus.publish(progressInfo);
+                    }
+                });
+
+                if (mismatched.isEmpty()) {
+                    result = DownloadProgressInfo.createCompleted(file.length(),
+                            System.currentTimeMillis() - startTime);
+                } else {
+                    result = DownloadProgressInfo.createFailed("무결성 검증 실패 (손상 블록 " + mismatched.size() + "개)");
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "파일 검증 중 오류 발생", e);
+                result = DownloadProgressInfo.createFailed(e.getMessage());
+            }
+
+            // 다른 진행 정보 갱신과 겹치지 않게 잠금 안에서 반영 후 발행
+            synchronized (DownloadManager.this) {
+                progressInfo = result;
+                progressBus.publish(progressInfo);
+            }
+        });
+    }
+
+    // 다운로드 전에 서버 연결을 미리 수립 (호스트마다 한 번, 결과는 공용 연결 풀에 남음)
+    public void prewarmConnections() {
+        List<String> urls = new ArrayList<>();
+        synchronized (this) {
+            urls.add(primaryItem.getUrl());
+            urls.addAll(primaryItem.getMirrors());
+            for (DownloadItem item : knownItems.values()) {
+                urls.add(item.getUrl());
+                urls.addAll(item.getMirrors());
+                if (item.getManifestUrl() != null) {
+                    urls.add(item.getManifestUrl());
+                }
+            }
+        }
+
+        Set<String> hosts = new HashSet<>();
+        for (String url : urls) {
+            HttpUrl httpUrl = HttpUrl.parse(url);
+            if (httpUrl != null && hosts.add(httpUrl.scheme() + "://" + httpUrl.host() + ":" + httpUrl.port())) {
+                connectionManager.prewarm(url);
+            }
+        }
+    }
+
     // 리소스 해제
     public void shutdown() {
         if (isDownloading()) {
@@ -171,135 +630,350 @@ public class DownloadManager implements DownloadTask.DownloadTaskListener {
         }
 
         // Executor 종료
-        if (executorService != null && !executorService.isShutdown()) {
+        if (!executorService.isShutdown()) {
             executorService.shutdown();
         }
+
+        networkMonitor.stop();
+
+        // 남은 체크포인트 저장 후 종료
+        List<DownloadItem> items;
+        synchronized (this) {
+            items = new ArrayList<>(knownItems.values());
+        }
+        for (DownloadItem item : items) {
+            item.checkpointScheduler.shutdown();
+            item.progressBus.shutdown();
+        }
+
+        itemProgressExecutor.shutdownNow();
+        progressBus.shutdown();
     }
 
-    // 다운로드 상태 저장
+    // 다운로드 상태 저장 (진행 중인 모든 항목, 체크포인트 스레드에서 임시 파일 반영 후 저장)
     public void saveDownloadState() {
-        if (tempFile.exists() && (isDownloading() || currentState.getDownloadedBytes() > 0)) {
-            long currentSize = tempFile.length();
-
-            if (currentState.getTotalBytes() > 0) {
-                currentState.setDownloadedBytes(currentSize);
-                stateManager.saveState(currentState);
+        List<DownloadItem> items;
+        synchronized (this) {
+            items = new ArrayList<>(activeItems);
+        }
+        for (DownloadItem item : items) {
+            saveItemState(item);
+        }
+    }
 
-                Log.d(TAG, "다운로드 상태 저장 ▶ " + currentSize + "/" + currentState.getTotalBytes());
-            }
+    // 항목 하나의 상태 저장 요청
+    private void saveItemState(DownloadItem item) {
+        DownloadState state = item.state;
+        if (state != null && state.getTotalBytes() > 0
+                && ((item.task != null && item.task.isDownloading()) || state.getDownloadedBytes() > 0)) {
+            item.checkpointScheduler.requestCheckpoint(state);
         }
     }
 
-    // 다운로드 상태 취소
+    // 전체 다운로드 취소 (대기 항목 포함)
     public void cancelDownload() {
-        if (isDownloading()) {
-            if (downloadTask != null) {
-                downloadTask.cancelDownload();
+        List<DownloadItem> items;
+        synchronized (this) {
+            items = new ArrayList<>(pendingItems);
+            items.addAll(activeItems);
+        }
+        for (DownloadItem item : items) {
+            cancel(item.getId());
+        }
+    }
+
+    /**
+     * 항목 하나만 취소 (다른 항목은 계속 진행)
+     *
+     * @param itemId 항목 ID
+     */
+    public void cancel(String itemId) {
+        DownloadItem item;
+        DownloadTask task;
+        boolean wasPending;
+        synchronized (this) {
+            item = batchItems.get(itemId);
+            if (item == null || item.isFinished()) {
+                return;
             }
+            wasPending = pendingItems.remove(item);
+            // 활성 목록에 있지만 아직 작업이 없으면 startItem에서 확인하고 시작하지 않음
+            item.cancelRequested = true;
+            task = item.task;
+        }
+
+        if (wasPending) {
+            item.progressInfo = DownloadProgressInfo.createCancelled();
+            notifyItemChanged(item);
+            publishProgress();
+        } else if (task != null) {
+            // 결과는 작업 스레드가 끝나면서 finishItem으로 정리됨 (작업 스레드 시작 전이어도 취소 상태 유지)
+            task.cancelDownload();
         }
     }
 
     // 다운로드 상태 확인
-    // true = 다운로드 진행 중, false = 다운로드 중 아님
-    public boolean isDownloading() {
-        return downloadTask != null && downloadTask.isDownloading();
+    // true = 대기 또는 진행 중인 항목 있음, false = 다운로드 중 아님
+    public synchronized boolean isDownloading() {
+        return !activeItems.isEmpty() || !pendingItems.isEmpty();
+    }
+
+    // 현재 진행 정보 반환 (큐 전체 기준, 진행 중에 갱신되는 객체라 복사본으로 반환)
+    public synchronized DownloadProgressInfo getCurrentProgress() {
+        return new DownloadProgressInfo(progressInfo);
     }
 
-    // 현재 진행 정보 반환
-    public DownloadProgressInfo getCurrentProgress() {
-        return progressInfo;
+    // 이번 묶음의 항목 목록 반환
+    public synchronized List<DownloadItem> getItems() {
+        return new ArrayList<>(batchItems.values());
     }
 
-    // DownloadTaskListener 구현
-    @Override
-    public void onStart(long totalBytes, long downloadedBytes) {
-        currentState.setTotalBytes(totalBytes);
-        currentState.setDownloadedBytes(downloadedBytes);
+    // 항목 하나 반환 (없으면 null)
+    public synchronized DownloadItem getItem(String itemId) {
+        return batchItems.get(itemId);
+    }
 
-        // 진행 정보 업데이트
-        progressInfo = new DownloadProgressInfo();
-        progressInfo.setStatus(DownloadProgressInfo.STATUS_DOWNLOADING);
-        progressInfo.setTotalBytes(totalBytes);
-        progressInfo.setDownloadedBytes(downloadedBytes);
-        progressInfo.setProgress((int)(downloadedBytes * 100 / totalBytes));
+    // 항목 상태 변경 알림 후 전체 진행 정보 갱신
+    // 항목 버스에 발행만 하고 돌아오므로 리스너 처리가 느려도 다운로드 스레드는 기다리지 않음
+    private void notifyItemChanged(DownloadItem item) {
+        synchronized (this) {
+            // 진행 정보 객체는 재사용되므로 갱신과 겹치지 않게 잠금 안에서 발행 (버스는 복사만 함)
+            item.progressBus.publish(item.progressInfo);
+        }
+        publishProgress();
+    }
 
-        // 리스너 알림
-        if (listener != null) {
-            listener.onStatusChanged(progressInfo);
+    // 큐 전체 진행 정보 계산 후 알림
+    // 항목이 하나면 그 항목의 정보를 그대로 전달하고, 여러 개면 합계로 전달
+    // 완료/실패/취소 같은 최종 상태는 모든 항목의 작업이 끝난 뒤 한 번만 전달
+    private void publishProgress() {
+        DownloadProgressInfo info;
+        synchronized (this) {
+            if (batchItems.isEmpty()) {
+                return;
+            }
+
+            boolean drained = activeItems.isEmpty() && pendingItems.isEmpty();
+            if (drained) {
+                info = buildFinalProgress();
+                batchItems.clear();
+            } else if (batchItems.size() == 1) {
+                info = batchItems.values().iterator().next().progressInfo;
+                if (isTerminal(info)) {
+                    // 작업 스레드가 정리될 때 최종 상태로 다시 알림
+                    return;
+                }
+            } else {
+                info = buildAggregateProgress();
+            }
+            progressInfo = info;
+
+            // 진행 정보 객체는 재사용되므로 갱신과 겹치지 않게 잠금 안에서 발행 (버스는 복사만 하고 바로 돌아옴)
+            progressBus.publish(info);
         }
     }
 
-    @Override
-    public void onProgress(long currentBytes, long totalBytes, long speed) {
-        currentState.setDownloadedBytes(currentBytes);
+    // 진행 중인 묶음의 합계 진행 정보
+    private DownloadProgressInfo buildAggregateProgress() {
+        long downloaded = 0;
+        long total = 0;
+        long speed = 0;
+        for (DownloadItem item : batchItems.values()) {
+            DownloadProgressInfo itemInfo = item.progressInfo;
+            downloaded += itemInfo.getDownloadedBytes();
+            total += itemInfo.getTotalBytes();
+            if (activeItems.contains(item)) {
+                speed += itemInfo.getSpeed();
+            }
+        }
+        if (total <= 0) {
+            return DownloadProgressInfo.createStarting();
+        }
+        return aggregateProgress.setDownloading(downloaded, total, speed);
+    }
 
-        // 30초마다 혹은 10% 진행 마다 상태 저장
-        if (currentBytes % (totalBytes / 10) < 1024 * 1024) { // 약 1MB 단위로 체크함
-            saveDownloadState();
+    // 묶음이 모두 끝났을 때의 최종 상태 (실패 > 취소 > 완료 순)
+    private DownloadProgressInfo buildFinalProgress() {
+        if (batchItems.size() == 1) {
+            return batchItems.values().iterator().next().progressInfo;
         }
 
-        // 진행 정보 업데이트
-        progressInfo = DownloadProgressInfo.createDownloading(currentBytes, totalBytes, speed);
+        long totalSize = 0;
+        DownloadItem failed = null;
+        boolean cancelled = false;
+        for (DownloadItem item : batchItems.values()) {
+            int status = item.progressInfo.getStatus();
+            if (status == DownloadProgressInfo.STATUS_FAILED && failed == null) {
+                failed = item;
+            } else if (status == DownloadProgressInfo.STATUS_CANCELLED) {
+                cancelled = true;
+            }
+            totalSize += item.progressInfo.getTotalBytes();
+        }
 
-        // 리스너 알림
-        if (listener != null) {
-            listener.onStatusChanged(progressInfo);
+        if (failed != null) {
+            Log.w(TAG, "실패한 항목 있음 ▶ " + failed.getId());
+            return failed.progressInfo;
+        }
+        if (cancelled) {
+            return DownloadProgressInfo.createCancelled();
         }
+        return DownloadProgressInfo.createCompleted(totalSize, System.currentTimeMillis() - batchStartTime);
     }
 
-    @Override
-    public void onComplete(long fileSize) {
-        // 소요 시간 계산
-        long downloadEndTime = System.currentTimeMillis();
-        long downloadDuration = downloadEndTime - downloadStartTime;
+    private static boolean isTerminal(DownloadProgressInfo info) {
+        int status = info.getStatus();
+        return status == DownloadProgressInfo.STATUS_COMPLETED
+                || status == DownloadProgressInfo.STATUS_FAILED
+                || status == DownloadProgressInfo.STATUS_CANCELLED;
+    }
 
-        // 상태 업데이트
-        currentState.setCompleted(true);
-        currentState.setDownloadedBytes(fileSize);
-        currentState.setTotalBytes(fileSize);
+    // 항목별 DownloadTaskListener 구현
+    private class ItemTaskListener implements DownloadTask.DownloadTaskListener {
+        private final DownloadItem item;
 
-        // 진행 정보 업데이트
-        progressInfo = DownloadProgressInfo.createCompleted(fileSize, downloadDuration);
+        ItemTaskListener(DownloadItem item) {
+            this.item = item;
+        }
 
-        // 상태 정보 삭제
-        stateManager.clearState();
+        @Override
+        public void onStart(long totalBytes, long downloadedBytes) {
+            item.state.setTotalBytes(totalBytes);
+            item.state.setDownloadedBytes(downloadedBytes);
+
+            // 진행 정보 업데이트
+            DownloadProgressInfo info = new DownloadProgressInfo();
+            info.setStatus(DownloadProgressInfo.STATUS_DOWNLOADING);
+            info.setTotalBytes(totalBytes);
+            info.setDownloadedBytes(downloadedBytes);
+            info.setProgress((int)(downloadedBytes * 100 / totalBytes));
+            item.progressInfo = info;
+
+            // 리스너 알림
+            notifyItemChanged(item);
+        }
 
-        // 리스너 알림
-        if (listener != null) {
-            listener.onStatusChanged(progressInfo);
+        @Override
+        public void onProgress(long currentBytes, long totalBytes, long speed) {
+            // 저장 주기 판단만 하고 실제 저장은 체크포인트 스레드에서 처리
+            // (상태의 다운로드 바이트 수는 다운로드 작업이 기록된 위치 기준으로 갱신)
+            item.checkpointScheduler.onProgress(item.state, currentBytes, speed);
+
+            // 진행 정보 업데이트 (항목의 진행용 객체를 재사용, 합계 계산과 겹치지 않게 잠금 안에서 갱신)
+            synchronized (DownloadManager.this) {
+                item.progressInfo = item.progressSnapshot.setDownloading(currentBytes, totalBytes, speed);
+            }
+
+            // 리스너 알림
+            notifyItemChanged(item);
         }
-    }
 
-    @Override
-    public void onFailure(String errorMessage) {
-        // 실패 정보 업데이트
-        progressInfo = DownloadProgressInfo.createFailed(errorMessage);
+        @Override
+        public void onVerifying(long verifiedBytes, long totalBytes) {
+            // 진행 정보 업데이트
+            synchronized (DownloadManager.this) {
+                item.progressInfo = item.progressSnapshot.setVerifying(verifiedBytes, totalBytes);
+            }
+
+            // 리스너 알림
+            notifyItemChanged(item);
+        }
 
-        // 상태 저장 (재시도 가능하도록)
-        saveDownloadState();
+        @Override
+        public void onComplete(long fileSize) {
+            // 소요 시간 계산
+            long downloadDuration = System.currentTimeMillis() - item.startTime;
 
-        // 리스너 알림
-        if (listener != null) {
-            listener.onStatusChanged(progressInfo);
+            // 상태 업데이트
+            item.state.setCompleted(true);
+            item.state.setDownloadedBytes(fileSize);
+            item.state.setTotalBytes(fileSize);
+
+            // 진행 정보 업데이트
+            item.progressInfo = DownloadProgressInfo.createCompleted(fileSize, downloadDuration);
+
+            // 상태 정보 삭제
+            item.checkpointScheduler.clear();
+
+            Log.d(TAG, "다운로드 완료 ▶ " + item.getId() + ", " + downloadDuration + "ms, 멈춘 연결 재연결 "
+                    + item.getStallReconnectCount() + "회, 헤지 요청 " + item.getHedgeCount() + "회");
+
+            // 리스너 알림
+            notifyItemChanged(item);
         }
-    }
 
-    @Override
-    public void onCancelled() {
-        // 취소 정보 업데이트
-        progressInfo = DownloadProgressInfo.createCancelled();
+        @Override
+        public void onFailure(String errorMessage) {
+            // 취소로 연결이 끊기면서 생긴 오류는 무시
+            if (item.progressInfo.getStatus() == DownloadProgressInfo.STATUS_CANCELLED) {
+                return;
+            }
 
-        // 상태 저장 추가(이어받기용도), (5. 12.)
-        saveDownloadState();
+            // 실패 정보 업데이트
+            item.progressInfo = DownloadProgressInfo.createFailed(errorMessage);
+            Log.w(TAG, "다운로드 실패 ▶ " + item.getId() + ", 멈춘 연결 재연결 " + item.getStallReconnectCount()
+                    + "회, 헤지 요청 " + item.getHedgeCount() + "회");
 
-        // 리스너 알림
-        if (listener != null) {
-            listener.onStatusChanged(progressInfo);
+            // 상태 저장 (재시도 가능하도록)
+            saveItemState(item);
+
+            // 리스너 알림
+            notifyItemChanged(item);
+        }
+
+        @Override
+        public void onRetrying(int attempt, long delayMs, String reason) {
+            // 재시도 대기 정보 업데이트 (받은 분량은 유지)
+            item.progressInfo = DownloadProgressInfo.createRetrying(attempt, delayMs,
+                    item.state.getDownloadedBytes(), item.state.getTotalBytes());
+
+            // 대기 중 종료되어도 이어받을 수 있도록 상태 저장
+            saveItemState(item);
+
+            // 리스너 알림
+            notifyItemChanged(item);
+        }
+
+        @Override
+        public void onConnectionCountChanged(int previousCount, int newCount, long bytesPerSecond, int decision) {
+            // 조절 결과를 현재 표시 속도와 함께 기록
+            Log.d(TAG, "연결 수 변경 ▶ " + item.getId() + ", " + previousCount + " -> " + newCount
+                    + " (" + ConnectionController.decisionName(decision) + "), 측정 " + bytesPerSecond
+                    + " bytes/s, 표시 속도 " + item.progressInfo.getSpeed() + " bytes/s");
+
+            if (listener != null) {
+                listener.onConnectionCountChanged(item, previousCount, newCount, bytesPerSecond);
+            }
+        }
+
+        @Override
+        public void onCancelled() {
+            // 취소 정보 업데이트
+            item.progressInfo = DownloadProgressInfo.createCancelled();
+
+            // 상태 저장 추가(이어받기 용도)
+            saveItemState(item);
+
+            // 리스너 알림
+            notifyItemChanged(item);
         }
     }
 
     // 다운로드 매니저 리스너 인터페이스
     public interface DownloadManagerListener {
-        void onStatusChanged(DownloadProgressInfo progress);
+        // 큐 전체 진행 상황 (항목이 하나면 해당 항목의 진행 상황)
+        // ProgressBus 전달 스레드에서 호출되며, 밀린 진행 정보는 마지막 것만 전달됨 (상태 변경은 모두 전달)
+        default void onStatusChanged(DownloadProgressInfo progress) {
+        }
+
+        // 항목별 진행 상황
+        // 항목별 ProgressBus 전달 스레드에서 호출되며, 밀린 진행 정보는 마지막 것만 전달됨 (상태 변경은 모두 전달)
+        // progress는 버스가 재사용하는 복사본이라 다운로드 중에도 바뀌지 않지만, 호출 뒤에 보관하려면 복사해야 함
+        default void onItemStatusChanged(DownloadItem item, DownloadProgressInfo progress) {
+        }
+
+        // 항목의 분할 다운로드 연결 수 변경
+        default void onConnectionCountChanged(DownloadItem item, int previousCount, int newCount, long bytesPerSecond) {
+        }
     }
 }
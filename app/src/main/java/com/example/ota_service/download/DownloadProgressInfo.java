@@ -18,6 +18,7 @@ public class DownloadProgressInfo implements Parcelable {
     public static final int STATUS_COMPLETED = 4;
     public static final int STATUS_FAILED = 5;
     public static final int STATUS_CANCELLED = 6;
+    public static final int STATUS_VERIFYING = 7;
 
     private int status;                     // 현재 상태
     private int progress;                   // 진행률 0 - 100
@@ -38,6 +39,22 @@ public class DownloadProgressInfo implements Parcelable {
         this.estimatedTimeRemaining = 0;
     }
 
+    // 복사 생성자 (비동기로 넘기거나 보관할 때 사용)
+    public DownloadProgressInfo(DownloadProgressInfo other) {
+        set(other);
+    }
+
+    // 다른 진행 정보의 값을 그대로 복사 (객체를 새로 만들지 않고 재사용)
+    public void set(DownloadProgressInfo other) {
+        this.status = other.status;
+        this.progress = other.progress;
+        this.downloadedBytes = other.downloadedBytes;
+        this.totalBytes = other.totalBytes;
+        this.speed = other.speed;
+        this.errorMessage = other.errorMessage;
+        this.estimatedTimeRemaining = other.estimatedTimeRemaining;
+    }
+
     // 다운로드 시작 상태 생성
     public static DownloadProgressInfo createStarting() {
         DownloadProgressInfo info = new DownloadProgressInfo();
@@ -46,25 +63,71 @@ public class DownloadProgressInfo implements Parcelable {
         return info;
     }
 
-    // 다운로드 진행 상태 생성
-    public static DownloadProgressInfo createDownloading(long downloaded, long total, long speed) {
+    /**
+     * 오류 후 재시도 대기 상태 생성
+     *
+     * @param attempt 재시도 횟수
+     * @param delayMs 재시도까지 남은 시간(ms), -1이면 네트워크 연결 대기
+     * @param downloaded 지금까지 받은 바이트 수
+     * @param total 전체 파일 크기
+     * @return 진행 정보
+     */
+    public static DownloadProgressInfo createRetrying(int attempt, long delayMs, long downloaded, long total) {
         DownloadProgressInfo info = new DownloadProgressInfo();
-        info.status = STATUS_DOWNLOADING;
+        info.status = STATUS_CONNECTING;
         info.downloadedBytes = downloaded;
         info.totalBytes = total;
-        info.speed = speed;
-
-        // 진행률 계산
         if (total > 0) {
             info.progress = (int) (downloaded * 100 / total);
         }
+        info.errorMessage = delayMs < 0 ? "네트워크 연결 대기 중..."
+                : "연결 재시도 대기 중 (" + attempt + "회째, " + FileUtils.formatDownloadTime(delayMs) + " 후)";
+        return info;
+    }
+
+    // 다운로드 진행 상태 생성
+    public static DownloadProgressInfo createDownloading(long downloaded, long total, long speed) {
+        return new DownloadProgressInfo().setDownloading(downloaded, total, speed);
+    }
+
+    /**
+     * 다운로드 진행 상태로 갱신 (진행 중에는 객체를 새로 만들지 않고 같은 객체를 계속 갱신)
+     *
+     * @param downloaded 받은 바이트 수
+     * @param total 전체 파일 크기
+     * @param speed 다운로드 속도 bytes/s
+     * @return 이 객체
+     */
+    public DownloadProgressInfo setDownloading(long downloaded, long total, long speed) {
+        this.status = STATUS_DOWNLOADING;
+        this.downloadedBytes = downloaded;
+        this.totalBytes = total;
+        this.speed = speed;
+        this.errorMessage = "";
+
+        // 진행률 계산
+        this.progress = total > 0 ? (int) (downloaded * 100 / total) : 0;
 
         // 예상 시간 계산
-        if (speed > 0) {
-            info.estimatedTimeRemaining = (total - downloaded) * 1000 / speed;
-        }
+        this.estimatedTimeRemaining = speed > 0 ? (total - downloaded) * 1000 / speed : 0;
+        return this;
+    }
 
-        return info;
+    // 무결성 검증 진행 상태 생성
+    public static DownloadProgressInfo createVerifying(long verified, long total) {
+        return new DownloadProgressInfo().setVerifying(verified, total);
+    }
+
+    // 무결성 검증 진행 상태로 갱신 (같은 객체 재사용)
+    public DownloadProgressInfo setVerifying(long verified, long total) {
+        this.status = STATUS_VERIFYING;
+        this.downloadedBytes = verified;
+        this.totalBytes = total;
+        this.speed = 0;
+        this.errorMessage = "";
+        this.progress = total > 0 ? (int) (verified * 100 / total) : 0;
+        this.estimatedTimeRemaining = 0;
+        return this;
     }
 
     // 다운로드 완료 상태 생성
@@ -98,32 +161,48 @@ public class DownloadProgressInfo implements Parcelable {
 
     // 상태 메시지 생성
     public String getStatusMessage() {
+        return appendStatusMessage(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * 상태 메시지를 StringBuilder에 이어 씀 (String.format/임시 문자열 없이 작성)
+     * 화면/알림을 자주 갱신하는 쪽은 StringBuilder를 재사용해서 갱신마다 생기는 할당을 없앰
+     *
+     * @param builder 메시지를 쓸 StringBuilder
+     * @return builder
+     */
+    public StringBuilder appendStatusMessage(StringBuilder builder) {
         switch (status) {
             case STATUS_IDLE:
-                return "대기 중";
+                return builder.append("대기 중");
             case STATUS_CONNECTING:
-                return errorMessage;
+                return builder.append(errorMessage);
             case STATUS_DOWNLOADING:
-                String speedStr = speed > 0 ?
-                        FileUtils.formatFileSize(speed) + "/s" : "계산 중...";
-                String timeStr = estimatedTimeRemaining > 0 ?
-                        "남은 시간 ▶ " + FileUtils.formatDownloadTime(estimatedTimeRemaining) : "";
-
-                return String.format("다운로드 진행 중 %d%% (%s / %s) - %s %s",
-                        progress,
-                        FileUtils.formatFileSize(downloadedBytes),
-                        FileUtils.formatFileSize(totalBytes),
-                        speedStr,
-                        timeStr);
+                builder.append("다운로드 진행 중 ").append(progress).append("% (");
+                FileUtils.appendFileSize(builder, downloadedBytes).append(" / ");
+                FileUtils.appendFileSize(builder, totalBytes).append(") - ");
+                if (speed > 0) {
+                    FileUtils.appendFileSize(builder, speed).append("/s");
+                } else {
+                    builder.append("계산 중...");
+                }
+                builder.append(' ');
+                if (estimatedTimeRemaining > 0) {
+                    FileUtils.appendDownloadTime(builder.append("남은 시간 ▶ "), estimatedTimeRemaining);
+                }
+                return builder;
             case STATUS_PAUSED:
-                return String.format("다운로드 일시 중단 ▶ %d%% (%s/%s)",
-                        progress,
-                        FileUtils.formatFileSize(downloadedBytes),
-                        FileUtils.formatFileSize(totalBytes));
+                builder.append("다운로드 일시 중단 ▶ ").append(progress).append("% (");
+                FileUtils.appendFileSize(builder, downloadedBytes).append('/');
+                return FileUtils.appendFileSize(builder, totalBytes).append(')');
+            case STATUS_VERIFYING:
+                builder.append("무결성 검증 중 ").append(progress).append("% (");
+                FileUtils.appendFileSize(builder, downloadedBytes).append(" / ");
+                return FileUtils.appendFileSize(builder, totalBytes).append(')');
             case STATUS_COMPLETED:
             case STATUS_FAILED:
-            case STATUS_CANCELLED:return errorMessage;
-            default:return "알 수 없는 상태";
+            case STATUS_CANCELLED:return builder.append(errorMessage);
+            default:return builder.append("알 수 없는 상태");
         }
     }
 
@@ -3,19 +3,30 @@ package com.example.ota_service.download;
 import android.util.Log;
 
 import com.example.ota_service.model.DownloadState;
+import com.example.ota_service.model.RangeSet;
+import com.example.ota_service.network.BandwidthShaper;
 import com.example.ota_service.network.ConnectionManager;
+import com.example.ota_service.network.MirrorSelector;
+import com.example.ota_service.network.NetworkMonitor;
+import com.example.ota_service.utils.ResumableSha256;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.LinkOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
+import okhttp3.Call;
 import okhttp3.CipherSuite;
+import okhttp3.Protocol;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
-import okio.Buffer;
-import okio.BufferedSink;
 import okio.BufferedSource;
-import okio.Okio;
 
 // 다운로드 작업 처리 클래스
 public class DownloadTask {
@@ -25,11 +36,66 @@ public class DownloadTask {
     private final File tempFile;
     private final File downloadFile;
 
-    private boolean isDownloading = false;
+    private volatile boolean isDownloading = false;
+    private volatile boolean cancelled = false;     // 시작 전에 취소된 경우에도 startDownload가 바로 끝나도록 남겨 둠
     private long lastProgressUpdateTime = 0;
     private long lastBytesDownloaded = 0;
     private DownloadTaskListener listener;
 
+    // 분할 다운로드 설정 (1이면 단일 연결)
+    private int segmentCount = 1;
+    private SegmentedDownloader segmentedDownloader;
+    private volatile int hedgeCount = 0;    // 헤지 요청 누적 횟수 (손상 블록 재다운로드 회차 포함)
+
+    // 연결 수 자동 조절 최대값 (segmentCount 이하면 고정 연결 수)
+    private int maxConnections = 0;
+
+    // HTTP/2 서버면 구간 요청을 연결 하나에 다중화 (false면 구간마다 별도 TCP 연결)
+    private boolean multiplexing = true;
+    private Protocol negotiatedProtocol;    // 첫 구간 요청(GET)에서 협상된 프로토콜
+    private boolean multiRangeSupported = true; // 흩어진 구간 묶음 요청 가능 여부 (서버가 거부하면 false)
+
+    // 헤지 요청 설정 (stallTimeoutMs가 0이면 사용 안 함)
+    private long hedgeStallTimeoutMs = 0;
+    private double hedgeSlowRatio = 0;
+    private double hedgeMaxRatio = 0;
+
+    // 읽기/쓰기 파이프라인 설정
+    private int bufferSize = 64 * 1024;     // 버퍼 하나의 크기 64kb
+    private int queueDepth = 16;            // 쓰기 대기 버퍼 수
+
+    // 무결성 검증 설정 (null이면 검증 안 함)
+    private String expectedSha256;
+    private static final long DIGEST_CATCH_UP_PER_WRITE = 256 * 1024; // 분할 다운로드에서 기록 1회당 파일에서 보충할 최대 크기
+
+    // 블록 매니페스트 설정 (null이면 블록 검증 안 함)
+    private String manifestUrl;
+    private String expectedManifestRoot;
+    private static final int MAX_REPAIR_ROUNDS = 3; // 손상 블록 재다운로드 최대 횟수
+    private boolean blocksVerifiedInline = false;   // 다운로드 중 블록 검증 완료 여부
+
+    // 속도 제한 (null이면 제한 없음)
+    private BandwidthShaper bandwidthShaper;
+
+    // 자동 재시도 설정 (maxRetries가 0이면 재시도 안 함)
+    private int maxRetries = 0;
+    private long retryBaseDelayMs = 1000;
+    private long maxRetryDelayMs = 60000;
+    private static final long OFFLINE_RECHECK_MS = 30000;  // 오프라인 대기 중 연결 상태 재확인 주기
+    private NetworkMonitor networkMonitor;                  // null이면 연결 상태와 무관하게 백오프만 적용
+    private final Object retryLock = new Object();
+    private boolean retryRequested = false;
+    private boolean resetRequired = false;                  // 다음 시도 전에 받은 데이터를 버려야 함
+
+    // 느린 연결 감시 (null이면 OkHttp 읽기 타임아웃에만 의존)
+    private StallWatchdog stallWatchdog;
+    private static final int MAX_STALL_RECONNECTS = 5; // 진행 없이 연속으로 멈춤 재연결할 수 있는 횟수
+
+    // 미러 설정 (비어 있으면 다운로드 URL만 사용)
+    private List<String> mirrorUrls;
+    private MirrorSelector mirrorSelector;
+    private static final long MIRROR_SELECT_BYTES = 64L * 1024 * 1024; // 전체 크기를 모를 때 미러 선택 기준 크기
+
     /**
      * DownloadTask 생성자
      *
@@ -48,8 +114,131 @@ public class DownloadTask {
         this.listener = listener;
     }
 
+    // 분할 다운로드 연결 수 설정 (1 이하면 단일 연결 다운로드)
+    public void setSegmentCount(int segmentCount) {
+        this.segmentCount = Math.max(1, segmentCount);
+    }
+
+    /**
+     * 연결 수 자동 조절 설정 - segmentCount개로 시작해서 처리량에 따라 1 ~ maxConnections 사이에서 조절
+     *
+     * @param maxConnections 최대 연결 수 (segmentCount 이하면 조절 안 함)
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * 같은 파일을 제공하는 미러 설정 - 시작 시 측정해서 가장 빠른 미러로 받고, 구간마다 다른 미러를 사용할 수 있음
+     * 미러가 실패하거나 느려지면 받은 데이터는 그대로 두고 다른 미러에서 이어받음
+     *
+     * @param mirrorUrls 다운로드 URL 외의 미러 URL 목록 (null이나 빈 목록이면 사용 안 함)
+     */
+    public void setMirrors(List<String> mirrorUrls) {
+        this.mirrorUrls = mirrorUrls;
+    }
+
+    /**
+     * HTTP/2 다중화 사용 설정 (분할 다운로드에만 적용)
+     * 서버와 HTTP/2가 협상되면 구간 요청을 연결 하나의 스트림으로 보내고,
+     * 사용하지 않으면 HTTP/1.1로 구간마다 별도 연결을 염 (HTTP/1.1 서버는 항상 별도 연결)
+     *
+     * @param multiplexing HTTP/2 다중화 사용 여부
+     */
+    public void setMultiplexing(boolean multiplexing) {
+        this.multiplexing = multiplexing;
+    }
+
+    /**
+     * 막바지 구간 헤지 요청 설정 (분할 다운로드에만 적용)
+     *
+     * @param stallTimeoutMs 데이터 없이 이 시간이 지나면 남은 범위를 다시 요청 (0이면 사용 안 함)
+     * @param slowRatio 다른 구간 속도 중앙값 대비 이 비율보다 느리면 다시 요청 (0이면 속도 기준 사용 안 함)
+     * @param maxRatio 다시 요청할 수 있는 최대 분량 (전체 크기 대비 비율)
+     */
+    public void setHedging(long stallTimeoutMs, double slowRatio, double maxRatio) {
+        this.hedgeStallTimeoutMs = stallTimeoutMs;
+        this.hedgeSlowRatio = slowRatio;
+        this.hedgeMaxRatio = maxRatio;
+    }
+
+    /**
+     * 읽기/쓰기 파이프라인 설정
+     *
+     * @param bufferSize 버퍼 하나의 크기(bytes)
+     * @param queueDepth 디스크 쓰기 대기 버퍼 수
+     */
+    public void setPipelineConfig(int bufferSize, int queueDepth) {
+        this.bufferSize = Math.max(4 * 1024, bufferSize);
+        this.queueDepth = Math.max(1, queueDepth);
+    }
+
+    // 완료 후 비교할 SHA-256 값 설정 (16진수, null이면 검증 안 함)
+    public void setExpectedSha256(String expectedSha256) {
+        this.expectedSha256 = expectedSha256 != null ? expectedSha256.trim().toLowerCase() : null;
+    }
+
+    /**
+     * 블록 매니페스트 설정 (본문보다 먼저 받아 블록 단위로 검증)
+     *
+     * @param manifestUrl 매니페스트 URL (null이면 블록 검증 안 함)
+     * @param expectedRoot 신뢰할 머클 루트 16진수 (null이면 매니페스트 자체 루트만 확인)
+     */
+    public void setBlockManifest(String manifestUrl, String expectedRoot) {
+        this.manifestUrl = manifestUrl;
+        this.expectedManifestRoot = expectedRoot;
+    }
+
+    // 속도 제한 설정 (속도 변경은 BandwidthShaper.setRate로 연결 유지한 채 적용)
+    public void setBandwidthShaper(BandwidthShaper bandwidthShaper) {
+        this.bandwidthShaper = bandwidthShaper;
+    }
+
+    /**
+     * 자동 재시도 설정 - 재시도 간격은 baseDelayMs부터 두 배씩 늘어나며 maxDelayMs를 넘지 않음
+     * 진행이 있었던 시도 뒤에는 횟수를 다시 셈
+     *
+     * @param maxRetries 연속 실패 시 최대 재시도 횟수 (0이면 재시도 안 함)
+     * @param baseDelayMs 첫 재시도 간격(ms)
+     * @param maxDelayMs 최대 재시도 간격(ms)
+     */
+    public void setRetryPolicy(int maxRetries, long baseDelayMs, long maxDelayMs) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBaseDelayMs = Math.max(1, baseDelayMs);
+        this.maxRetryDelayMs = Math.max(this.retryBaseDelayMs, maxDelayMs);
+    }
+
+    // 네트워크 감시 설정 - 오프라인이면 연결될 때까지 기다렸다가 재시도
+    public void setNetworkMonitor(NetworkMonitor networkMonitor) {
+        this.networkMonitor = networkMonitor;
+    }
+
     /**
-     * 다운로드 작업 영역
+     * 느린 연결 감시 설정 - 최소 속도보다 느린 응답은 끊고 현재 위치부터 Range 요청으로 다시 연결
+     *
+     * @param minBytesPerSecond 최소 속도(bytes/s, 0 이하면 감시 안 함)
+     * @param windowMs 속도를 평균할 구간(ms)
+     */
+    public void setStallWatchdog(long minBytesPerSecond, long windowMs) {
+        if (minBytesPerSecond <= 0) {
+            stallWatchdog = null;
+            return;
+        }
+        stallWatchdog = new StallWatchdog(minBytesPerSecond, windowMs);
+    }
+
+    // 느린 연결로 판단해서 다시 연결한 횟수
+    public int getStallReconnectCount() {
+        return stallWatchdog != null ? stallWatchdog.getStallCount() : 0;
+    }
+
+    // 분할 다운로드에서 느린 구간을 다른 연결로 다시 요청한 횟수
+    public int getHedgeCount() {
+        return hedgeCount;
+    }
+
+    /**
+     * 다운로드 작업 영역 - 재시도 가능한 오류는 지수 백오프(지터 포함)로 자동 재시도하며 이어받음
      *
      * @param url 다운로드할 파일의 URL
      * @param downloadedBytes 이미 다운로드된 바이트 수
@@ -58,77 +247,374 @@ public class DownloadTask {
      */
     public boolean startDownload(String url, long downloadedBytes, DownloadState state) {
         isDownloading = true;
-        lastProgressUpdateTime = System.currentTimeMillis();
-        lastBytesDownloaded = downloadedBytes;
+        if (cancelled) {
+            // 작업 스레드가 시작되기 전에 취소됨 (취소 알림은 cancelDownload에서 이미 보냄)
+            isDownloading = false;
+            return false;
+        }
+        blocksVerifiedInline = false;
+        retryRequested = false;
+        resetRequired = false;
+        boolean restartedAfterChange = false;
+        int failovers = 0;
+
+        mirrorSelector = null;
+        if (mirrorUrls != null && !mirrorUrls.isEmpty()) {
+            List<String> urls = new ArrayList<>();
+            urls.add(url);
+            urls.addAll(mirrorUrls);
+            mirrorSelector = new MirrorSelector(urls);
+        }
 
         try {
-            // 서버 가용성 확인
-            if (!connectionManager.isServerAvailable(url)) {
-                if (listener != null) {
-                    listener.onFailure("서버에 연결할 수 없습니다.");
-                }
-                return false;
-            }
+            for (int attempt = 0; ; attempt++) {
+                lastProgressUpdateTime = System.currentTimeMillis();
+                lastBytesDownloaded = downloadedBytes;
+                long progressBefore = getResumePosition(state);
+                String source = selectSource(url, downloadedBytes, state);
+
+                try {
+                    return attemptDownload(source, downloadedBytes, state);
+                } catch (IOException e) {
+                    if (!isDownloading) {
+                        Log.d(TAG, "다운로드 취소됨");
+                        return false;
+                    }
 
-            // 서버에 연결
-            Response response = connectionManager.connect(url, downloadedBytes);
+                    // 다른 미러가 있으면 기다리지 않고 바로 전환 (미러 수만큼)
+                    if (mirrorSelector != null && !(e instanceof ConnectionManager.ResourceChangedException)) {
+                        mirrorSelector.reportFailure(source);
+                        if (mirrorSelector.hasAlternative(source) && failovers++ < mirrorSelector.getMirrorCount()) {
+                            Log.w(TAG, "미러 전환 ▶ " + source + " 실패 (" + e.getMessage() + ")");
+                            attempt--;
+                            if (!resetRequired) {
+                                downloadedBytes = getResumePosition(state);
+                            }
+                            continue;
+                        }
+                    }
 
-            if(!response.isSuccessful()) {
-                if (listener != null) {
-                    listener.onFailure("서버 오류 ▶ " + response.code());
+                    // 서버 파일이 바뀜 -> 다음 시도에서 받은 데이터를 버리고 처음부터 (이어붙이면 다른 파일이 섞임)
+                    // 처음 한 번은 기다리지 않고 바로 다시 시작
+                    if (e instanceof ConnectionManager.ResourceChangedException) {
+                        Log.w(TAG, e.getMessage() + ", 처음부터 다시 받음");
+                        resetRequired = true;
+                        downloadedBytes = 0;
+                        if (!restartedAfterChange) {
+                            restartedAfterChange = true;
+                            attempt = -1;
+                            continue;
+                        }
+                    }
+
+                    // 이번 시도에서 진행이 있었으면 연속 실패 횟수 초기화
+                    if (getResumePosition(state) > progressBefore) {
+                        attempt = 0;
+                        failovers = 0;
+                    }
+                    if (!isRetryable(e) || attempt >= maxRetries) {
+                        Log.e(TAG, "다운로드 중 오류 발생", e);
+                        if (listener != null) {
+                            listener.onFailure(e.getMessage());
+                        }
+                        return false;
+                    }
+
+                    Log.w(TAG, "다운로드 오류, 재시도 대기 (" + (attempt + 1) + "/" + maxRetries + ") ▶ " + e.getMessage());
+                    if (!waitForRetry(attempt, e.getMessage())) {
+                        Log.d(TAG, "다운로드 취소됨");
+                        return false;
+                    }
+                    if (!resetRequired) {
+                        downloadedBytes = getResumePosition(state);
+                    }
                 }
-                return false;
             }
+        } finally {
+            isDownloading = false;
+        }
+    }
 
-            // HTTPS 연결 정보 로깅
-            logConnectionInfo(response);
+    /**
+     * 이번 시도에 사용할 URL 선택 (미러가 있으면 처음 한 번, 또는 모든 미러가 제외된 경우 다시 측정)
+     *
+     * @param url 다운로드 URL
+     * @param downloadedBytes 이미 다운로드된 바이트 수
+     * @param state 다운로드 상태 객체
+     * @return 가장 빠를 것으로 예상되는 미러 URL
+     */
+    private String selectSource(String url, long downloadedBytes, DownloadState state) {
+        MirrorSelector selector = mirrorSelector;
+        if (selector == null) {
+            return url;
+        }
+        if (!selector.isProbed() || selector.getAvailableCount() == 0) {
+            int available = selector.probe(connectionManager);
+            Log.d(TAG, "미러 측정 완료 ▶ 사용 가능 " + available + "/" + selector.getMirrorCount());
+        }
+        long remaining = state.getTotalBytes() > 0 ? state.getTotalBytes() - downloadedBytes : MIRROR_SELECT_BYTES;
+        String source = selector.select(remaining);
+        if (!source.equals(url)) {
+            Log.d(TAG, "미러 선택 ▶ " + source);
+        }
+        return source;
+    }
 
-            ResponseBody responseBody = response.body();
-            if (responseBody == null) {
-                if (listener != null) {
-                    listener.onFailure("응답 데이터가 없음");
+    // 요청에 붙일 If-Range 검증값 - 저장된 검증값은 기본 URL 기준이고 다른 미러는 미러별 검증값 사용
+    private String getIfRange(String url, DownloadState state) {
+        MirrorSelector selector = mirrorSelector;
+        return selector != null ? selector.getValidator(url, state.getResumeValidator()) : state.getResumeValidator();
+    }
+
+    // 저장된 검증값의 기준이 되는 기본 URL 여부 (미러가 없으면 항상 기본 URL)
+    private boolean isPrimary(String url) {
+        MirrorSelector selector = mirrorSelector;
+        return selector == null || selector.isPrimary(url);
+    }
+
+    /**
+     * 다운로드 1회 시도
+     *
+     * @param url 다운로드할 파일의 URL
+     * @param downloadedBytes 이미 다운로드된 바이트 수
+     * @param state 다운로드 상태 객체
+     * @return 다운로드 성공 여부 (무결성 실패 등 재시도해도 소용없는 실패는 여기서 알리고 false)
+     * @throws IOException 네트워크 오류 등 재시도를 판단해야 하는 실패
+     */
+    private boolean attemptDownload(String url, long downloadedBytes, DownloadState state) throws IOException {
+        if (resetRequired) {
+            resetRequired = false;
+            resetProgress(state);
+            downloadedBytes = 0;
+        }
+
+        // 별도 HEAD로 서버 가용성을 확인하지 않음 - 첫 요청의 응답 코드/연결 오류가 곧 가용성 확인
+        // (연결 실패는 IOException, 오류 응답은 HttpStatusException으로 재시도 여부 판단)
+
+        Call call = null;
+        Response response = null;
+
+        // 분할 다운로드 설정이거나 이전 분할 다운로드를 이어받는 경우
+        // (블록 매니페스트를 쓰면 손상 블록만 다시 받기 위해 구간 기반으로 진행)
+        // 별도 HEAD 없이 아직 받지 않은 첫 위치부터 구간 요청을 보내 크기/구간 지원/검증값을 확인하고 응답은 그대로 사용
+        if (segmentCount > 1 || state.isSegmented() || manifestUrl != null) {
+            long firstPosition = getFirstRequestPosition(state, downloadedBytes);
+            call = connectionManager.newRangeCall(url, firstPosition, -1, getIfRange(url, state));
+            response = call.execute();
+            negotiatedProtocol = response.protocol();
+
+            long totalBytes;
+            try {
+                totalBytes = checkFirstRangeResponse(url, response, firstPosition, state);
+            } catch (IOException e) {
+                response.close();
+                throw e;
+            }
+            if (totalBytes > 0) {
+                try {
+                    return startSegmentedDownload(url, totalBytes, getResumePosition(state), state,
+                            call, response, firstPosition);
+                } finally {
+                    response.close();
                 }
-                return false;
             }
 
-            // 전체 파일 크기 확인
-            long totalBytes = getTotalBytes(response, responseBody, downloadedBytes);
+            Log.w(TAG, "서버가 구간 요청을 지원하지 않음, 단일 연결로 진행");
+            // 전체 파일 응답을 그대로 처음부터 기록 (미리 할당된 분할 다운로드 임시 파일도 이어받기 불가)
+            if (downloadedBytes > 0 || state.isSegmented()) {
+                resetProgress(state);
+                downloadedBytes = 0;
+            }
+        }
+
+        if (stallWatchdog != null) {
+            stallWatchdog.setBandwidthShaper(bandwidthShaper);
+        }
 
-            // 상태 업데이트
-            state.setTotalBytes(totalBytes);
-            state.setDownloadedBytes(downloadedBytes);
+        // 서버에 연결 (이어받기면 저장된 검증값으로 If-Range 요청)
+        if (call == null) {
+            call = connectionManager.newCall(url, downloadedBytes, getIfRange(url, state));
+            response = call.execute();
+        }
 
-            // 다운로드 시작 로그
-            Log.d(TAG, "다운로드 시작 ... 총 파일 크기 ▶ " + totalBytes + ", 기존 다운로드 ▶ " + downloadedBytes);
+        if(!response.isSuccessful()) {
+            response.close();
+            throw new ConnectionManager.HttpStatusException("서버 오류", response.code());
+        }
 
-            // 시작 알림
-            if (listener != null) {
-                listener.onStart(totalBytes, downloadedBytes);
+        // HTTPS 연결 정보 로깅
+        logConnectionInfo(response);
+
+        ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            response.close();
+            throw new IOException("응답 데이터가 없음");
+        }
+
+        // 206이 아니면 서버가 전체 파일을 보냄 (If-Range 불일치로 파일이 바뀌었거나 이어받기 미지원)
+        // -> 받아둔 데이터는 버리고 처음부터 기록
+        if (response.code() != 206 && downloadedBytes > 0) {
+            Log.w(TAG, "서버가 전체 파일을 보냄, 처음부터 다시 받음 ▶ 기존 " + downloadedBytes + " bytes");
+            resetProgress(state);
+            downloadedBytes = 0;
+        }
+        lastBytesDownloaded = downloadedBytes;
+
+        // 전체 파일 크기 확인 및 이어받기 검증값 저장
+        long totalBytes = getTotalBytes(response, responseBody, downloadedBytes);
+        if (response.code() != 206 && isPrimary(url)) {
+            state.setEtag(response.header("ETag"));
+            state.setLastModified(response.header("Last-Modified"));
+        }
+
+        // 상태 업데이트
+        state.setTotalBytes(totalBytes);
+        state.setDownloadedBytes(downloadedBytes);
+
+        // 다운로드 시작 로그
+        Log.d(TAG, "다운로드 시작 ... 총 파일 크기 ▶ " + totalBytes + ", 기존 다운로드 ▶ " + downloadedBytes);
+
+        // 시작 알림
+        if (listener != null) {
+            listener.onStart(totalBytes, downloadedBytes);
+        }
+
+        // 기존 분량까지 해시 준비 (저장된 중간 상태가 있으면 그대로 이어서 계산)
+        ResumableSha256 digest = prepareDigest(state, downloadedBytes);
+
+        // 파일 다운로드 및 저장
+        if (!downloadFile(url, call, responseBody, totalBytes, downloadedBytes, digest, state)) {
+            return false;
+        }
+
+        // 무결성 확인 후 파일 이름 변경(임시 -> 최종)
+        return finalizeDownload(state);
+    }
+
+    /**
+     * 재연결 응답 확인 - 요청한 위치부터 같은 파일을 보내는지 확인
+     * 전체 파일(200)이나 검증값이 다른 응답은 서버 파일이 바뀐 것으로 보고 처음부터 다시 받게 함
+     *
+     * @param response 서버 응답
+     * @param position 요청한 시작 위치
+     * @param validator 저장된 검증값 (null이면 검증값 비교 생략)
+     * @throws IOException 이어받을 수 없는 응답인 경우
+     */
+    private static void checkResumeResponse(Response response, long position, String validator) throws IOException {
+        if (response.code() == 200 && position > 0) {
+            throw new ConnectionManager.ResourceChangedException("재연결 요청에 전체 파일 응답 ▶ " + position);
+        }
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new ConnectionManager.HttpStatusException("재연결 구간 요청 실패", response.code());
+        }
+        if (!ConnectionManager.matchesValidator(response, validator)) {
+            throw new ConnectionManager.ResourceChangedException("서버 파일 변경됨 ▶ " + validator
+                    + " -> " + ConnectionManager.getValidator(response));
+        }
+        if (response.code() == 206) {
+            long[] range = MultipartRangeReader.parseContentRange(response.header("Content-Range"));
+            if (range == null || range[0] != position) {
+                throw new IOException("재연결 응답 범위 불일치 ▶ " + response.header("Content-Range"));
             }
+        }
+    }
 
-            // 파일 다운로드 및 저장
-            if (!downloadFile(responseBody, totalBytes, downloadedBytes)) {
-                return false;
+    // 다음 시도에서 이어받을 위치 (분할 다운로드면 완료 구간 합계)
+    private long getResumePosition(DownloadState state) {
+        RangeSet ranges = state.getCompletedRanges();
+        return ranges != null ? ranges.getCoveredBytes() : state.getDownloadedBytes();
+    }
+
+    // 받은 데이터와 진행 기록을 모두 버림 (서버 파일이 바뀐 경우 등)
+    private void resetProgress(DownloadState state) throws IOException {
+        if (tempFile.exists()) {
+            try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+                raf.setLength(0);
             }
+        }
+        state.setCompletedRanges(null);
+        state.setDigest(null);
+        state.setDownloadedBytes(0);
+        state.setEtag(null);
+        state.setLastModified(null);
+        BitSet verifiedBlocks = state.getVerifiedBlocks();
+        synchronized (verifiedBlocks) {
+            verifiedBlocks.clear();
+        }
+    }
 
-            // 파일 이름 변경(임시 -> 최종)
-            finalizeDownload();
+    // 재시도할 만한 오류인지 판단 (네트워크 오류, 서버 일시 오류, 서버 파일 변경)
+    private boolean isRetryable(IOException e) {
+        if (e instanceof BlockVerifier.BlockMismatchException) {
+            return false;
+        }
+        if (e instanceof ConnectionManager.HttpStatusException) {
+            return ((ConnectionManager.HttpStatusException) e).isRetryable();
+        }
+        return true;
+    }
 
-            return true;
-        } catch (IOException e) {
-            Log.e(TAG, "다운로드 중 오류 발생", e);
-            if (listener != null) {
-                listener.onFailure(e.getMessage());
+    /**
+     * 재시도 전 대기 - 오프라인이면 네트워크가 돌아올 때까지, 아니면 지수 백오프 시간만큼
+     * retryNow()가 호출되면(네트워크 복구 등) 바로 재시도
+     *
+     * @param attempt 지금까지 연속 실패 횟수 (0부터)
+     * @param reason 실패 사유
+     * @return 재시도하면 true, 대기 중 취소되면 false
+     */
+    private boolean waitForRetry(int attempt, String reason) {
+        long delay = Math.min(maxRetryDelayMs, retryBaseDelayMs << Math.min(attempt, 20));
+        // 여러 기기가 동시에 다시 몰리지 않도록 절반 ~ 전체 구간에서 무작위로 선택
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+        try {
+            synchronized (retryLock) {
+                if (networkMonitor != null && !networkMonitor.isConnected()) {
+                    if (listener != null) {
+                        listener.onRetrying(attempt + 1, -1, reason);
+                    }
+                    Log.d(TAG, "네트워크 연결 대기 중");
+                    while (isDownloading && !retryRequested && !networkMonitor.isConnected()) {
+                        retryLock.wait(OFFLINE_RECHECK_MS);
+                    }
+                } else {
+                    if (listener != null) {
+                        listener.onRetrying(attempt + 1, delay, reason);
+                    }
+                    long deadline = System.currentTimeMillis() + delay;
+                    long remaining = delay;
+                    while (isDownloading && !retryRequested && remaining > 0) {
+                        retryLock.wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                }
+                retryRequested = false;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
-        } finally {
-            isDownloading = false;
+        }
+        return isDownloading;
+    }
+
+    // 재시도 대기 중이면 바로 재시도 (네트워크가 다시 연결된 경우 등)
+    public void retryNow() {
+        synchronized (retryLock) {
+            retryRequested = true;
+            retryLock.notifyAll();
         }
     }
 
-    // 다운로드 취소 시
+    // 다운로드 취소 시 (startDownload 전에 호출되어도 취소 상태 유지)
     public void cancelDownload() {
+        cancelled = true;
         isDownloading = false;
+        synchronized (retryLock) {
+            retryLock.notifyAll();
+        }
+        if (segmentedDownloader != null) {
+            segmentedDownloader.cancel();
+        }
         if (listener != null) {
             listener.onCancelled();
         }
@@ -150,92 +636,438 @@ public class DownloadTask {
         Log.d(TAG, "암호화 스위트 ▶ " + cipher);
     }
 
-    // 전체 파일 크기 확인 영역
-    private long getTotalBytes(Response response, ResponseBody responseBody, long downloadBytes) {
-        long totalBytes;
-        if (response.code() == 206) {
-            String contentRange = response.header("Content-Range");
-            if (contentRange != null && contentRange.startsWith("bytes ")) {
-                String[] parts = contentRange.substring(6).split("/");
-                if (parts.length == 2) {
-                    totalBytes = Long.parseLong(parts[1]);
-                } else {
-                    totalBytes = downloadBytes + responseBody.contentLength();
-                }
-            } else {
-                totalBytes = downloadBytes + responseBody.contentLength();
+    // 협상된 프로토콜에 따라 구간 요청 방식 선택
+    // HTTP/2: 다중화 사용 시 연결 하나에 구간 스트림을 모두 보내고(연결 수립 1회), 아니면 HTTP/1.1로 구간마다 연결
+    // HTTP/1.1: 구간마다 별도 연결 (연결 풀에서 재사용)
+    private ConnectionManager selectRangeConnections() {
+        if (negotiatedProtocol == Protocol.HTTP_2) {
+            if (multiplexing) {
+                Log.d(TAG, "HTTP/2 연결 하나에 구간 요청 다중화");
+                return connectionManager;
             }
-        } else {
-            totalBytes = downloadBytes + responseBody.contentLength();
-            //  새 다운로드인 경우 이전 임시 파일 삭제
-            if (tempFile.exists()) {
-                tempFile.delete();
-                downloadBytes = 0;
+            Log.d(TAG, "HTTP/2 다중화 사용 안 함, 구간마다 별도 연결");
+            return connectionManager.withSeparateConnections();
+        }
+        Log.d(TAG, "구간마다 별도 연결 ▶ " + negotiatedProtocol);
+        return connectionManager;
+    }
+
+    // 첫 구간 요청 위치 - 아직 받지 않은 첫 바이트 (모두 받았으면 마지막 바이트로 크기만 확인)
+    private long getFirstRequestPosition(DownloadState state, long downloadedBytes) {
+        long totalBytes = state.getTotalBytes();
+        RangeSet ranges = state.getCompletedRanges();
+        if (totalBytes <= 0) {
+            return downloadedBytes;
+        }
+        if (ranges == null) {
+            return Math.min(downloadedBytes, totalBytes - 1);
+        }
+        List<long[]> missingRanges = ranges.getMissingRanges(totalBytes);
+        return missingRanges.isEmpty() ? totalBytes - 1 : missingRanges.get(0)[0];
+    }
+
+    /**
+     * 첫 구간 요청 응답 확인 - 206이면 Content-Range에서 전체 크기를 읽고 검증값 저장
+     * If-Range 불일치(이어받기 위치에서 200)나 요청 위치가 파일 끝을 넘으면(416) 서버 파일이 바뀐 것으로 처리
+     *
+     * @param url 요청한 URL (미러면 미러별 검증값과 비교하고 상태에는 저장하지 않음)
+     * @param response 첫 구간 요청 응답
+     * @param position 요청한 시작 위치
+     * @param state 다운로드 상태 객체
+     * @return 전체 파일 크기, 구간 요청을 지원하지 않아 전체 파일을 보냈으면 -1
+     * @throws IOException 서버 오류 또는 서버 파일 변경 시
+     */
+    private long checkFirstRangeResponse(String url, Response response, long position, DownloadState state)
+            throws IOException {
+        String saved = getIfRange(url, state);
+        if (response.code() == 416 && position > 0) {
+            throw new ConnectionManager.ResourceChangedException("요청 위치가 서버 파일 크기를 넘음 ▶ " + position);
+        }
+        if (!response.isSuccessful()) {
+            throw new ConnectionManager.HttpStatusException("서버 오류", response.code());
+        }
+        if (response.code() != 206) {
+            if (position > 0 && saved != null) {
+                throw new ConnectionManager.ResourceChangedException("서버 파일 변경됨 ▶ 이어받기 요청에 전체 파일 응답");
             }
+            return -1;
+        }
+
+        long[] range = MultipartRangeReader.parseContentRange(response.header("Content-Range"));
+        ResponseBody responseBody = response.body();
+        long totalBytes = responseBody != null ? getTotalBytes(response, responseBody, position) : -1;
+        if (range == null || range[0] != position || totalBytes < range[1]) {
+            throw new IOException("첫 구간 응답 범위 불일치 ▶ " + response.header("Content-Range"));
+        }
+        if (!ConnectionManager.matchesValidator(response, saved)) {
+            throw new ConnectionManager.ResourceChangedException("서버 파일 변경됨 ▶ " + saved
+                    + " -> " + ConnectionManager.getValidator(response));
+        }
+
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if ((etag != null || lastModified != null) && isPrimary(url)) {
+            state.setEtag(etag);
+            state.setLastModified(lastModified);
         }
         return totalBytes;
     }
 
-    // 파일 다운로드 및 저장
-    private boolean downloadFile(ResponseBody responseBody, long totalBytes, long downloadedBytes) throws IOException {
-        BufferedSink sink = null;
+    /**
+     * 분할 다운로드 실행
+     *
+     * @param url 다운로드할 파일의 URL
+     * @param totalBytes 전체 파일 크기
+     * @param downloadedBytes 이미 다운로드된 바이트 수(순차 다운로드 분량)
+     * @param state 다운로드 상태 객체
+     * @param firstCall 크기 확인에 사용한 첫 구간 요청
+     * @param firstResponse 첫 구간 응답 (같은 위치에서 시작하는 구간이 이어서 읽음, 닫기는 호출하는 쪽 담당)
+     * @param firstPosition 첫 구간 응답 시작 위치
+     * @return 다운로드 성공 여부 반환
+     */
+    private boolean startSegmentedDownload(String url, long totalBytes, long downloadedBytes, DownloadState state,
+                                           Call firstCall, Response firstResponse, long firstPosition) throws IOException {
+        RangeSet completed = state.getCompletedRanges();
+        if (completed != null && state.getTotalBytes() != totalBytes) {
+            // 서버 파일 크기가 바뀜 -> 처음부터 다시
+            Log.w(TAG, "서버 파일 크기 변경됨 ▶ " + state.getTotalBytes() + " -> " + totalBytes);
+            String etag = state.getEtag();
+            String lastModified = state.getLastModified();
+            resetProgress(state);
+            state.setEtag(etag);
+            state.setLastModified(lastModified);
+            completed = null;
+            downloadedBytes = 0;
+        }
+        if (completed == null) {
+            completed = new RangeSet();
+            // 기존 순차 다운로드 분량은 앞부분 구간으로 그대로 재사용
+            // (전체 크기와 같으면 상태를 잃은 분할 임시 파일일 수 있으므로 재사용하지 않음)
+            if (!state.isSegmented() && downloadedBytes > 0 && downloadedBytes < totalBytes) {
+                completed.add(0, downloadedBytes);
+            }
+            state.setCompletedRanges(completed);
+        }
+
+        // 매니페스트가 있으면 본문보다 먼저 받아 블록 검증 준비 (이미 받은 블록 중 손상된 것만 다시 받음)
+        BlockVerifier blockVerifier = null;
+        if (manifestUrl != null) {
+            blockVerifier = prepareBlockVerifier(totalBytes, completed, state);
+        }
+
+        long completedBytes = completed.getCoveredBytes();
+        state.setTotalBytes(totalBytes);
+        state.setDownloadedBytes(completedBytes);
+        lastBytesDownloaded = completedBytes;
+
+        Log.d(TAG, "분할 다운로드 시작 ... 총 파일 크기 ▶ " + totalBytes + ", 완료 구간 ▶ " + completed);
+
+        if (listener != null) {
+            listener.onStart(totalBytes, completedBytes);
+        }
+
+        // 구간이 순서 없이 도착하므로 해시는 앞에서부터 연속 완료된 부분을 따라가며 쓰기 스레드에서 계산
+        final ResumableSha256 digest = prepareDigest(state, completed.getContiguousPrefix());
+        final PrefixHasher prefixHasher = digest != null ? new PrefixHasher(digest, completed) : null;
+
+        // 연결 수 조절기는 손상 블록 재다운로드 회차에도 이어서 사용
+        ConnectionController connectionController = null;
+        if (maxConnections > segmentCount) {
+            connectionController = new ConnectionController(1, maxConnections, segmentCount);
+            connectionController.setListener((previousCount, newCount, bytesPerSecond, decision) -> {
+                if (listener != null) {
+                    listener.onConnectionCountChanged(previousCount, newCount, bytesPerSecond, decision);
+                }
+            });
+        }
+
+        ConnectionManager rangeConnections = selectRangeConnections();
+
+        boolean finished;
         try {
-            // 이어 쓰기 모드로 파일 엶
-            sink = Okio.buffer(Okio.appendingSink(tempFile));
+            for (int round = 0; ; round++) {
+                segmentedDownloader = new SegmentedDownloader(rangeConnections, tempFile, segmentCount,
+                        bufferSize, queueDepth);
+                segmentedDownloader.setConnectionController(connectionController);
+                segmentedDownloader.setHedging(hedgeStallTimeoutMs, hedgeSlowRatio, hedgeMaxRatio);
+                segmentedDownloader.setStallWatchdog(stallWatchdog);
+                segmentedDownloader.setIfRange(state.getResumeValidator());
+                segmentedDownloader.setBlockVerifier(blockVerifier);
+                segmentedDownloader.setBandwidthShaper(bandwidthShaper);
+                segmentedDownloader.setMultiRange(multiRangeSupported);
+                segmentedDownloader.setMirrorSelector(mirrorSelector);
+                segmentedDownloader.setWriteListener(prefixHasher);
+                if (round == 0) {
+                    segmentedDownloader.setFirstResponse(firstCall, firstResponse, firstPosition);
+                }
+                try {
+                    finished = segmentedDownloader.download(url, totalBytes, completed, bytes -> {
+                        state.setDownloadedBytes(bytes);
+                        updateProgress(bytes, totalBytes);
+                    });
+                    break;
+                } catch (BlockVerifier.BlockMismatchException e) {
+                    // 손상 블록은 완료 구간에서 빠졌으므로 다음 회차에서 해당 범위만 다시 요청
+                    if (round >= MAX_REPAIR_ROUNDS || !isDownloading) {
+                        throw e;
+                    }
+                    Log.w(TAG, "손상 블록 재다운로드 (" + (round + 1) + "/" + MAX_REPAIR_ROUNDS + ") ▶ " + e.getMessage());
+
+                    // 손상 데이터가 해시에 반영되었을 수 있으면 해시를 처음부터 다시 계산
+                    if (digest != null && digest.getByteCount() > completed.getContiguousPrefix()) {
+                        digest.reset();
+                    }
+                } finally {
+                    multiRangeSupported = segmentedDownloader.isMultiRangeEnabled();
+                    hedgeCount += segmentedDownloader.getHedgeCount();
+                }
+            }
+
+            if (finished && blockVerifier != null) {
+                if (!blockVerifier.isAllVerified()) {
+                    throw new IOException("검증되지 않은 블록이 남아 있음");
+                }
+                blocksVerifiedInline = true;
+            }
+        } finally {
+            if (blockVerifier != null) {
+                blockVerifier.close();
+            }
+            if (prefixHasher != null) {
+                prefixHasher.close();
+            }
+        }
+
+        if (!finished || !isDownloading) {
+            Log.d(TAG, "다운로드 취소됨");
+            return false;
+        }
 
-            // 버퍼 설정
-            Buffer buffer = new Buffer();
-            long bytesReadThisSession = 0;
-            int bufferSize = 8 * 1024; // 8kb
+        return finalizeDownload(state);
+    }
+
+    /**
+     * 블록 매니페스트를 받아 검증기 생성, 이미 완료된 구간은 미리 검증
+     *
+     * @param totalBytes 전체 파일 크기
+     * @param completed 완료 구간 (손상 블록은 제거됨)
+     * @param state 다운로드 상태 객체
+     * @return 블록 검증기
+     */
+    private BlockVerifier prepareBlockVerifier(long totalBytes, RangeSet completed, DownloadState state) throws IOException {
+        BlockManifest manifest = BlockManifest.fetch(connectionManager, manifestUrl, expectedManifestRoot);
+        if (manifest.getTotalBytes() != totalBytes) {
+            throw new IOException("매니페스트 크기 불일치 ▶ " + manifest.getTotalBytes() + " / " + totalBytes);
+        }
+
+        // 다른 매니페스트로 검증한 기록은 사용할 수 없음
+        if (!manifest.getRootHex().equals(state.getManifestRoot())) {
+            BitSet verifiedBlocks = state.getVerifiedBlocks();
+            synchronized (verifiedBlocks) {
+                verifiedBlocks.clear();
+            }
+            state.setManifestRoot(manifest.getRootHex());
+        }
+
+        BlockVerifier blockVerifier = new BlockVerifier(manifest, tempFile, completed, state.getVerifiedBlocks());
+        if (completed.getCoveredBytes() > 0) {
+            blockVerifier.verifyExisting();
+        }
+        return blockVerifier;
+    }
+
+    /**
+     * 해시 계산 준비 - 저장된 중간 상태를 이어서 쓰고, 부족한 부분만 디스크에서 읽어 보충
+     *
+     * @param state 다운로드 상태 객체
+     * @param verifiedBytes 디스크에 기록이 확인된 앞부분 길이
+     * @return 해시 객체, 검증하지 않으면 null
+     */
+    private ResumableSha256 prepareDigest(DownloadState state, long verifiedBytes) throws IOException {
+        if (expectedSha256 == null) {
+            state.setDigest(null);
+            return null;
+        }
+
+        ResumableSha256 digest = state.getDigest();
+        if (digest == null || digest.getByteCount() > verifiedBytes) {
+            // 중간 상태가 없거나 실제 파일보다 앞서 있으면 처음부터 다시 계산
+            digest = new ResumableSha256();
+        }
+        state.setDigest(digest);
+
+        if (digest.getByteCount() < verifiedBytes) {
+            Log.d(TAG, "해시 보충 계산 ▶ " + digest.getByteCount() + " -> " + verifiedBytes);
+            catchUpDigest(digest, verifiedBytes, Long.MAX_VALUE);
+        }
+        return digest;
+    }
+
+    /**
+     * 임시 파일에서 읽어 해시를 지정 위치까지 진행
+     *
+     * @param digest 해시 객체
+     * @param upTo 목표 위치
+     * @param limit 이번 호출에서 처리할 최대 크기
+     */
+    private void catchUpDigest(ResumableSha256 digest, long upTo, long limit) throws IOException {
+        if (digest.getByteCount() >= upTo) return;
+
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "r")) {
+            readIntoDigest(digest, raf.getChannel(), ByteBuffer.allocate(bufferSize), upTo, limit);
+        }
+    }
+
+    // 파일에서 읽어 해시를 지정 위치까지 진행 (catchUpDigest 참고)
+    private static void readIntoDigest(ResumableSha256 digest, FileChannel channel, ByteBuffer buffer,
+                                       long upTo, long limit) throws IOException {
+        long position = digest.getByteCount();
+        long end = Math.min(upTo, position + limit);
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                throw new IOException("해시 계산 중 파일 읽기 실패 ▶ " + position);
+            }
+            digest.update(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    // 전체 파일 크기 확인 영역
+    private long getTotalBytes(Response response, ResponseBody responseBody, long downloadBytes) {
+        if (response.code() != 206) {
+            // 전체 파일 응답 (이어받기 분량 정리는 호출하는 쪽에서 처리)
+            return responseBody.contentLength();
+        }
+
+        // Content-Range: bytes 시작-끝/전체 (전체 크기를 모르면 *)
+        String contentRange = response.header("Content-Range");
+        if (contentRange != null && contentRange.startsWith("bytes ")) {
+            String[] parts = contentRange.substring(6).split("/");
+            if (parts.length == 2 && !"*".equals(parts[1].trim())) {
+                try {
+                    return Long.parseLong(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Content-Range 형식 오류 ▶ " + contentRange);
+                }
+            }
+        }
+        long remaining = responseBody.contentLength();
+        return remaining >= 0 ? downloadBytes + remaining : -1;
+    }
+
+    // 파일 다운로드 및 저장 (네트워크 읽기는 현재 스레드, 디스크 쓰기는 DiskWriter 스레드)
+    // 상태의 다운로드 바이트 수는 실제로 기록된 위치만 반영 (체크포인트가 기록 전 데이터를 저장하지 않도록)
+    // 느린 연결 감시가 응답을 끊으면 현재 위치부터 다시 연결해서 계속 받음
+    private boolean downloadFile(String url, Call call, ResponseBody responseBody, long totalBytes, long downloadedBytes,
+                                 ResumableSha256 digest, DownloadState state) throws IOException {
+        RandomAccessFile raf = null;
+        DiskWriter diskWriter = null;
+        StallWatchdog.Watch watch = null;
+        try {
+            // 기존 다운로드 분량 뒤에 이어서 위치 지정 쓰기
+            raf = new RandomAccessFile(tempFile, "rw");
+            // 해시는 쓰기 스레드에서 기록 직후 순서대로 계산 (다시 읽을 필요 없음)
+            diskWriter = new DiskWriter(raf.getChannel(), bufferSize, queueDepth, chunk -> {
+                if (digest != null) {
+                    digest.update(chunk.array(), 0, chunk.getLength());
+                }
+                state.setDownloadedBytes(chunk.getPosition() + chunk.getLength());
+            });
+            diskWriter.start();
 
             // 스트리밍 방식으로 다운로드 진행
             BufferedSource source = responseBody.source();
-
-            // 다운로드 속도 계산용 변수 설정
-            long currentTime;
-            long timeDifference;
-            long downloadSpeed;
+            long position = downloadedBytes;
+            long reconnectPosition = position;
+            int reconnects = 0;
+            if (stallWatchdog != null) {
+                watch = stallWatchdog.watch(call, tempFile.getName());
+            }
 
             while (isDownloading) {
-                long read = source.read(buffer, bufferSize);
-                if (read == -1) break;
+                BufferPool.Chunk chunk = diskWriter.acquire();
+                int read;
+                try {
+                    read = chunk.fill(source, chunk.getCapacity());
+                } catch (IOException e) {
+                    diskWriter.release(chunk);
+                    if (watch == null || !watch.isTriggered() || !isDownloading) {
+                        throw e;
+                    }
 
-                sink.write(buffer, read);
-                bytesReadThisSession += read;
-                long totalBytesDownloaded = downloadedBytes + bytesReadThisSession;
+                    // 멈춘 연결 -> 현재 위치부터 다시 연결 (진행 없이 계속 멈추면 실패 처리)
+                    reconnects = position > reconnectPosition ? 1 : reconnects + 1;
+                    if (reconnects > MAX_STALL_RECONNECTS) {
+                        throw watch.translate(e);
+                    }
+                    reconnectPosition = position;
+                    Log.w(TAG, "멈춘 연결 재연결 ▶ " + position + " 바이트부터");
 
-                // 속도 계산(1초마다 혹은 10%마다)
-                currentTime = System.currentTimeMillis();
-                timeDifference = currentTime - lastProgressUpdateTime;
+                    responseBody.close();
+                    String validator = getIfRange(url, state);
+                    call = connectionManager.newCall(url, position, validator);
+                    Response response = call.execute();
+                    try {
+                        checkResumeResponse(response, position, validator);
+                    } catch (IOException resumeError) {
+                        response.close();
+                        throw resumeError;
+                    }
+                    responseBody = response.body();
+                    source = responseBody.source();
+                    watch = stallWatchdog.watch(call, tempFile.getName());
+                    continue;
+                }
+                if (read == -1) {
+                    diskWriter.release(chunk);
+                    break;
+                }
 
-                if (timeDifference >= 1000 || (totalBytes > 0 && (totalBytesDownloaded * 100 / totalBytes)
-                        >= (lastBytesDownloaded * 100 / totalBytes) + 10)) {
-                    // 다운로드 속도 계산 (bytes/second)
-                    downloadSpeed = (totalBytesDownloaded - lastBytesDownloaded) * 1000 / Math.max(timeDifference, 1);
+                chunk.set(position, read);
+                diskWriter.submit(chunk);
+                position += read;
+                if (watch != null) {
+                    watch.onBytes(read);
+                }
 
-                    // 진행 상황 업데이트
-                    if (listener != null) {
-                        listener.onProgress(totalBytesDownloaded, totalBytes, downloadSpeed);
-                    }
+                updateProgress(position, totalBytes);
 
-                    // 마지막 업데이트 시간 및 다운로드 크기 갱신
-                    lastProgressUpdateTime = currentTime;
-                    lastBytesDownloaded = totalBytesDownloaded;
+                // 속도 제한 - 다음 읽기 전에 대기
+                if (bandwidthShaper != null) {
+                    bandwidthShaper.acquire(read);
                 }
             }
 
+            // 이미 읽은 데이터는 취소 시에도 모두 기록 (이어받기용)
+            DiskWriter writer = diskWriter;
+            diskWriter = null;
+            writer.finish();
+
             // 다운로드 취소 확인
             if (!isDownloading) {
                 Log.d(TAG, "다운로드 취소됨");
                 return false;
             }
 
-            sink.flush();
             return true;
         } finally {
-            if (sink != null) {
+            if (watch != null) {
+                watch.close();
+            }
+            if (diskWriter != null) {
+                // 읽기 오류로 빠져나온 경우에도 받은 데이터까지는 기록
                 try {
-                    sink.close();
+                    diskWriter.finish();
+                } catch (IOException e) {
+                    Log.e(TAG, "디스크 쓰기 정리 오류", e);
+                }
+            }
+            if (raf != null) {
+                try {
+                    raf.close();
                 } catch (IOException e) {
                     Log.e(TAG, "리소스 정리 오류", e);
                 }
@@ -244,8 +1076,73 @@ public class DownloadTask {
         }
     }
 
-    // 다운로드 완료 후 파일 이름 변경
-    private void finalizeDownload() throws IOException {
+    // 진행 상황 및 속도 계산 후 리스너 알림 (1초마다 혹은 10%마다)
+    private void updateProgress(long totalBytesDownloaded, long totalBytes) {
+        long currentTime = System.currentTimeMillis();
+        long timeDifference = currentTime - lastProgressUpdateTime;
+
+        if (timeDifference >= 1000 || (totalBytes > 0 && (totalBytesDownloaded * 100 / totalBytes)
+                >= (lastBytesDownloaded * 100 / totalBytes) + 10)) {
+            // 다운로드 속도 계산 (bytes/second)
+            long downloadSpeed = (totalBytesDownloaded - lastBytesDownloaded) * 1000 / Math.max(timeDifference, 1);
+
+            // 진행 상황 업데이트
+            if (listener != null) {
+                listener.onProgress(totalBytesDownloaded, totalBytes, downloadSpeed);
+            }
+
+            // 마지막 업데이트 시간 및 다운로드 크기 갱신
+            lastProgressUpdateTime = currentTime;
+            lastBytesDownloaded = totalBytesDownloaded;
+        }
+    }
+
+    // 다운로드 완료 후 무결성 확인 및 파일 이름 변경, 검증 실패 시 false
+    private boolean finalizeDownload(DownloadState state) throws IOException {
+        // 해시 값 비교 (스트리밍으로 계산했으므로 남은 부분만 보충)
+        ResumableSha256 digest = state.getDigest();
+        if (expectedSha256 != null && digest != null) {
+            catchUpDigest(digest, tempFile.length(), Long.MAX_VALUE);
+            String actual = digest.digestHex();
+            if (!expectedSha256.equals(actual)) {
+                Log.e(TAG, "무결성 검증 실패 ▶ 예상 " + expectedSha256 + ", 실제 " + actual);
+
+                // 손상된 파일은 이어받을 수 없으므로 삭제
+                tempFile.delete();
+                state.setCompletedRanges(null);
+                state.setDigest(null);
+                state.setDownloadedBytes(0);
+
+                if (listener != null) {
+                    listener.onFailure("무결성 검증 실패 (SHA-256 불일치)");
+                }
+                return false;
+            }
+            Log.d(TAG, "무결성 검증 완료 ▶ " + actual);
+        }
+
+        // 다운로드 중 블록 검증을 못 한 경우(단일 연결 진행 등) 병렬 검증으로 대신함
+        if (manifestUrl != null && !blocksVerifiedInline) {
+            BlockManifest manifest = BlockManifest.fetch(connectionManager, manifestUrl, expectedManifestRoot);
+            List<Integer> mismatched = new ParallelFileVerifier().verify(tempFile, manifest, (verified, total) -> {
+                if (listener != null) {
+                    listener.onVerifying(verified, total);
+                }
+            });
+            if (!mismatched.isEmpty()) {
+                Log.e(TAG, "블록 검증 실패 ▶ " + mismatched);
+                tempFile.delete();
+                state.setCompletedRanges(null);
+                state.setDigest(null);
+                state.setDownloadedBytes(0);
+
+                if (listener != null) {
+                    listener.onFailure("무결성 검증 실패 (손상 블록 " + mismatched.size() + "개)");
+                }
+                return false;
+            }
+        }
+
         // 임시 파일을 실제 파일로 이동
         if (downloadFile.exists()) {
             downloadFile.delete();
@@ -261,14 +1158,70 @@ public class DownloadTask {
         if (listener != null) {
             listener.onComplete(downloadFile.length());
         }
+        return true;
+    }
+
+    // 분할 다운로드의 해시 계산 (쓰기 스레드에서 기록 직후 호출)
+    // 해시 위치에 이어지는 버퍼는 메모리에 있는 데이터로 바로 계산하고,
+    // 순서보다 먼저 도착해 이미 기록된 뒤쪽 구간만 앞부분이 이어졌을 때 파일에서 읽어 보충
+    // 보충은 기록 1회당 일정 크기까지만 해서 쓰기가 밀리지 않게 하고, 남은 부분은 완료 시 finalizeDownload에서 처리
+    private class PrefixHasher implements DiskWriter.WriteListener {
+        private final ResumableSha256 digest;
+        private final RangeSet completed;
+        private ByteBuffer buffer;
+        private RandomAccessFile file;
+
+        PrefixHasher(ResumableSha256 digest, RangeSet completed) {
+            this.digest = digest;
+            this.completed = completed;
+        }
+
+        @Override
+        public void onChunkWritten(BufferPool.Chunk chunk) throws IOException {
+            long position = digest.getByteCount();
+            long start = chunk.getPosition();
+            if (start <= position && position < start + chunk.getLength()) {
+                int offset = (int) (position - start);
+                digest.update(chunk.array(), offset, chunk.getLength() - offset);
+            }
+
+            long prefix = completed.getContiguousPrefix();
+            if (digest.getByteCount() < prefix) {
+                if (file == null) {
+                    file = new RandomAccessFile(tempFile, "r");
+                    buffer = ByteBuffer.allocate(bufferSize);
+                }
+                readIntoDigest(digest, file.getChannel(), buffer, prefix, DIGEST_CATCH_UP_PER_WRITE);
+            }
+        }
+
+        void close() {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "리소스 정리 오류", e);
+                }
+                file = null;
+            }
+        }
     }
 
     // 다운로드 태스크 리스너 인터페이스
     public interface DownloadTaskListener {
         void onStart(long totalBytes, long downloadedBytes);
         void onProgress(long currentBytes, long totalBytes, long speed);
+        void onVerifying(long verifiedBytes, long totalBytes);
         void onComplete(long filesize);
         void onFailure(String errorMessage);
         void onCancelled();
+
+        // 오류 후 재시도 대기 시작 (delayMs가 -1이면 네트워크 연결 대기)
+        default void onRetrying(int attempt, long delayMs, String reason) {
+        }
+
+        // 분할 다운로드 연결 수 변경 (decision은 ConnectionController.DECISION_ 값)
+        default void onConnectionCountChanged(int previousCount, int newCount, long bytesPerSecond, int decision) {
+        }
     }
 }
@@ -0,0 +1,153 @@
+package com.example.ota_service.download;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+
+// multipart/byteranges 응답을 파트 단위로 읽는 스트리밍 파서
+// 응답 전체를 메모리에 올리지 않고 파트 헤더(Content-Range)만 해석한 뒤 본문은 버퍼로 바로 넘김
+// 사용 순서: nextPart()로 파트 범위 확인 -> fill()이 -1을 돌려줄 때까지 읽기 -> 다시 nextPart()
+public class MultipartRangeReader {
+    private static final long MAX_LINE_LENGTH = 8 * 1024;  // 헤더/구분자 한 줄 최대 길이
+    private static final int MAX_SKIPPED_LINES = 16;       // 구분자 앞 서문(preamble) 최대 줄 수
+
+    private final BufferedSource source;
+    private final String delimiter;
+    private final String closeDelimiter;
+
+    private long partPosition;      // 현재 파트에서 다음에 읽을 파일 위치
+    private long partRemaining;     // 현재 파트의 남은 본문 크기
+    private boolean finished = false;
+
+    /**
+     * MultipartRangeReader 생성자
+     *
+     * @param source 응답 본문 스트림
+     * @param boundary Content-Type의 boundary 값
+     */
+    public MultipartRangeReader(BufferedSource source, String boundary) {
+        this.source = source;
+        this.delimiter = "--" + boundary;
+        this.closeDelimiter = delimiter + "--";
+    }
+
+    /**
+     * Content-Type에서 boundary 추출
+     *
+     * @param contentType 응답의 Content-Type 헤더
+     * @return boundary 값, multipart/byteranges가 아니면 null
+     */
+    public static String getBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/byteranges")) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.toLowerCase().startsWith("boundary=")) {
+                String boundary = trimmed.substring("boundary=".length()).trim();
+                if (boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Content-Range 헤더 값 해석 (예: "bytes 500-999/8000")
+     *
+     * @param value Content-Range 헤더 값
+     * @return {시작, 끝(미포함)}, 형식이 맞지 않으면 null
+     */
+    public static long[] parseContentRange(String value) {
+        if (value == null || !value.startsWith("bytes ")) {
+            return null;
+        }
+        int dash = value.indexOf('-');
+        int slash = value.indexOf('/');
+        if (dash < 0 || slash < dash) {
+            return null;
+        }
+        try {
+            long start = Long.parseLong(value.substring("bytes ".length(), dash).trim());
+            long end = Long.parseLong(value.substring(dash + 1, slash).trim()) + 1;
+            return start < end ? new long[]{start, end} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 다음 파트로 이동 (읽지 않은 이전 파트 본문은 건너뜀)
+     *
+     * @return 파트의 파일 범위 {시작, 끝(미포함)}, 마지막 파트 뒤면 null
+     * @throws IOException 읽기 오류 또는 형식 오류 시
+     */
+    public long[] nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (partRemaining > 0) {
+            source.skip(partRemaining);
+            partRemaining = 0;
+        }
+
+        // 구분자 줄 찾기 (본문 뒤 줄바꿈과 서문은 건너뜀)
+        for (int skipped = 0; ; skipped++) {
+            String line = source.readUtf8LineStrict(MAX_LINE_LENGTH).trim();
+            if (line.equals(delimiter)) {
+                break;
+            }
+            if (line.equals(closeDelimiter)) {
+                finished = true;
+                return null;
+            }
+            if (skipped >= MAX_SKIPPED_LINES) {
+                throw new IOException("multipart 구분자를 찾을 수 없음");
+            }
+        }
+
+        // 파트 헤더 (빈 줄까지)
+        long[] range = null;
+        String line;
+        while (!(line = source.readUtf8LineStrict(MAX_LINE_LENGTH)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Content-Range")) {
+                range = parseContentRange(line.substring(colon + 1).trim());
+            }
+        }
+        if (range == null) {
+            throw new IOException("파트에 Content-Range가 없음");
+        }
+
+        partPosition = range[0];
+        partRemaining = range[1] - range[0];
+        return range;
+    }
+
+    // 현재 파트에서 다음에 읽을 파일 위치
+    public long getPartPosition() {
+        return partPosition;
+    }
+
+    /**
+     * 현재 파트 본문을 버퍼에 채움 (파트 경계를 넘지 않음)
+     *
+     * @param chunk 채울 버퍼 (위치/길이는 호출한 쪽에서 설정)
+     * @return 읽은 바이트 수, 파트를 다 읽었으면 -1
+     * @throws IOException 읽기 오류 또는 파트 도중 스트림이 끝난 경우
+     */
+    public int fill(BufferPool.Chunk chunk) throws IOException {
+        if (partRemaining == 0) {
+            return -1;
+        }
+        int read = chunk.fill(source, (int) Math.min(chunk.getCapacity(), partRemaining));
+        if (read == -1) {
+            throw new IOException("파트 데이터가 예상보다 일찍 끝남");
+        }
+        partPosition += read;
+        partRemaining -= read;
+        return read;
+    }
+}
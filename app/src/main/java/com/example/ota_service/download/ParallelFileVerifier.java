@@ -0,0 +1,210 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 이미 디스크에 있는 파일을 여러 코어로 나누어 검증하는 클래스
+// 파일을 영역 단위로 메모리 매핑하고 fork/join 풀에서 블록 해시를 병렬 계산한 뒤 머클 트리로 결합
+public class ParallelFileVerifier {
+    private static final String TAG = ParallelFileVerifier.class.getSimpleName();
+
+    private static final long REGION_SIZE = 32L * 1024 * 1024;  // 한 번에 매핑할 영역 크기 32MB
+    private static final long PROGRESS_INTERVAL_MS = 200;       // 진행률 보고 주기
+
+    private final int parallelism;
+
+    // 기본 생성자 (CPU 코어 수만큼 병렬 처리)
+    public ParallelFileVerifier() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * ParallelFileVerifier 생성자
+     *
+     * @param parallelism 병렬 작업 수
+     */
+    public ParallelFileVerifier(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 매니페스트 기준으로 파일 검증
+     *
+     * @param file 검증할 파일
+     * @param manifest 블록 매니페스트
+     * @param callback 진행 상황 콜백 (호출 스레드에서 호출, null 가능)
+     * @return 해시가 일치하지 않는 블록 번호 목록 (비어 있으면 검증 성공)
+     * @throws IOException 파일 읽기 오류 시
+     */
+    public List<Integer> verify(File file, BlockManifest manifest, ProgressCallback callback) throws IOException {
+        List<Integer> mismatched = new ArrayList<>();
+        if (file.length() != manifest.getTotalBytes()) {
+            throw new IOException("파일 크기 불일치 ▶ " + file.length() + " / " + manifest.getTotalBytes());
+        }
+
+        byte[][] leaves = hashBlocks(file, manifest.getBlockSize(), callback);
+        if (MessageDigest.isEqual(BlockManifest.computeRoot(leaves), manifest.getRootHash())) {
+            return mismatched;
+        }
+
+        // 루트가 다르면 어떤 블록이 손상되었는지 확인
+        for (int i = 0; i < leaves.length; i++) {
+            if (!MessageDigest.isEqual(leaves[i], manifest.getBlockHash(i))) {
+                mismatched.add(i);
+            }
+        }
+        Log.w(TAG, "검증 실패 블록 ▶ " + mismatched);
+        return mismatched;
+    }
+
+    /**
+     * 파일의 블록별 SHA-256을 병렬 계산
+     *
+     * @param file 대상 파일
+     * @param blockSize 블록 크기
+     * @param callback 진행 상황 콜백 (null 가능)
+     * @return 블록 해시 목록
+     * @throws IOException 파일 읽기 오류 시
+     */
+    public byte[][] hashBlocks(File file, int blockSize, ProgressCallback callback) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long totalBytes = channel.size();
+            int blockCount = (int) ((totalBytes + blockSize - 1) / blockSize);
+            byte[][] leaves = new byte[blockCount][];
+            AtomicLong hashedBytes = new AtomicLong();
+
+            // 매핑 영역은 블록 크기의 배수로 맞춤
+            int blocksPerRegion = (int) Math.max(1, REGION_SIZE / blockSize);
+            ForkJoinTask<Void> task = pool.submit(new RegionTask(channel, blockSize, totalBytes, blocksPerRegion,
+                    leaves, hashedBytes, 0, blockCount));
+
+            while (true) {
+                try {
+                    task.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    if (callback != null) {
+                        callback.onProgress(hashedBytes.get(), totalBytes);
+                    }
+                }
+            }
+            if (callback != null) {
+                callback.onProgress(totalBytes, totalBytes);
+            }
+
+            Log.d(TAG, "병렬 검증 완료 ▶ " + totalBytes + " bytes, " + parallelism + "개 스레드, "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+            return leaves;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RegionReadException) {
+                throw ((RegionReadException) cause).getIOException();
+            }
+            throw new IOException("병렬 검증 실패", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("병렬 검증 중단됨", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // 블록 범위를 반으로 나누어 병렬 처리, 영역 하나 이하가 되면 매핑 후 직접 해시
+    private static class RegionTask extends RecursiveAction {
+        // 작업 스레드마다 MessageDigest 하나씩 재사용
+        private static final ThreadLocal<MessageDigest> SHA = new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                return BlockManifest.newSha256();
+            }
+        };
+
+        private final FileChannel channel;
+        private final int blockSize;
+        private final long totalBytes;
+        private final int blocksPerRegion;
+        private final byte[][] leaves;
+        private final AtomicLong hashedBytes;
+        private final int fromBlock;
+        private final int toBlock;
+
+        RegionTask(FileChannel channel, int blockSize, long totalBytes, int blocksPerRegion,
+                   byte[][] leaves, AtomicLong hashedBytes, int fromBlock, int toBlock) {
+            this.channel = channel;
+            this.blockSize = blockSize;
+            this.totalBytes = totalBytes;
+            this.blocksPerRegion = blocksPerRegion;
+            this.leaves = leaves;
+            this.hashedBytes = hashedBytes;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock > blocksPerRegion) {
+                int middle = (fromBlock + toBlock) >>> 1;
+                invokeAll(
+                        new RegionTask(channel, blockSize, totalBytes, blocksPerRegion, leaves, hashedBytes, fromBlock, middle),
+                        new RegionTask(channel, blockSize, totalBytes, blocksPerRegion, leaves, hashedBytes, middle, toBlock));
+                return;
+            }
+
+            try {
+                long regionStart = (long) fromBlock * blockSize;
+                long regionEnd = Math.min(totalBytes, (long) toBlock * blockSize);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionEnd - regionStart);
+                MessageDigest sha = SHA.get();
+
+                for (int i = fromBlock; i < toBlock; i++) {
+                    int offset = (int) ((long) i * blockSize - regionStart);
+                    int length = (int) (Math.min(totalBytes, (long) (i + 1) * blockSize) - (long) i * blockSize);
+                    region.limit(offset + length);
+                    region.position(offset);
+
+                    sha.reset();
+                    sha.update(region);
+                    leaves[i] = sha.digest();
+                    hashedBytes.addAndGet(length);
+                }
+            } catch (IOException e) {
+                throw new RegionReadException(e);
+            }
+        }
+    }
+
+    // fork/join 작업 안에서 IOException을 전달하기 위한 래퍼
+    private static class RegionReadException extends RuntimeException {
+        RegionReadException(IOException cause) {
+            super(cause);
+        }
+
+        IOException getIOException() {
+            return (IOException) getCause();
+        }
+    }
+
+    // 검증 진행 콜백
+    public interface ProgressCallback {
+        void onProgress(long verifiedBytes, long totalBytes);
+    }
+}
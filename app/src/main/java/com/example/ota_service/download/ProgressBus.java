@@ -0,0 +1,290 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 다운로드 스레드와 진행 상황 소비자(브로드캐스트, 알림, 플로팅 뷰 등) 사이의 이벤트 버스
+// 발행은 구독자별 대기열에 넣기만 하고 바로 돌아오므로 다운로드 스레드는 UI/IPC 작업을 기다리지 않음
+// 구독자마다 최소 전달 간격을 따로 두고, 그 사이에 들어온 같은 상태의 진행 정보는 마지막 것 하나로 합침
+// 상태가 바뀌는 이벤트(연결 -> 다운로드, 완료/실패/취소 등)는 합치지 않고 간격과 상관없이 바로 전달
+// 발행된 진행 정보는 구독자별 스냅샷에 복사하므로 발행하는 쪽은 같은 객체를 계속 갱신해서 써도 됨
+public class ProgressBus {
+    private static final String TAG = ProgressBus.class.getSimpleName();
+    private static final int MAX_POOLED_EVENTS = 4;  // 구독자별로 재사용할 대기열 항목 수
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService deliveryExecutor;
+    private final boolean ownsExecutor;     // 직접 만든 전달 스레드만 shutdown()에서 종료
+
+    // 마지막으로 발행된 진행 정보 (늦게 구독한 쪽에 전달)
+    private final DownloadProgressInfo lastPublished = new DownloadProgressInfo();
+    private boolean hasPublished = false;
+
+    public ProgressBus() {
+        this.deliveryExecutor = newDeliveryExecutor("ota-progress");
+        this.ownsExecutor = true;
+    }
+
+    /**
+     * 전달 스레드를 다른 버스와 함께 쓰는 생성자 (항목별 버스처럼 여러 개를 만드는 경우)
+     * shutdown()은 구독만 정리하고 Executor 종료는 만든 쪽에서 처리
+     *
+     * @param deliveryExecutor 간격 대기와 기본 전달에 사용할 단일 스레드 Executor
+     */
+    public ProgressBus(ScheduledExecutorService deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+        this.ownsExecutor = false;
+    }
+
+    // 버스 전달용 단일 스레드 Executor 생성
+    public static ScheduledExecutorService newDeliveryExecutor(String threadName) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * 구독 등록 - 버스 전달 스레드에서 호출됨
+     *
+     * @param subscriber 진행 상황을 받을 구독자
+     * @param minIntervalMs 진행 정보 최소 전달 간격 (상태 변경은 간격과 상관없이 전달)
+     */
+    public void subscribe(Subscriber subscriber, long minIntervalMs) {
+        subscribe(subscriber, minIntervalMs, deliveryExecutor);
+    }
+
+    /**
+     * 구독 등록
+     * 마지막으로 발행된 상태가 있으면 바로 한 번 전달
+     *
+     * @param subscriber 진행 상황을 받을 구독자
+     * @param minIntervalMs 진행 정보 최소 전달 간격 (상태 변경은 간격과 상관없이 전달)
+     * @param executor 구독자를 호출할 Executor (예: 메인 스레드 Handler::post), 순서대로 실행되어야 함
+     */
+    public void subscribe(Subscriber subscriber, long minIntervalMs, Executor executor) {
+        Subscription subscription = new Subscription(subscriber, minIntervalMs, executor);
+        subscriptions.add(subscription);
+        synchronized (lastPublished) {
+            if (hasPublished) {
+                subscription.offer(lastPublished);
+            }
+        }
+    }
+
+    // 구독 해제 (이미 대기 중인 이벤트도 전달하지 않음)
+    public void unsubscribe(Subscriber subscriber) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.subscriber == subscriber) {
+                subscription.close();
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    /**
+     * 진행 상황 발행 - 구독자별 대기열에 복사하고 바로 돌아옴 (구독자 처리를 기다리지 않음)
+     * 같은 진행 정보 객체를 여러 스레드가 동시에 갱신하면 안 됨
+     *
+     * @param progress 진행 정보 (호출이 끝나면 다시 갱신해도 됨)
+     */
+    public void publish(DownloadProgressInfo progress) {
+        // 새 구독자의 첫 전달과 순서가 뒤바뀌지 않도록 같은 잠금 안에서 나눠 줌 (대기열 복사만 하므로 짧음)
+        synchronized (lastPublished) {
+            lastPublished.set(progress);
+            hasPublished = true;
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(progress);
+            }
+        }
+    }
+
+    // 마지막으로 발행된 진행 정보의 복사본 (없으면 null)
+    public DownloadProgressInfo getLastPublished() {
+        synchronized (lastPublished) {
+            return hasPublished ? new DownloadProgressInfo(lastPublished) : null;
+        }
+    }
+
+    // 전달 스레드 종료 (남은 이벤트는 버림, 공유 Executor는 구독만 정리)
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        if (ownsExecutor) {
+            deliveryExecutor.shutdownNow();
+        }
+    }
+
+    // 완료/실패/취소 같은 최종 상태 여부
+    static boolean isTerminal(int status) {
+        return status == DownloadProgressInfo.STATUS_COMPLETED
+                || status == DownloadProgressInfo.STATUS_FAILED
+                || status == DownloadProgressInfo.STATUS_CANCELLED;
+    }
+
+    // 진행 상황 구독자
+    // 전달되는 객체는 버스가 재사용하므로 호출이 끝난 뒤에도 보관하려면 복사해야 함
+    public interface Subscriber {
+        void onProgress(DownloadProgressInfo progress);
+    }
+
+    // 구독자 하나의 대기열과 전달 상태
+    // 대기열에는 상태 변경 이벤트가 순서대로 쌓이고, 마지막 이벤트와 상태가 같은 진행 정보는 그 자리를 덮어씀
+    // 전달이 끝난 항목은 재사용하므로 진행 중에는 새 객체를 만들지 않음
+    private class Subscription implements Runnable {
+        final Subscriber subscriber;
+        final long minIntervalMs;
+        final Executor executor;
+
+        private final ArrayDeque<Event> pending = new ArrayDeque<>();
+        private final ArrayDeque<Event> pool = new ArrayDeque<>();
+        private int lastQueuedStatus = -1;
+        private long lastDeliveredAt = 0;
+        private boolean scheduled = false;
+        private ScheduledFuture<?> delayed;
+        private boolean closed = false;
+
+        Subscription(Subscriber subscriber, long minIntervalMs, Executor executor) {
+            this.subscriber = subscriber;
+            this.minIntervalMs = minIntervalMs;
+            this.executor = executor;
+        }
+
+        // 이벤트 추가 후 필요하면 전달 예약 (짧은 잠금만 사용)
+        synchronized void offer(DownloadProgressInfo progress) {
+            if (closed) {
+                return;
+            }
+            int status = progress.getStatus();
+            boolean transition = status != lastQueuedStatus || isTerminal(status);
+            lastQueuedStatus = status;
+
+            Event tail = pending.peekLast();
+            if (!transition && tail != null && !tail.transition) {
+                // 아직 전달하지 못한 같은 상태의 진행 정보 - 마지막 값으로 덮어씀
+                tail.progress.set(progress);
+                return;
+            }
+            Event event = pool.pollFirst();
+            if (event == null) {
+                event = new Event();
+            }
+            event.progress.set(progress);
+            event.transition = transition;
+            pending.addLast(event);
+
+            if (!scheduled) {
+                scheduled = true;
+                long delay = transition ? 0 : lastDeliveredAt + minIntervalMs - System.currentTimeMillis();
+                schedule(delay);
+            } else if (transition && delayed != null && delayed.cancel(false)) {
+                // 간격 때문에 미뤄 둔 전달이 있으면 상태 변경은 기다리지 않고 바로 전달
+                delayed = null;
+                schedule(0);
+            }
+        }
+
+        // 전달 예약 (delay가 0 이하면 구독자 Executor로 바로 넘김)
+        private void schedule(long delayMs) {
+            try {
+                if (delayMs > 0) {
+                    delayed = deliveryExecutor.schedule(this::execute, delayMs, TimeUnit.MILLISECONDS);
+                } else {
+                    execute();
+                }
+            } catch (RejectedExecutionException e) {
+                // 버스가 종료된 경우
+                scheduled = false;
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "진행 상황 전달 실패 ▶ " + e.getMessage());
+                synchronized (this) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        // 구독자 Executor에서 대기열 전달
+        @Override
+        public void run() {
+            Event delivered = null;
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    if (delivered != null) {
+                        recycle(delivered);
+                        delivered = null;
+                    }
+                    delayed = null;
+                    event = pending.peekFirst();
+                    if (closed || event == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    long now = System.currentTimeMillis();
+                    long wait = lastDeliveredAt + minIntervalMs - now;
+                    if (!event.transition && wait > 0) {
+                        if (pending.size() > 1) {
+                            // 뒤에 상태 변경이 기다리고 있으면 이전 상태의 진행 정보는 건너뜀
+                            recycle(pending.pollFirst());
+                            continue;
+                        }
+                        // 최소 간격 전 - 남은 시간 뒤에 다시 전달 (그 사이 진행 정보는 이 이벤트에 합쳐짐)
+                        schedule(wait);
+                        return;
+                    }
+                    pending.pollFirst();
+                    lastDeliveredAt = now;
+                }
+
+                try {
+                    subscriber.onProgress(event.progress);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "진행 상황 구독자 오류", e);
+                }
+                delivered = event;
+            }
+        }
+
+        // 다 쓴 대기열 항목 반납
+        private void recycle(Event event) {
+            if (pool.size() < MAX_POOLED_EVENTS) {
+                pool.addLast(event);
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+            if (delayed != null) {
+                delayed.cancel(false);
+                delayed = null;
+            }
+        }
+    }
+
+    // 대기열 항목 (진행 정보는 합칠 때 덮어씀)
+    private static class Event {
+        final DownloadProgressInfo progress = new DownloadProgressInfo();
+        boolean transition;
+    }
+}
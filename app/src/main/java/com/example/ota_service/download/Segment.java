@@ -0,0 +1,183 @@
+package com.example.ota_service.download;
+
+import okhttp3.Call;
+
+// 분할 다운로드의 단일 바이트 구간 정보
+// 다른 연결이 뒷부분을 가져갈 수 있으므로 끝 위치는 줄어들 수 있음 (position, end 변경은 객체 잠금으로 보호)
+public class Segment {
+    private final long start;           // 구간 시작 위치(포함)
+    private volatile long end;          // 구간 끝 위치(미포함), 분할 시 줄어듦
+    private volatile long position;     // 현재까지 받은 위치
+    private volatile Call call;         // 진행 중인 요청(취소용)
+
+    // 헤지 요청 (같은 남은 범위를 두 연결이 경쟁해서 받고 먼저 끝난 쪽이 이김)
+    private volatile Segment rival;         // 경쟁 상대 구간
+    private volatile boolean abandoned;     // 경쟁에서 져서 중단됨
+
+    // 속도 감시용
+    private volatile long lastActivityTime;     // 마지막으로 데이터를 받은 시각
+    private volatile long activatedTime;        // 연결에 할당된 시각
+    private volatile long activatedPosition;    // 할당 시점의 위치
+
+    /**
+     * Segment 생성자
+     *
+     * @param start 구간 시작 위치(포함)
+     * @param end 구간 끝 위치(미포함)
+     */
+    public Segment(long start, long end) {
+        this.start = start;
+        this.end = end;
+        this.position = start;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public synchronized void setPosition(long position) {
+        this.position = position;
+    }
+
+    /**
+     * 받은 데이터를 구간에 반영 - 그 사이 뒷부분을 다른 연결이 가져갔으면 줄어든 끝까지만 인정
+     *
+     * @param length 읽은 바이트 수
+     * @return 실제로 이 구간에 기록할 바이트 수 (0이면 구간 종료)
+     */
+    public synchronized int advance(int length) {
+        int accepted = (int) Math.max(0, Math.min(length, end - position));
+        position += accepted;
+        if (accepted > 0) {
+            lastActivityTime = System.currentTimeMillis();
+        }
+        return accepted;
+    }
+
+    // 연결에 할당됨 (속도 측정 기준점 설정)
+    public synchronized void activate() {
+        long now = System.currentTimeMillis();
+        activatedTime = now;
+        activatedPosition = position;
+        lastActivityTime = now;
+    }
+
+    public long getActivatedTime() {
+        return activatedTime;
+    }
+
+    public long getLastActivityTime() {
+        return lastActivityTime;
+    }
+
+    // 할당 이후 평균 속도(bytes/s)
+    public long getAverageSpeed(long now) {
+        long elapsed = now - activatedTime;
+        return elapsed > 0 ? (position - activatedPosition) * 1000 / elapsed : 0;
+    }
+
+    /**
+     * 남은 범위를 같이 받을 헤지 구간 생성 (이미 경쟁 중이면 null)
+     *
+     * @return 현재 위치부터 끝까지를 받는 경쟁 구간
+     */
+    public synchronized Segment hedge() {
+        if (rival != null || position >= end) {
+            return null;
+        }
+        Segment copy = new Segment(position, end);
+        copy.rival = this;
+        rival = copy;
+        return copy;
+    }
+
+    // 헤지 경쟁 중인지 여부 (경쟁 중인 구간은 나누거나 넘기지 않음)
+    public boolean isHedged() {
+        return rival != null;
+    }
+
+    public Segment getRival() {
+        return rival;
+    }
+
+    // 경쟁에서 이김 -> 상대 요청 취소
+    public void winRace() {
+        Segment other = rival;
+        if (other != null && !abandoned) {
+            other.abandon();
+        }
+    }
+
+    // 경쟁에서 빠짐 (진행 중인 요청 취소)
+    public void abandon() {
+        abandoned = true;
+        cancel();
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    /**
+     * 남은 부분의 뒤쪽 절반을 떼어 새 구간으로 반환 (작업 가로채기)
+     *
+     * @param minSize 나눈 뒤 각 구간의 최소 크기
+     * @return 떼어낸 뒤쪽 구간, 남은 크기가 부족하거나 헤지 경쟁 중이면 null
+     */
+    public synchronized Segment split(long minSize) {
+        long remaining = end - position;
+        if (rival != null || remaining < minSize * 2) {
+            return null;
+        }
+        long middle = position + remaining / 2;
+        Segment tail = new Segment(middle, end);
+        end = middle;
+        return tail;
+    }
+
+    // 남은 부분 전체를 새 구간으로 떼어내고 이 구간은 종료 (연결을 넘길 때 사용)
+    public synchronized Segment detachRemaining() {
+        Segment rest = new Segment(position, end);
+        end = position;
+        return rest;
+    }
+
+    // 남은 바이트 수 반환
+    public long getRemaining() {
+        return end - position;
+    }
+
+    // 구간 완료 여부
+    public boolean isDone() {
+        return position >= end;
+    }
+
+    public Call getCall() {
+        return call;
+    }
+
+    public void setCall(Call call) {
+        this.call = call;
+    }
+
+    // 진행 중인 요청 취소
+    public void cancel() {
+        Call current = call;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Segment[" + start + "-" + end + ", pos=" + position + "]";
+    }
+}
@@ -0,0 +1,931 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import com.example.ota_service.model.RangeSet;
+import com.example.ota_service.network.BandwidthShaper;
+import com.example.ota_service.network.ConnectionManager;
+import com.example.ota_service.network.MirrorSelector;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+// 여러 개의 Range 요청으로 파일을 나누어 받는 분할 다운로드 클래스
+// 각 구간은 미리 할당된 임시 파일의 자기 위치에 FileChannel 위치 지정 쓰기로 기록함 (DiskWriter 공유)
+// 대기 구간이 없는 연결은 가장 많이 남은 구간의 뒤쪽 절반을 가져가므로 마지막 바이트까지 모든 연결이 일함
+// 막바지에 멈추거나 유독 느린 구간은 남은 범위를 다른 연결로 한 번 더 요청(헤지)하고 먼저 끝난 쪽을 사용
+public class SegmentedDownloader {
+    private static final String TAG = SegmentedDownloader.class.getSimpleName();
+
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;    // 최소 구간 크기 1MB
+    private static final long PROGRESS_INTERVAL_MS = 500;        // 진행률 보고 주기
+    private static final long MIN_STEAL_SIZE = 512 * 1024;       // 가로채기 후 각 구간의 최소 크기
+    private static final long MIN_OBSERVE_MS = 2000;             // 느린 구간 판단 전 최소 관찰 시간
+    private static final int CONNECTIONS_PER_HEDGE = 4;          // 동시 헤지 요청 수 = 연결 수 / 4 (최소 1)
+    private static final int MAX_STALL_RECONNECTS = 5;           // 진행 없이 연속으로 멈춤 재연결할 수 있는 횟수
+    private static final long MAX_SPARSE_RANGE = MIN_SEGMENT_SIZE; // 이보다 작은 흩어진 구간은 묶어서 요청
+    private static final int MIN_SPARSE_RANGES = 2;              // 묶음 요청을 시작할 최소 구간 수
+    private static final int MAX_RANGES_PER_REQUEST = 32;        // 요청 하나에 담을 최대 구간 수
+    private static final long MIRROR_SAMPLE_MS = 2000;           // 미러 속도 보고 및 전환 판단 주기
+
+    private final ConnectionManager connectionManager;
+    private final File tempFile;
+    private final int connectionCount;
+    private final int bufferSize;
+    private final int queueDepth;
+
+    private final Queue<Segment> pendingSegments = new ConcurrentLinkedQueue<>();
+    private final List<Segment> activeSegments = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running = false;
+    private volatile IOException failure;
+
+    // 작업 스레드 수 관리 (목표 수보다 많으면 구간 도중이라도 남은 부분을 돌려놓고 종료)
+    private final Object workerLock = new Object();
+    private int activeWorkers = 0;
+    private int targetWorkers;
+    private final AtomicLong fetchedBytes = new AtomicLong();
+
+    // 연결 수 조절기 (null이면 connectionCount로 고정)
+    private ConnectionController connectionController;
+
+    // 헤지 설정 (stallTimeoutMs가 0이면 사용 안 함)
+    private long hedgeStallTimeoutMs = 0;   // 이 시간 동안 데이터가 없으면 헤지
+    private double hedgeSlowRatio = 0;      // 다른 구간 속도 중앙값의 이 비율보다 느리면 헤지
+    private double hedgeMaxRatio = 0;       // 헤지로 다시 요청할 수 있는 최대 분량(전체 크기 대비)
+    private int maxHedges;
+    private int activeHedges = 0;
+    private long hedgedBytes = 0;
+    private int hedgeCount = 0;
+
+    // 느린 연결 감시 (null이면 OkHttp 읽기 타임아웃에만 의존)
+    private StallWatchdog stallWatchdog;
+
+    // 이어받기 검증값 (ETag 또는 Last-Modified, null이면 조건 없이 요청)
+    private String ifRange;
+
+    // 블록 검증기 (매니페스트가 없으면 null)
+    private BlockVerifier blockVerifier;
+
+    // 속도 제한 (null이면 제한 없음, 모든 연결이 공유)
+    private BandwidthShaper bandwidthShaper;
+
+    // 흩어진 구간 묶음 요청(multipart/byteranges) 사용 여부 (서버가 지원하지 않으면 꺼짐)
+    private volatile boolean multiRange = true;
+    private volatile Call sparseCall;
+
+    // 미러 선택 (null이면 다운로드 URL만 사용)
+    private MirrorSelector mirrorSelector;
+
+    // 기록 완료 후 추가 처리 (null이면 없음)
+    private DiskWriter.WriteListener writeListener;
+
+    // 크기 확인을 겸한 첫 구간 요청의 응답 (해당 위치에서 시작하는 구간이 그대로 이어서 읽음, 닫기는 호출하는 쪽 담당)
+    private FirstResponse firstResponse;
+
+    /**
+     * SegmentedDownloader 생성자
+     *
+     * @param connectionManager 네트워크 연결 관리
+     * @param tempFile 임시 저장 파일(전체 크기로 미리 할당됨)
+     * @param connectionCount 동시 연결 수
+     * @param bufferSize 읽기 버퍼 하나의 크기(bytes)
+     * @param queueDepth 디스크 쓰기 대기 버퍼 수
+     */
+    public SegmentedDownloader(ConnectionManager connectionManager, File tempFile, int connectionCount,
+                               int bufferSize, int queueDepth) {
+        this.connectionManager = connectionManager;
+        this.tempFile = tempFile;
+        this.connectionCount = Math.max(1, connectionCount);
+        this.bufferSize = bufferSize;
+        this.queueDepth = queueDepth;
+    }
+
+    // 연결 수 조절기 설정 - 측정한 처리량에 따라 진행 중에 연결 수를 늘리거나 줄임
+    public void setConnectionController(ConnectionController connectionController) {
+        this.connectionController = connectionController;
+    }
+
+    /**
+     * 헤지 요청 설정 - 남은 구간이 없는 막바지에 멈추거나 느린 구간의 남은 범위를 다른 연결로 다시 요청
+     * 서버 부하가 두 배가 되지 않도록 동시 헤지 수와 다시 요청하는 총 분량을 제한함
+     *
+     * @param stallTimeoutMs 데이터 없이 이 시간이 지나면 헤지 (0이면 헤지 사용 안 함)
+     * @param slowRatio 다른 구간 속도 중앙값 대비 이 비율보다 느리면 헤지 (0이면 속도 기준 사용 안 함)
+     * @param maxRatio 헤지로 다시 요청할 수 있는 최대 분량 (전체 크기 대비 비율)
+     */
+    public void setHedging(long stallTimeoutMs, double slowRatio, double maxRatio) {
+        this.hedgeStallTimeoutMs = Math.max(0, stallTimeoutMs);
+        this.hedgeSlowRatio = Math.max(0, slowRatio);
+        this.hedgeMaxRatio = Math.max(0, maxRatio);
+    }
+
+    // 이번 다운로드에서 시작한 헤지 요청 수
+    public int getHedgeCount() {
+        return hedgeCount;
+    }
+
+    // 느린 연결 감시 설정 - 멈춘 구간 요청은 끊고 현재 위치부터 다시 연결
+    public void setStallWatchdog(StallWatchdog stallWatchdog) {
+        this.stallWatchdog = stallWatchdog;
+    }
+
+    // 이어받기 검증값 설정 - 모든 구간 요청에 If-Range로 붙여 서버 파일이 바뀌면 중단
+    // 기본 URL의 검증값이며, 다른 미러에는 미러별 검증값을 붙임 (ifRangeFor 참고)
+    public void setIfRange(String ifRange) {
+        this.ifRange = ifRange;
+    }
+
+    // 블록 검증기 설정 - 블록이 완성되는 즉시 검증, 불일치 시 스트림 중단
+    public void setBlockVerifier(BlockVerifier blockVerifier) {
+        this.blockVerifier = blockVerifier;
+    }
+
+    // 속도 제한 설정 - 모든 연결의 읽기에 공통 적용
+    public void setBandwidthShaper(BandwidthShaper bandwidthShaper) {
+        this.bandwidthShaper = bandwidthShaper;
+    }
+
+    // 미러 선택 설정 - 구간마다 가장 빠른 미러에 요청하고, 실패하거나 느려지면 다른 미러에서 이어받음
+    public void setMirrorSelector(MirrorSelector mirrorSelector) {
+        this.mirrorSelector = mirrorSelector;
+    }
+
+    // 기록 완료 리스너 설정 - 쓰기 스레드에서 완료 구간에 반영한 직후 호출 (버퍼가 반환되기 전이라 데이터를 바로 읽을 수 있음)
+    public void setWriteListener(DiskWriter.WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * 첫 구간 요청 응답 설정 - 다운로드 URL에 이미 보낸 요청을 다시 보내지 않고, 그 위치에서 시작하는 구간이 이어서 읽음
+     * 해당 위치에서 시작하는 구간이 없으면 사용하지 않음 (응답은 호출하는 쪽에서 닫음)
+     *
+     * @param call 첫 구간 요청
+     * @param response 206 응답 (본문을 읽지 않은 상태)
+     * @param position 응답 시작 위치
+     */
+    public synchronized void setFirstResponse(Call call, Response response, long position) {
+        this.firstResponse = call != null && response != null ? new FirstResponse(call, response, position) : null;
+    }
+
+    // 흩어진 구간 묶음 요청 사용 설정 (이전에 서버가 지원하지 않은 것으로 확인되면 false)
+    public void setMultiRange(boolean multiRange) {
+        this.multiRange = multiRange;
+    }
+
+    // 묶음 요청 사용 가능 여부 (서버가 지원하지 않는 것으로 확인되면 false)
+    public boolean isMultiRangeEnabled() {
+        return multiRange;
+    }
+
+    /**
+     * 분할 다운로드 실행 (완료 또는 취소될 때까지 블록됨)
+     *
+     * @param url 다운로드할 파일의 URL
+     * @param totalBytes 전체 파일 크기
+     * @param completed 이미 완료된 구간 (진행에 따라 갱신됨)
+     * @param callback 진행 상황 콜백
+     * @return 모든 구간 완료 시 true, 취소 시 false
+     * @throws IOException 구간 다운로드 실패 시 (블록 불일치는 BlockMismatchException)
+     */
+    public boolean download(String url, long totalBytes, RangeSet completed, ProgressCallback callback) throws IOException {
+        running = true;
+        failure = null;
+
+        int maxWorkers = connectionController != null ? connectionController.getMaxConnections() : connectionCount;
+        targetWorkers = connectionController != null ? connectionController.getConnectionCount() : connectionCount;
+        activeWorkers = 0;
+        fetchedBytes.set(0);
+        maxHedges = Math.max(1, maxWorkers / CONNECTIONS_PER_HEDGE);
+        activeHedges = 0;
+        hedgedBytes = 0;
+        hedgeCount = 0;
+
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        ExecutorService workers = null;
+        DiskWriter diskWriter = null;
+        try {
+            // 임시 파일 미리 할당
+            if (raf.length() != totalBytes) {
+                raf.setLength(totalBytes);
+            }
+            FileChannel channel = raf.getChannel();
+
+            // 모든 연결이 하나의 쓰기 스레드를 공유, 기록이 끝난 구간만 완료 처리
+            // (연결마다 채우는 중인 버퍼가 하나씩 있으므로 최대 연결 수와 헤지 수만큼 여유를 둠)
+            diskWriter = new DiskWriter(channel, bufferSize, queueDepth + maxWorkers + maxHedges, chunk -> {
+                long start = chunk.getPosition();
+                long end = start + chunk.getLength();
+                completed.add(start, end);
+                if (blockVerifier != null) {
+                    blockVerifier.onRangeWritten(start, end);
+                }
+                if (writeListener != null) {
+                    writeListener.onChunkWritten(chunk);
+                }
+            });
+            diskWriter.start();
+            final DiskWriter writer = diskWriter;
+
+            // 흩어진 작은 구간(손상 블록 재다운로드 등)은 먼저 한 번의 요청으로 묶어서 받음
+            List<long[]> missingRanges = completed.getMissingRanges(totalBytes);
+            if (multiRange) {
+                missingRanges = fetchSparseRanges(url, totalBytes, completed, missingRanges, writer);
+            }
+
+            // 남은 구간을 최대 연결 수에 맞춰 분할 (연결이 늘어나면 대기 구간을 바로 가져감)
+            List<Segment> segments = planSegments(missingRanges, maxWorkers);
+            pendingSegments.addAll(segments);
+            Log.d(TAG, "분할 다운로드 시작 ▶ 구간 " + segments.size() + "개, 연결 " + targetWorkers
+                    + (connectionController != null ? "개 (최대 " + maxWorkers + "개)" : "개"));
+
+            if (!segments.isEmpty()) {
+                workers = Executors.newCachedThreadPool();
+                long lastSampleTime = System.currentTimeMillis();
+                long lastSampleBytes = 0;
+
+                // 진행률 보고와 연결 수 조절을 하면서 모든 작업 스레드 종료 대기
+                while (true) {
+                    boolean saturated;
+                    synchronized (workerLock) {
+                        if (activeWorkers == 0 && activeHedges == 0 && (!running || pendingSegments.isEmpty())) {
+                            break;
+                        }
+                        if (running) {
+                            startWorkers(workers, url, writer);
+                        }
+                        workerLock.wait(PROGRESS_INTERVAL_MS);
+                        saturated = activeWorkers >= targetWorkers;
+                    }
+
+                    if (callback != null && running) {
+                        callback.onProgress(completed.getCoveredBytes());
+                    }
+
+                    if (hedgeStallTimeoutMs > 0 && running && pendingSegments.isEmpty()) {
+                        checkHedges(workers, url, writer, totalBytes);
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (!saturated) {
+                        // 남은 구간이 부족해 목표만큼 연결이 돌지 않으면 처리량으로 연결 수를 판단할 수 없음
+                        lastSampleTime = now;
+                        lastSampleBytes = fetchedBytes.get();
+                    } else if (connectionController != null
+                            && now - lastSampleTime >= connectionController.getSampleIntervalMs()) {
+                        long bytes = fetchedBytes.get();
+                        long bytesPerSecond = (bytes - lastSampleBytes) * 1000 / (now - lastSampleTime);
+                        int target = connectionController.onSample(bytesPerSecond);
+                        synchronized (workerLock) {
+                            targetWorkers = target;
+                        }
+                        lastSampleTime = now;
+                        lastSampleBytes = bytes;
+                    }
+                }
+            }
+
+            // 쓰기 큐에 남은 데이터 기록 완료 대기
+            diskWriter = null;
+            writer.finish();
+
+            if (failure != null) {
+                throw failure;
+            }
+            if (!running) {
+                return false;
+            }
+
+            channel.force(false);
+            if (callback != null) {
+                callback.onProgress(completed.getCoveredBytes());
+            }
+            return completed.contains(0, totalBytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            return false;
+        } finally {
+            running = false;
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            if (diskWriter != null) {
+                try {
+                    diskWriter.finish();
+                } catch (IOException e) {
+                    Log.e(TAG, "디스크 쓰기 정리 오류", e);
+                }
+            }
+            pendingSegments.clear();
+            activeSegments.clear();
+            takeFirstResponse(-1);
+            try {
+                raf.close();
+            } catch (IOException e) {
+                Log.e(TAG, "리소스 정리 오류", e);
+            }
+        }
+    }
+
+    // 다운로드 취소 (진행 중인 요청 모두 중단)
+    public void cancel() {
+        running = false;
+        Call call = sparseCall;
+        if (call != null) {
+            call.cancel();
+        }
+        FirstResponse first;
+        synchronized (this) {
+            first = firstResponse;
+        }
+        if (first != null) {
+            first.call.cancel();
+        }
+        for (Segment segment : activeSegments) {
+            segment.cancel();
+        }
+    }
+
+    /**
+     * 흩어진 작은 구간을 multipart/byteranges 요청으로 묶어서 받음
+     * 구간마다 요청하면 구간 수만큼 왕복 시간이 들지만 묶으면 요청 하나로 끝남
+     * 서버가 지원하지 않거나 도중에 실패하면 받지 못한 부분은 개별 구간 요청으로 넘김
+     *
+     * @param url 다운로드할 파일의 URL
+     * @param totalBytes 전체 파일 크기
+     * @param completed 이미 완료된 구간
+     * @param missingRanges 받아야 할 구간 목록
+     * @param diskWriter 쓰기 스레드
+     * @return 아직 받지 못한 구간 목록
+     * @throws IOException 서버 파일이 바뀐 경우 (ResourceChangedException)
+     */
+    private List<long[]> fetchSparseRanges(String url, long totalBytes, RangeSet completed,
+                                           List<long[]> missingRanges, DiskWriter diskWriter) throws IOException {
+        List<long[]> sparse = new ArrayList<>();
+        for (long[] range : missingRanges) {
+            if (range[1] - range[0] <= MAX_SPARSE_RANGE) {
+                sparse.add(range);
+            }
+        }
+        if (sparse.size() < MIN_SPARSE_RANGES) {
+            return missingRanges;
+        }
+
+        // 쓰기 스레드 기록 완료를 기다리지 않도록 넘긴 구간을 따로 모음
+        RangeSet covered = completed.copy();
+        Log.d(TAG, "흩어진 구간 묶음 요청 ▶ " + sparse.size() + "개");
+        try {
+            for (int i = 0; i < sparse.size() && running && multiRange; i += MAX_RANGES_PER_REQUEST) {
+                List<long[]> batch = sparse.subList(i, Math.min(sparse.size(), i + MAX_RANGES_PER_REQUEST));
+                String source = mirrorSelector != null ? mirrorSelector.select(MAX_SPARSE_RANGE * batch.size()) : url;
+                fetchMultiRange(source, totalBytes, batch, diskWriter, covered);
+            }
+        } catch (ConnectionManager.ResourceChangedException e) {
+            throw e;
+        } catch (IOException e) {
+            if (running) {
+                Log.w(TAG, "묶음 요청 실패, 개별 구간 요청으로 진행 ▶ " + e.getMessage());
+            }
+        } finally {
+            sparseCall = null;
+        }
+        return covered.getMissingRanges(totalBytes);
+    }
+
+    // 구간 목록을 한 번의 요청으로 받아 각 파트를 자기 위치에 기록 (fetchSparseRanges 참고)
+    private void fetchMultiRange(String url, long totalBytes, List<long[]> ranges, DiskWriter diskWriter,
+                                 RangeSet covered) throws IOException {
+        Call call = connectionManager.newMultiRangeCall(url, ranges, ifRangeFor(url));
+        sparseCall = call;
+        if (!running) {
+            call.cancel();
+        }
+        String description = "묶음 요청 " + ranges.size() + "개";
+        StallWatchdog.Watch watch = stallWatchdog != null ? stallWatchdog.watch(call, description) : null;
+
+        try (Response response = call.execute()) {
+            if (response.code() != 206) {
+                // 200(전체 파일)이나 416 등 - 본문은 받지 않고 개별 구간 요청으로 전환
+                // (서버 파일이 바뀐 경우는 개별 구간 요청의 If-Range에서 확인됨)
+                Log.w(TAG, "서버가 여러 구간 요청을 지원하지 않음 ▶ " + response.code());
+                multiRange = false;
+                return;
+            }
+
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                throw new IOException("응답 데이터가 없음");
+            }
+
+            BufferedSource source = responseBody.source();
+            String boundary = MultipartRangeReader.getBoundary(response.header("Content-Type"));
+            if (boundary == null) {
+                // 서버가 요청 구간을 하나로 합쳐서 보냄
+                long[] range = MultipartRangeReader.parseContentRange(response.header("Content-Range"));
+                if (range == null || range[1] > totalBytes) {
+                    throw new IOException("잘못된 Content-Range ▶ " + response.header("Content-Range"));
+                }
+                copyRange(source, range[0], range[1], diskWriter, covered, watch);
+                return;
+            }
+
+            MultipartRangeReader reader = new MultipartRangeReader(source, boundary);
+            long[] part;
+            int parts = 0;
+            while (running && (part = reader.nextPart()) != null) {
+                if (part[1] > totalBytes) {
+                    throw new IOException("파일 범위를 벗어난 파트 ▶ " + part[0] + "-" + part[1]);
+                }
+                while (running) {
+                    BufferPool.Chunk chunk = diskWriter.acquire();
+                    long position = reader.getPartPosition();
+                    int read;
+                    try {
+                        read = reader.fill(chunk);
+                    } catch (IOException e) {
+                        diskWriter.release(chunk);
+                        throw e;
+                    }
+                    if (read == -1) {
+                        diskWriter.release(chunk);
+                        break;
+                    }
+                    submitSparse(chunk, position, read, diskWriter, covered, watch);
+                }
+                parts++;
+            }
+            Log.d(TAG, "묶음 요청 완료 ▶ 파트 " + parts + "개");
+        } catch (IOException e) {
+            throw watch != null ? watch.translate(e) : e;
+        } finally {
+            if (watch != null) {
+                watch.close();
+            }
+        }
+    }
+
+    // 단일 구간 응답 본문을 그대로 기록
+    private void copyRange(BufferedSource source, long start, long end, DiskWriter diskWriter, RangeSet covered,
+                           StallWatchdog.Watch watch) throws IOException {
+        long position = start;
+        while (running && position < end) {
+            BufferPool.Chunk chunk = diskWriter.acquire();
+            int read;
+            try {
+                read = chunk.fill(source, (int) Math.min(chunk.getCapacity(), end - position));
+            } catch (IOException e) {
+                diskWriter.release(chunk);
+                throw e;
+            }
+            if (read == -1) {
+                diskWriter.release(chunk);
+                throw new IOException("구간 데이터가 예상보다 일찍 끝남 ▶ " + position + "-" + end);
+            }
+            submitSparse(chunk, position, read, diskWriter, covered, watch);
+            position += read;
+        }
+    }
+
+    // 묶음 요청으로 받은 데이터를 쓰기 스레드로 전달
+    private void submitSparse(BufferPool.Chunk chunk, long position, int length, DiskWriter diskWriter,
+                              RangeSet covered, StallWatchdog.Watch watch) throws IOException {
+        chunk.set(position, length);
+        diskWriter.submit(chunk);
+        covered.add(position, position + length);
+        fetchedBytes.addAndGet(length);
+        if (watch != null) {
+            watch.onBytes(length);
+        }
+        if (bandwidthShaper != null) {
+            bandwidthShaper.acquire(length);
+        }
+    }
+
+    // 남은 구간을 연결 수에 맞는 크기로 분할
+    private List<Segment> planSegments(List<long[]> missingRanges, int connectionCount) {
+        long missingBytes = 0;
+        for (long[] range : missingRanges) {
+            missingBytes += range[1] - range[0];
+        }
+
+        long segmentSize = Math.max(MIN_SEGMENT_SIZE, (missingBytes + connectionCount - 1) / connectionCount);
+        List<Segment> segments = new ArrayList<>();
+        for (long[] range : missingRanges) {
+            for (long start = range[0]; start < range[1]; start += segmentSize) {
+                segments.add(new Segment(start, Math.min(start + segmentSize, range[1])));
+            }
+        }
+        return segments;
+    }
+
+    // 목표 수까지 작업 스레드 추가 (workerLock 보유 상태에서 호출)
+    private void startWorkers(ExecutorService workers, String url, DiskWriter diskWriter) {
+        int idle = pendingSegments.size();
+        while (activeWorkers < targetWorkers && (idle-- > 0 || findLargestSegment() != null)) {
+            activeWorkers++;
+            workers.execute(() -> runWorker(url, diskWriter));
+        }
+    }
+
+    /**
+     * 작업 스레드 수가 목표보다 많으면 남은 부분을 대기 구간으로 돌려놓고 종료 처리
+     *
+     * @param segment 처리 중인 구간
+     * @return 종료해야 하면 true
+     */
+    private boolean tryRetire(Segment segment) {
+        synchronized (workerLock) {
+            if (activeWorkers <= targetWorkers) {
+                return false;
+            }
+            // 대기 구간에 먼저 넣은 뒤 수를 줄여서 구간이 남은 채로 다운로드가 끝나지 않도록 함
+            pendingSegments.add(segment.detachRemaining());
+            activeWorkers--;
+            workerLock.notifyAll();
+            return true;
+        }
+    }
+
+    // 나눌 수 있는 진행 중 구간 중 가장 많이 남은 구간 반환 (없으면 null)
+    private Segment findLargestSegment() {
+        Segment largest = null;
+        for (Segment segment : activeSegments) {
+            if (!segment.isHedged() && segment.getRemaining() >= MIN_STEAL_SIZE * 2
+                    && (largest == null || segment.getRemaining() > largest.getRemaining())) {
+                largest = segment;
+            }
+        }
+        return largest;
+    }
+
+    // 가장 많이 남은 구간의 뒤쪽 절반 가져오기 (나눌 구간이 없으면 null)
+    private Segment stealSegment() {
+        Segment victim;
+        while ((victim = findLargestSegment()) != null) {
+            Segment tail = victim.split(MIN_STEAL_SIZE);
+            if (tail != null) {
+                Log.d(TAG, "구간 가로채기 ▶ " + victim + " 에서 " + tail);
+                return tail;
+            }
+            // 그 사이 진행되어 나눌 수 없게 됨 -> 다시 찾음
+        }
+        return null;
+    }
+
+    // 다음 처리할 구간 (대기 구간 우선, 없으면 가로채기)
+    private Segment nextSegment() {
+        Segment segment = pendingSegments.poll();
+        return segment != null ? segment : stealSegment();
+    }
+
+    // 작업 스레드: 대기 구간을 하나씩 가져와 처리
+    private void runWorker(String url, DiskWriter diskWriter) {
+        boolean retired = false;
+        try {
+            Segment segment;
+            while (running && (segment = nextSegment()) != null) {
+                segment.activate();
+                activeSegments.add(segment);
+                try {
+                    if (!fetchSegment(url, segment, diskWriter)) {
+                        retired = true;
+                        break;
+                    }
+                } catch (IOException e) {
+                    onSegmentFailed(segment, e);
+                } finally {
+                    activeSegments.remove(segment);
+                }
+            }
+        } finally {
+            if (!retired) {
+                synchronized (workerLock) {
+                    activeWorkers--;
+                    workerLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    // 헤지 작업: 경쟁 구간 하나만 받고 종료
+    private void runHedge(String url, Segment hedge, DiskWriter diskWriter) {
+        hedge.activate();
+        activeSegments.add(hedge);
+        try {
+            fetchSegment(url, hedge, diskWriter);
+        } catch (IOException e) {
+            onSegmentFailed(hedge, e);
+        } finally {
+            activeSegments.remove(hedge);
+            synchronized (workerLock) {
+                activeHedges--;
+                workerLock.notifyAll();
+            }
+        }
+    }
+
+    // 구간 실패 처리 - 헤지 경쟁 중이면 상대가 계속 받으므로 이 구간만 빠짐
+    private void onSegmentFailed(Segment segment, IOException e) {
+        synchronized (workerLock) {
+            if (segment.isAbandoned()) {
+                // 경쟁에서 져서 취소된 요청
+                return;
+            }
+            Segment rival = segment.getRival();
+            if (rival != null && !rival.isAbandoned()) {
+                Log.w(TAG, "경쟁 구간 실패, 상대 요청으로 계속 ▶ " + segment + " (" + e.getMessage() + ")");
+                segment.abandon();
+                return;
+            }
+        }
+        if (running) {
+            Log.e(TAG, "구간 다운로드 실패 ▶ " + segment, e);
+            failure = e;
+            cancel();
+        }
+    }
+
+    /**
+     * 막바지 구간 감시 - 멈추거나 다른 구간보다 크게 느린 구간은 남은 범위를 다른 연결로 다시 요청
+     *
+     * @param workers 작업 실행기
+     * @param url 다운로드할 파일의 URL
+     * @param diskWriter 쓰기 스레드
+     * @param totalBytes 전체 파일 크기 (헤지 분량 제한 기준)
+     */
+    private void checkHedges(ExecutorService workers, String url, DiskWriter diskWriter, long totalBytes) {
+        long now = System.currentTimeMillis();
+
+        // 충분히 관찰한 구간들의 평균 속도 중앙값
+        List<Long> speeds = new ArrayList<>();
+        for (Segment segment : activeSegments) {
+            if (!segment.isHedged() && now - segment.getActivatedTime() >= MIN_OBSERVE_MS) {
+                speeds.add(segment.getAverageSpeed(now));
+            }
+        }
+        long medianSpeed = 0;
+        if (speeds.size() >= 2) {
+            Collections.sort(speeds);
+            medianSpeed = speeds.get(speeds.size() / 2);
+        }
+
+        long hedgeBudget = (long) (totalBytes * hedgeMaxRatio);
+        for (Segment segment : activeSegments) {
+            if (segment.isHedged() || segment.isDone()) {
+                continue;
+            }
+
+            boolean stalled = now - segment.getLastActivityTime() >= hedgeStallTimeoutMs;
+            boolean slow = medianSpeed > 0 && now - segment.getActivatedTime() >= MIN_OBSERVE_MS
+                    && segment.getAverageSpeed(now) < medianSpeed * hedgeSlowRatio;
+            if (!stalled && !slow) {
+                continue;
+            }
+
+            long remaining = segment.getRemaining();
+            synchronized (workerLock) {
+                if (activeHedges >= maxHedges || hedgedBytes + remaining > hedgeBudget) {
+                    return;
+                }
+                Segment hedge = segment.hedge();
+                if (hedge == null) {
+                    continue;
+                }
+                activeHedges++;
+                hedgedBytes += remaining;
+                hedgeCount++;
+                Log.w(TAG, "헤지 요청 ▶ " + hedge + (stalled ? " (응답 멈춤)" : " (느린 구간 "
+                        + segment.getAverageSpeed(now) + " / 중앙값 " + medianSpeed + " bytes/s)"));
+                workers.execute(() -> runHedge(url, hedge, diskWriter));
+            }
+        }
+    }
+
+    /**
+     * 단일 구간 다운로드 후 쓰기 스레드로 전달 (느린 연결로 끊기면 현재 위치부터 다시 연결)
+     * 미러가 있으면 요청마다 미러를 고르고, 실패하거나 더 빠른 미러가 있으면 현재 위치부터 다른 미러로 이어받음
+     *
+     * @param url 다운로드할 파일의 URL
+     * @param segment 받을 구간
+     * @param diskWriter 쓰기 스레드
+     * @return 구간을 끝까지 처리했으면 true, 연결 수 감소로 도중에 넘겼으면 false
+     * @throws IOException 요청 또는 읽기 실패 시
+     */
+    private boolean fetchSegment(String url, Segment segment, DiskWriter diskWriter) throws IOException {
+        int reconnects = 0;
+        int failovers = 0;
+        while (true) {
+            long startPosition = segment.getPosition();
+            String source = mirrorSelector != null ? mirrorSelector.select(segment.getRemaining()) : url;
+            FirstResponse first = source.equals(url) ? takeFirstResponse(startPosition) : null;
+            try {
+                return fetchRange(source, segment, diskWriter, first);
+            } catch (MirrorSwitchException e) {
+                // 받은 부분은 그대로 두고 남은 범위만 다른 미러에 요청
+                Log.d(TAG, "구간 미러 전환 ▶ " + segment + ", " + e.getMessage());
+            } catch (StallWatchdog.StallException e) {
+                if (!running || segment.isAbandoned()) {
+                    return true;
+                }
+                // 진행이 있었으면 횟수 초기화, 진행 없이 계속 멈추면 실패 처리
+                reconnects = segment.getPosition() > startPosition ? 1 : reconnects + 1;
+                if (reconnects > MAX_STALL_RECONNECTS) {
+                    throw e;
+                }
+                if (mirrorSelector != null) {
+                    mirrorSelector.reportFailure(source);
+                }
+                Log.w(TAG, "멈춘 구간 재연결 ▶ " + segment);
+            } catch (ConnectionManager.ResourceChangedException e) {
+                throw e;
+            } catch (IOException e) {
+                if (first != null && running && !segment.isAbandoned()) {
+                    // 준비 작업 동안 기다리던 첫 응답이 끊겼을 수 있으므로 새 요청으로 한 번 더 시도
+                    Log.w(TAG, "첫 구간 응답 읽기 실패, 다시 요청 ▶ " + segment + " (" + e.getMessage() + ")");
+                    continue;
+                }
+                if (!running || segment.isAbandoned() || mirrorSelector == null) {
+                    throw e;
+                }
+                mirrorSelector.reportFailure(source);
+                failovers = segment.getPosition() > startPosition ? 1 : failovers + 1;
+                if (!mirrorSelector.hasAlternative(source) || failovers > mirrorSelector.getMirrorCount()) {
+                    throw e;
+                }
+                Log.w(TAG, "미러 요청 실패, 다른 미러로 이어받음 ▶ " + segment + " (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    // 요청할 미러에 맞는 If-Range 검증값 (CDN/리전마다 같은 파일이라도 ETag가 다를 수 있음)
+    private String ifRangeFor(String url) {
+        MirrorSelector selector = mirrorSelector;
+        return selector != null ? selector.getValidator(url, ifRange) : ifRange;
+    }
+
+    // 첫 구간 응답 가져가기 (위치가 맞을 때 한 번만, -1이면 사용하지 않고 비움)
+    private synchronized FirstResponse takeFirstResponse(long position) {
+        FirstResponse first = firstResponse;
+        if (first == null || (position >= 0 && first.position != position)) {
+            return null;
+        }
+        firstResponse = null;
+        return position >= 0 ? first : null;
+    }
+
+    /**
+     * 구간의 현재 위치부터 끝까지 한 번의 요청으로 받음 (fetchSegment 참고)
+     *
+     * @param url 요청할 URL
+     * @param segment 받을 구간
+     * @param diskWriter 쓰기 스레드
+     * @param first 이어서 읽을 첫 구간 응답 (null이면 새로 요청, 구간 끝을 넘는 부분은 읽지 않음)
+     * @return 구간을 끝까지 처리했으면 true, 연결 수 감소로 도중에 넘겼으면 false
+     * @throws IOException 요청 또는 읽기 실패 시
+     */
+    private boolean fetchRange(String url, Segment segment, DiskWriter diskWriter, FirstResponse first) throws IOException {
+        long requestStart = segment.getPosition();
+        long requestEnd = first != null ? Long.MAX_VALUE : segment.getEnd();
+        String validator = ifRangeFor(url);
+        Call call = first != null ? first.call
+                : connectionManager.newRangeCall(url, requestStart, requestEnd - 1, validator);
+        segment.setCall(call);
+        StallWatchdog.Watch watch = stallWatchdog != null ? stallWatchdog.watch(call, segment.toString()) : null;
+
+        try (Response response = first != null ? first.response : call.execute()) {
+            if (response.code() == 200 && validator != null) {
+                // If-Range 불일치 -> 서버 파일이 바뀌어 전체 파일을 보냄
+                throw new ConnectionManager.ResourceChangedException("서버 파일 변경됨 ▶ " + segment);
+            }
+            if (response.code() != 206) {
+                throw new ConnectionManager.HttpStatusException("구간 요청 실패", response.code());
+            }
+
+            // 요청한 위치와 다른 범위를 보내면 엉뚱한 위치에 기록되므로 쓰기 전에 확인
+            long[] range = MultipartRangeReader.parseContentRange(response.header("Content-Range"));
+            if (range == null || range[0] != requestStart || range[1] > requestEnd) {
+                throw new IOException("응답 범위 불일치 ▶ " + segment + ", " + response.header("Content-Range"));
+            }
+
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                throw new IOException("응답 데이터가 없음");
+            }
+
+            BufferedSource source = responseBody.source();
+            long sampleTime = System.currentTimeMillis();
+            long sampleBytes = 0;
+            while (running && !segment.isDone() && !segment.isAbandoned()) {
+                BufferPool.Chunk chunk = diskWriter.acquire();
+                int read;
+                try {
+                    read = chunk.fill(source, (int) Math.min(chunk.getCapacity(), segment.getRemaining()));
+                } catch (IOException e) {
+                    diskWriter.release(chunk);
+                    throw e;
+                }
+                if (read == -1) {
+                    diskWriter.release(chunk);
+                    throw new IOException("구간 데이터가 예상보다 일찍 끝남 ▶ " + segment);
+                }
+
+                // 뒷부분을 다른 연결이 가져갔으면 줄어든 끝까지만 기록 (넘친 데이터는 버림)
+                long position = segment.getPosition();
+                int accepted = segment.advance(read);
+                if (accepted == 0) {
+                    diskWriter.release(chunk);
+                    break;
+                }
+                chunk.set(position, accepted);
+                diskWriter.submit(chunk);
+                fetchedBytes.addAndGet(accepted);
+                if (watch != null) {
+                    watch.onBytes(accepted);
+                }
+
+                if (bandwidthShaper != null) {
+                    bandwidthShaper.acquire(read);
+                }
+
+                if (!segment.isDone() && !segment.isHedged() && tryRetire(segment)) {
+                    return false;
+                }
+
+                // 미러 속도 보고 - 느려진 미러는 다른 구간들이 피하고, 더 빠른 미러가 있으면 이 구간도 옮김
+                // (속도 제한 중에는 측정값이 미러 속도가 아니므로 판단하지 않음)
+                sampleBytes += accepted;
+                long now = System.currentTimeMillis();
+                if (mirrorSelector != null && now - sampleTime >= MIRROR_SAMPLE_MS && !isShaping()) {
+                    mirrorSelector.reportThroughput(url, sampleBytes * 1000 / (now - sampleTime));
+                    sampleTime = now;
+                    sampleBytes = 0;
+                    String better = segment.isDone() || segment.isHedged() ? null
+                            : mirrorSelector.findBetter(url, segment.getRemaining());
+                    if (better != null) {
+                        throw new MirrorSwitchException(url + " -> " + better);
+                    }
+                }
+            }
+
+            // 헤지 경쟁 중이었으면 먼저 끝낸 쪽이 상대 요청을 취소
+            if (segment.isDone()) {
+                segment.winRace();
+            }
+            return true;
+        } catch (IOException e) {
+            throw watch != null ? watch.translate(e) : e;
+        } finally {
+            if (watch != null) {
+                watch.close();
+            }
+            segment.setCall(null);
+        }
+    }
+
+    // 속도 제한이 걸려 있는지 여부
+    private boolean isShaping() {
+        return bandwidthShaper != null && bandwidthShaper.getRate() != BandwidthShaper.UNLIMITED;
+    }
+
+    // 크기 확인을 겸한 첫 구간 요청과 응답
+    private static class FirstResponse {
+        final Call call;
+        final Response response;
+        final long position;
+
+        FirstResponse(Call call, Response response, long position) {
+            this.call = call;
+            this.response = response;
+            this.position = position;
+        }
+    }
+
+    // 더 빠른 미러로 옮기기 위해 현재 요청을 끝냄 (fetchSegment에서 현재 위치부터 다시 요청)
+    private static class MirrorSwitchException extends IOException {
+        MirrorSwitchException(String message) {
+            super(message);
+        }
+    }
+
+    // 분할 다운로드 진행 콜백 (다운로드 호출 스레드에서 호출)
+    public interface ProgressCallback {
+        void onProgress(long downloadedBytes) throws IOException;
+    }
+}
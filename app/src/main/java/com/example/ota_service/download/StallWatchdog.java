@@ -0,0 +1,193 @@
+package com.example.ota_service.download;
+
+import android.util.Log;
+
+import com.example.ota_service.network.BandwidthShaper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+
+// 응답이 끊기지 않은 채 몇 바이트씩만 들어오는 연결을 잡아내는 감시 클래스
+// OkHttp 읽기 타임아웃은 데이터가 조금이라도 오면 걸리지 않으므로, 쓰기 루프가 실제로 넘긴 바이트를
+// 일정 구간(슬라이딩 윈도우) 동안 모아 최소 속도보다 느리면 요청을 취소함
+// 취소된 읽기는 StallException으로 바꿔 던지고, 호출한 쪽에서 현재 위치부터 Range 요청으로 다시 연결
+public class StallWatchdog {
+    private static final String TAG = StallWatchdog.class.getSimpleName();
+
+    private static final long TICK_MS = 1000;               // 감시 주기 (윈도우 한 칸)
+    private static final int SHAPED_RATE_DIVISOR = 16;      // 속도 제한 중에는 최소 속도를 제한값 / 16 이하로 낮춤
+
+    // 모든 감시 대상을 하나의 스레드가 확인
+    private static ScheduledExecutorService ticker;
+    private static final List<Watch> watches = new CopyOnWriteArrayList<>();
+
+    private final long minBytesPerSecond;
+    private final int windowTicks;
+    private final AtomicInteger stallCount = new AtomicInteger();
+
+    // 속도 제한 (설정되어 있으면 제한 속도에 맞춰 최소 속도를 낮춤)
+    private BandwidthShaper bandwidthShaper;
+
+    /**
+     * StallWatchdog 생성자
+     *
+     * @param minBytesPerSecond 윈도우 평균이 이 속도보다 느리면 멈춘 것으로 판단(bytes/s)
+     * @param windowMs 평균을 계산할 구간 길이(ms, 1초 단위로 올림)
+     */
+    public StallWatchdog(long minBytesPerSecond, long windowMs) {
+        this.minBytesPerSecond = Math.max(1, minBytesPerSecond);
+        this.windowTicks = (int) Math.max(1, (windowMs + TICK_MS - 1) / TICK_MS);
+    }
+
+    // 속도 제한 설정 - 일부러 늦추는 전송을 멈춤으로 판단하지 않도록 함
+    public void setBandwidthShaper(BandwidthShaper bandwidthShaper) {
+        this.bandwidthShaper = bandwidthShaper;
+    }
+
+    // 멈춤으로 판단해서 요청을 끊은 횟수
+    public int getStallCount() {
+        return stallCount.get();
+    }
+
+    /**
+     * 요청 감시 시작
+     *
+     * @param call 감시할 요청 (멈추면 취소됨)
+     * @param description 로그용 설명
+     * @return 감시 핸들 (읽을 때마다 onBytes, 끝나면 close 호출)
+     */
+    public Watch watch(Call call, String description) {
+        Watch watch = new Watch(this, call, description);
+        watches.add(watch);
+        ensureTicker();
+        return watch;
+    }
+
+    // 현재 적용할 최소 속도
+    private long getEffectiveMinRate() {
+        BandwidthShaper shaper = bandwidthShaper;
+        long shapedRate = shaper != null ? shaper.getRate() : BandwidthShaper.UNLIMITED;
+        if (shapedRate == BandwidthShaper.UNLIMITED) {
+            return minBytesPerSecond;
+        }
+        return Math.max(1, Math.min(minBytesPerSecond, shapedRate / SHAPED_RATE_DIVISOR));
+    }
+
+    // 감시 스레드 시작 (처음 한 번)
+    private static synchronized void ensureTicker() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ota-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(StallWatchdog::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // 모든 감시 대상 확인
+    private static void tick() {
+        for (Watch watch : watches) {
+            try {
+                watch.check();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "연결 감시 중 오류", e);
+            }
+        }
+    }
+
+    // 요청 하나에 대한 감시 핸들
+    public static class Watch {
+        private final StallWatchdog owner;
+        private final Call call;
+        private final String description;
+        private final AtomicLong bytes = new AtomicLong();
+
+        // 감시 스레드 전용 - 틱마다 누적 바이트 기록 (윈도우 시작점 비교용)
+        private final long[] history;
+        private int ticks = 0;
+
+        private volatile boolean triggered = false;
+
+        private Watch(StallWatchdog owner, Call call, String description) {
+            this.owner = owner;
+            this.call = call;
+            this.description = description;
+            this.history = new long[owner.windowTicks];
+        }
+
+        // 쓰기 루프가 넘긴 바이트 보고
+        public void onBytes(long count) {
+            bytes.addAndGet(count);
+        }
+
+        // 멈춤 판단으로 취소되었는지 여부
+        public boolean isTriggered() {
+            return triggered;
+        }
+
+        // 감시 종료
+        public void close() {
+            watches.remove(this);
+        }
+
+        /**
+         * 읽기 중 발생한 예외 확인 - 감시가 요청을 끊은 경우면 StallException으로 변환
+         *
+         * @param e 읽기 중 발생한 예외
+         * @return 그대로 던질 예외
+         */
+        public IOException translate(IOException e) {
+            if (triggered && !(e instanceof StallException)) {
+                return new StallException(description, e);
+            }
+            return e;
+        }
+
+        // 윈도우 평균 속도 확인 (감시 스레드)
+        private void check() {
+            if (triggered) {
+                return;
+            }
+
+            long current = bytes.get();
+            int slot = ticks % history.length;
+            long windowStart = history[slot];
+            history[slot] = current;
+            ticks++;
+
+            // 윈도우가 다 찬 뒤부터 판단 (연결 직후 느린 구간은 제외)
+            if (ticks <= history.length) {
+                return;
+            }
+
+            long windowSeconds = history.length * TICK_MS / 1000;
+            long rate = (current - windowStart) / Math.max(1, windowSeconds);
+            long minRate = owner.getEffectiveMinRate();
+            if (rate < minRate) {
+                triggered = true;
+                int count = owner.stallCount.incrementAndGet();
+                Log.w(TAG, "연결 멈춤 감지 ▶ " + description + ", " + rate + " bytes/s < " + minRate
+                        + " bytes/s (누적 " + count + "회)");
+                call.cancel();
+                close();
+            }
+        }
+    }
+
+    // 감시가 느린 연결을 끊었을 때 발생하는 예외 (현재 위치부터 다시 연결하면 됨)
+    public static class StallException extends IOException {
+        public StallException(String description, Throwable cause) {
+            super("연결 멈춤 ▶ " + description, cause);
+        }
+    }
+}
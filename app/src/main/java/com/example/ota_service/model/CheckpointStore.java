@@ -0,0 +1,196 @@
+package com.example.ota_service.model;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// 고정 크기 슬롯 두 개를 번갈아 쓰는 바이너리 체크포인트 파일
+// 파일 구조: [슬롯 0][슬롯 1], 슬롯 = 헤더(매직, 버전, 순번, 길이, CRC) + 본문
+// 새 기록은 항상 마지막으로 유효한 슬롯의 반대쪽에 쓰므로 쓰는 도중 종료되어도 이전 기록이 남음
+// 읽을 때는 CRC가 맞는 슬롯 중 순번이 큰 쪽을 사용
+public class CheckpointStore {
+    private static final String TAG = CheckpointStore.class.getSimpleName();
+
+    private static final int MAGIC = 0x4f544143;    // "OTAC"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 4 + 4;
+    public static final int DEFAULT_SLOT_SIZE = 16 * 1024;
+
+    private final File file;
+    private final int slotSize;
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch;   // CRC 계산용 재사용 버퍼
+
+    private RandomAccessFile raf;
+    private MappedByteBuffer mapped;
+    private long sequence = -1;     // 마지막으로 기록(또는 읽은) 순번
+    private int currentSlot = -1;   // 마지막으로 기록(또는 읽은) 슬롯
+
+    /**
+     * CheckpointStore 생성자
+     *
+     * @param file 체크포인트 파일
+     * @param slotSize 슬롯 하나의 크기(bytes)
+     */
+    public CheckpointStore(File file, int slotSize) {
+        this.file = file;
+        this.slotSize = slotSize;
+        this.scratch = new byte[slotSize - HEADER_SIZE];
+    }
+
+    // 슬롯 하나에 담을 수 있는 최대 본문 크기
+    public int getCapacity() {
+        return slotSize - HEADER_SIZE;
+    }
+
+    /**
+     * 본문 기록 (반대쪽 슬롯에 쓰고 디스크에 반영될 때까지 대기)
+     *
+     * @param payload 기록할 본문 (position ~ limit 구간)
+     * @throws IOException 파일 오류 또는 본문이 슬롯보다 클 때
+     */
+    public synchronized void write(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (length > getCapacity()) {
+            throw new IOException("체크포인트 크기 초과 ▶ " + length + " / " + getCapacity());
+        }
+        ensureMapped();
+        if (sequence < 0) {
+            // 처음 쓰는 경우 기존 기록의 순번을 이어받음
+            readLatestSlot();
+        }
+
+        long nextSequence = sequence + 1;
+        int slot = currentSlot == 0 ? 1 : 0;
+        int base = slot * slotSize;
+
+        payload.get(scratch, 0, length);
+        int checksum = checksum(length, nextSequence);
+
+        // 본문을 먼저 쓰고 헤더를 마지막에 씀
+        ByteBuffer target = mapped.duplicate();
+        target.position(base + HEADER_SIZE);
+        target.put(scratch, 0, length);
+
+        target.position(base);
+        target.putInt(MAGIC);
+        target.putShort(VERSION);
+        target.putShort((short) 0);
+        target.putLong(nextSequence);
+        target.putInt(length);
+        target.putInt(checksum);
+
+        mapped.force();
+        sequence = nextSequence;
+        currentSlot = slot;
+    }
+
+    /**
+     * 가장 최근의 유효한 본문 읽기
+     *
+     * @return 본문 (읽기 전용), 유효한 기록이 없으면 null
+     */
+    public synchronized ByteBuffer read() {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            ensureMapped();
+            return readLatestSlot();
+        } catch (IOException e) {
+            Log.e(TAG, "체크포인트 읽기 오류", e);
+            return null;
+        }
+    }
+
+    // 파일 삭제 (다음 기록 시 새로 만듦)
+    public synchronized void clear() {
+        close();
+        sequence = -1;
+        currentSlot = -1;
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "체크포인트 파일 삭제 실패 ▶ " + file.getName());
+        }
+    }
+
+    // 리소스 정리
+    public synchronized void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                Log.e(TAG, "리소스 정리 오류", e);
+            }
+            raf = null;
+        }
+        mapped = null;
+    }
+
+    // 파일을 두 슬롯 크기로 만들고 메모리 매핑
+    private void ensureMapped() throws IOException {
+        if (mapped != null) {
+            return;
+        }
+        raf = new RandomAccessFile(file, "rw");
+        long size = 2L * slotSize;
+        if (raf.length() != size) {
+            raf.setLength(size);
+        }
+        mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    // scratch에 담긴 본문과 순번으로 체크섬 계산 (다른 순번의 같은 본문과 구분되도록 순번 포함)
+    private int checksum(int length, long slotSequence) {
+        crc.reset();
+        crc.update(scratch, 0, length);
+        return (int) crc.getValue() ^ (int) slotSequence ^ (int) (slotSequence >>> 32);
+    }
+
+    // 두 슬롯 중 유효하고 순번이 큰 쪽의 본문 반환, 없으면 null
+    private ByteBuffer readLatestSlot() {
+        ByteBuffer best = null;
+        long bestSequence = -1;
+        int bestSlot = -1;
+
+        for (int slot = 0; slot < 2; slot++) {
+            ByteBuffer source = mapped.duplicate();
+            int base = slot * slotSize;
+            source.position(base);
+
+            if (source.getInt() != MAGIC || source.getShort() != VERSION) continue;
+            source.getShort();
+            long slotSequence = source.getLong();
+            int length = source.getInt();
+            int checksum = source.getInt();
+            if (length < 0 || length > getCapacity()) continue;
+
+            source.limit(base + HEADER_SIZE + length);
+            source.duplicate().get(scratch, 0, length);
+            if (checksum(length, slotSequence) != checksum) {
+                Log.w(TAG, "손상된 체크포인트 슬롯 무시 ▶ " + slot + " (순번 " + slotSequence + ")");
+                continue;
+            }
+
+            if (slotSequence > bestSequence) {
+                bestSequence = slotSequence;
+                bestSlot = slot;
+                best = source.slice().asReadOnlyBuffer();
+            }
+        }
+
+        if (bestSlot >= 0) {
+            sequence = bestSequence;
+            currentSlot = bestSlot;
+        } else {
+            sequence = 0;
+            currentSlot = 1;
+        }
+        return best;
+    }
+}
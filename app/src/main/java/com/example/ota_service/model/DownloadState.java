@@ -1,12 +1,22 @@
 package com.example.ota_service.model;
 
+import com.example.ota_service.utils.ResumableSha256;
+
+import java.util.BitSet;
+
 public class DownloadState {
     private String downloadId;      // 고유 ID
-    private long downloadedBytes;   // 다운로드 바이트 수 체크
+    private volatile long downloadedBytes; // 다운로드 바이트 수 체크 (쓰기 스레드에서 갱신)
     private long totalBytes;        // 총 파일 크기
     private long lastUpdateTime;    // 마지막 업데이트 시간
     private boolean isCompleted;    // 완료 여부
     private boolean isCancelled;    // 취소 여부
+    private RangeSet completedRanges; // 분할 다운로드 완료 구간 (순차 다운로드면 null)
+    private ResumableSha256 digest; // 무결성 검증용 SHA-256 진행 상태 (검증 안 하면 null)
+    private String manifestRoot;    // 블록 검증에 사용한 매니페스트 루트 (사용 안 하면 null)
+    private BitSet verifiedBlocks;  // 매니페스트 기준 검증 완료 블록
+    private String etag;            // 서버 파일 ETag (이어받기 검증용, 없으면 null)
+    private String lastModified;    // 서버 파일 Last-Modified (이어받기 검증용, 없으면 null)
 
     // 기본 생성자 시작
     public DownloadState() {
@@ -16,6 +26,39 @@ public class DownloadState {
         this.lastUpdateTime = System.currentTimeMillis();
         this.isCompleted = false;
         this.isCancelled = false;
+        this.completedRanges = null;
+        this.digest = null;
+        this.manifestRoot = null;
+        this.verifiedBlocks = new BitSet();
+    }
+
+    /**
+     * 체크포인트용 복사본 생성 (다운로드 진행 중에도 일관된 값을 저장하기 위함)
+     * 해시는 기록된 데이터보다 앞설 수 없으므로 먼저 복사하고, 완료 구간/바이트 수는 나중에 복사
+     *
+     * @return 복사본
+     */
+    public DownloadState snapshot() {
+        DownloadState copy = new DownloadState();
+        ResumableSha256 currentDigest = digest;
+        copy.digest = currentDigest != null ? ResumableSha256.restore(currentDigest.saveState()) : null;
+
+        RangeSet ranges = completedRanges;
+        copy.completedRanges = ranges != null ? ranges.copy() : null;
+        copy.downloadedBytes = ranges != null ? copy.completedRanges.getCoveredBytes() : downloadedBytes;
+
+        copy.downloadId = downloadId;
+        copy.totalBytes = totalBytes;
+        copy.lastUpdateTime = lastUpdateTime;
+        copy.isCompleted = isCompleted;
+        copy.isCancelled = isCancelled;
+        copy.manifestRoot = manifestRoot;
+        copy.etag = etag;
+        copy.lastModified = lastModified;
+        synchronized (verifiedBlocks) {
+            copy.verifiedBlocks = (BitSet) verifiedBlocks.clone();
+        }
+        return copy;
     }
 
     // Download ID 반환
@@ -80,6 +123,79 @@ public class DownloadState {
         }
     }
 
+    // 분할 다운로드 완료 구간 반환 (순차 다운로드면 null)
+    public RangeSet getCompletedRanges() {
+        return completedRanges;
+    }
+
+    // 분할 다운로드 완료 구간 설정
+    public void setCompletedRanges(RangeSet completedRanges) {
+        this.completedRanges = completedRanges;
+    }
+
+    // 분할 다운로드 여부 반환
+    public boolean isSegmented() {
+        return completedRanges != null;
+    }
+
+    // SHA-256 진행 상태 반환 (검증 안 하면 null)
+    public ResumableSha256 getDigest() {
+        return digest;
+    }
+
+    // SHA-256 진행 상태 설정
+    public void setDigest(ResumableSha256 digest) {
+        this.digest = digest;
+    }
+
+    // 블록 검증 매니페스트 루트 반환
+    public String getManifestRoot() {
+        return manifestRoot;
+    }
+
+    // 블록 검증 매니페스트 루트 설정
+    public void setManifestRoot(String manifestRoot) {
+        this.manifestRoot = manifestRoot;
+    }
+
+    // 서버 파일 ETag 반환
+    public String getEtag() {
+        return etag;
+    }
+
+    // 서버 파일 ETag 설정
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    // 서버 파일 Last-Modified 반환
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    // 서버 파일 Last-Modified 설정
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    // If-Range에 사용할 검증값 (강한 ETag 우선, 없으면 Last-Modified, 둘 다 없으면 null)
+    public String getResumeValidator() {
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return lastModified;
+    }
+
+    // 검증 완료 블록 반환
+    public BitSet getVerifiedBlocks() {
+        return verifiedBlocks;
+    }
+
+    // 검증 완료 블록 설정
+    public void setVerifiedBlocks(BitSet verifiedBlocks) {
+        this.verifiedBlocks = verifiedBlocks != null ? verifiedBlocks : new BitSet();
+    }
+
     // 다운로드 진행 상태 반환
     public int getProgress() {
         if (totalBytes <= 0) return 0;
@@ -2,56 +2,114 @@ package com.example.ota_service.model;
 
 import android.util.Log;
 
+import com.example.ota_service.utils.ResumableSha256;
+
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+import java.util.zip.CRC32;
 
 // 다운로드 상태 저장 및 복원들 담당하는 클래스
+// 상태는 CheckpointStore에 고정 형식 바이너리로 기록 (쓰는 도중 종료되어도 이전 기록이 남음)
+//   [형식 버전][downloadedBytes][totalBytes][플래그][downloadId][manifestRoot][ETag][Last-Modified]
+//   [해시 중간 상태][끝부분 검사값][검증 블록][완료 구간]
 public class DownloadStateManager {
     private static final String TAG = DownloadStateManager.class.getSimpleName();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int FORMAT_VERSION = 2;   // 형식이 다른 기록은 읽지 않음
+
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_CANCELLED = 1 << 1;
+    private static final int FLAG_SEGMENTED = 1 << 2;
+    private static final int FLAG_DIGEST = 1 << 3;
+    private static final int FLAG_TAIL_CHECK = 1 << 4;
+
     private final File tempFile;
-    private final File stateFile;
+    private final CheckpointStore store;
+    private final ByteBuffer encodeBuffer;  // 저장할 때마다 재사용
+    private final CRC32 tailCrc = new CRC32();
+    private byte[] tailBuffer = new byte[0];
+    private int tailCheckBytes = 0;         // 순차 다운로드 끝부분 검사 크기 (0이면 사용 안 함)
 
     // DownloadStateManager 생성자, tempfile은 임시경로를 설정하도록 함
     public DownloadStateManager(File tempFile) {
         this.tempFile = tempFile;
-        this.stateFile = new File(tempFile.getParentFile(), "download_state.dat");
+        // 항목마다 임시 파일이 다르므로 상태 파일도 임시 파일 이름으로 구분 (예: update.bin.tmp.ckpt)
+        this.store = new CheckpointStore(new File(tempFile.getParentFile(), tempFile.getName() + ".ckpt"),
+                CheckpointStore.DEFAULT_SLOT_SIZE);
+        this.encodeBuffer = ByteBuffer.allocate(store.getCapacity());
+
+        // 이전 버전의 직렬화 상태 파일은 더 이상 읽지 않음
+        File legacyFile = new File(tempFile.getParentFile(), "download_state.dat");
+        if (legacyFile.exists() && legacyFile.delete()) {
+            Log.d(TAG, "이전 형식 상태 파일 삭제");
+        }
     }
 
     // 다운로드 상태를 파일에 저장
     public synchronized void saveState(DownloadState state) {
-        FileOutputStream fos = null;
-        ObjectOutputStream oos = null;
-
         try {
-            SerializableDownloadState serializableState = new SerializableDownloadState(
-                    state.getDownloadId(),
-                    state.getDownloadedBytes(),
-                    state.getTotalBytes(),
-                    state.getLastUpdateTime(),
-                    state.isCompleted(),
-                    state.isCancelled()
-            );
-
-            fos = new FileOutputStream(stateFile);
-            oos = new ObjectOutputStream(fos);
-            oos.writeObject(serializableState);
-
-            Log.d(TAG, "다운로드 상태 저장 완료 ▶ " + state.getDownloadedBytes() + "/" + state.getTotalBytes());
-        } catch (IOException e) {
-            Log.e(TAG, "다운로드 상태 저장 중 오류 발생" , e);
-        } finally {
-            try {
-                if (oos != null) oos.close();
-                if (fos != null) fos.close();
-            } catch (IOException e) {
-                Log.e(TAG, "리소스 정리 중 오류 발생", e);
+            ByteBuffer out = encodeBuffer;
+            out.clear();
+
+            int flags = 0;
+            if (state.isCompleted()) flags |= FLAG_COMPLETED;
+            if (state.isCancelled()) flags |= FLAG_CANCELLED;
+            if (state.isSegmented()) flags |= FLAG_SEGMENTED;
+            if (state.getDigest() != null) flags |= FLAG_DIGEST;
+
+            // 순차 다운로드는 기록 위치 바로 앞부분의 검사값을 함께 저장 (복구 시 실제 파일과 비교)
+            long downloadedBytes = state.getDownloadedBytes();
+            int tailLength = state.isSegmented() ? 0 : (int) Math.min(tailCheckBytes, downloadedBytes);
+            long tailValue = 0;
+            if (tailLength > 0) {
+                tailValue = computeTailCrc(downloadedBytes - tailLength, tailLength);
+                if (tailValue >= 0) {
+                    flags |= FLAG_TAIL_CHECK;
+                }
             }
+
+            out.put((byte) FORMAT_VERSION);
+            out.putLong(downloadedBytes);
+            out.putLong(state.getTotalBytes());
+            out.put((byte) flags);
+            putString(out, state.getDownloadId());
+            putString(out, state.getManifestRoot());
+            putString(out, state.getEtag());
+            putString(out, state.getLastModified());
+            if (state.getDigest() != null) {
+                out.put(state.getDigest().saveState());
+            }
+            if ((flags & FLAG_TAIL_CHECK) != 0) {
+                out.putInt(tailLength);
+                out.putLong(tailValue);
+            }
+
+            long[] verifiedBlocks = state.getVerifiedBlocks().toLongArray();
+            out.putInt(verifiedBlocks.length);
+            for (long word : verifiedBlocks) {
+                out.putLong(word);
+            }
+
+            // 완료 구간은 가변 길이이므로 마지막에 기록 (공간이 모자라면 앞쪽 구간만 저장)
+            if (state.isSegmented()) {
+                RangeSet ranges = state.getCompletedRanges();
+                int written = ranges.writeTo(out);
+                if (written < ranges.getRangeCount()) {
+                    Log.w(TAG, "완료 구간 일부만 저장 ▶ " + written + "/" + ranges.getRangeCount());
+                }
+            }
+
+            out.flip();
+            store.write(out);
+
+            Log.d(TAG, "다운로드 상태 저장 완료 ▶ " + downloadedBytes + "/" + state.getTotalBytes());
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "다운로드 상태 저장 중 오류 발생" , e);
         }
     }
 
@@ -62,75 +120,198 @@ public class DownloadStateManager {
             return null;
         }
 
-        // 상태 파일 없으면 null
-        if (!stateFile.exists()) {
+        // 유효한 기록이 없으면 null
+        ByteBuffer in = store.read();
+        if (in == null) {
             return null;
         }
 
-        FileInputStream fis = null;
-        ObjectInputStream ois = null;
-
         try {
-            fis = new FileInputStream(stateFile);
-            ois = new ObjectInputStream(fis);
+            int version = in.get();
+            if (version != FORMAT_VERSION) {
+                Log.w(TAG, "형식이 다른 상태 기록 무시 ▶ " + version);
+                return null;
+            }
 
-            SerializableDownloadState serializableState = (SerializableDownloadState) ois.readObject();
             DownloadState state = new DownloadState();
-            state.setDownloadId(serializableState.downloadId);
-            state.setDownloadedBytes(serializableState.downloadedBytes);
-            state.setTotalBytes(serializableState.totalBytes);
-            // 추가 필드 복원
-            state.setCompleted(serializableState.isCompleted);
-            state.setCancelled(serializableState.isCancelled);
-
-            // 임시 파일 크기와 저장된 크기가 다르면 파일 손상으로 간주
-            if (tempFile.length() != state.getDownloadedBytes()) {
-                Log.w(TAG, "임시 파일 크기가 불일치함 ▶ " + tempFile.length() +
-                        ", 저장된 크기 ▶ " + state.getDownloadedBytes());
+            state.setDownloadedBytes(in.getLong());
+            state.setTotalBytes(in.getLong());
+            int flags = in.get();
+            state.setCompleted((flags & FLAG_COMPLETED) != 0);
+            state.setCancelled((flags & FLAG_CANCELLED) != 0);
+            state.setDownloadId(getString(in));
+            state.setManifestRoot(getString(in));
+            state.setEtag(getString(in));
+            state.setLastModified(getString(in));
+
+            // 해시 중간 상태 복원 (형식이 맞지 않으면 null -> 다운로드 시 다시 계산)
+            if ((flags & FLAG_DIGEST) != 0) {
+                byte[] digestState = new byte[ResumableSha256.STATE_SIZE];
+                in.get(digestState);
+                state.setDigest(ResumableSha256.restore(digestState));
+            }
+
+            // 끝부분 검사값 (없으면 길이 0)
+            int tailLength = 0;
+            long tailValue = 0;
+            if ((flags & FLAG_TAIL_CHECK) != 0) {
+                tailLength = in.getInt();
+                tailValue = in.getLong();
+            }
+
+            // 블록 검증 기록 복원
+            long[] verifiedBlocks = new long[in.getInt()];
+            for (int i = 0; i < verifiedBlocks.length; i++) {
+                verifiedBlocks[i] = in.getLong();
+            }
+            state.setVerifiedBlocks(BitSet.valueOf(verifiedBlocks));
+
+            if ((flags & FLAG_SEGMENTED) != 0) {
+                state.setCompletedRanges(RangeSet.readFrom(in));
+            }
+
+            // 임시 파일 크기나 끝부분이 기록과 다르면(비정상 종료 등) 버리지 않고 마지막 체크포인트 기준으로 맞춤
+            if (!reconcileTempFile(state, tailLength, tailValue)) {
                 return null;
             }
 
             Log.d(TAG, "다운로드 상태 로드 완료 ▶ " + state.getDownloadedBytes() + "/" + state.getTotalBytes());
             return state;
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             Log.e(TAG, "다운로드 상태 로드 중 오류 발생", e);
             return null;
-        } finally {
-            try {
-                if (ois != null) ois.close();
-                if (fis != null) fis.close();
-            } catch (IOException e) {
-                Log.e(TAG, "리소스 정리 중 오류 발생", e);
+        }
+    }
+
+    // 순차 다운로드 끝부분 검사 크기 설정 (저장 시 기록 위치 앞부분의 CRC를 남기고 복구 시 비교, 0이면 사용 안 함)
+    public synchronized void setTailCheckBytes(int tailCheckBytes) {
+        this.tailCheckBytes = Math.max(0, tailCheckBytes);
+    }
+
+    /**
+     * 임시 파일과 저장된 상태 맞추기
+     * 순차 다운로드: 파일이 기록보다 길면 기록 위치로 자르고, 짧으면 파일 끝까지만 인정
+     *   끝부분 검사값이 있으면 기록 위치 앞부분을 다시 읽어 비교하고, 다르면 그 구간을 버리고 다시 받음
+     *   파일이 기록보다 짧으면 검사할 구간이 없으므로 검사 크기만큼 잘라서 되돌림 (내용 확인 없음)
+     * 분할 다운로드: 파일 끝을 넘는 완료 구간은 제거하고 전체 크기로 다시 할당
+     *   끝부분 내용 확인은 매니페스트가 있을 때 BlockVerifier.verifyExisting()이 블록 단위로 수행
+     * 체크포인트는 force 이후에 저장되므로 기록 위치까지의 데이터는 디스크에 있음
+     *
+     * @param state 불러온 상태 (복구된 값으로 수정됨)
+     * @param tailLength 저장된 끝부분 검사 크기 (없으면 0)
+     * @param tailValue 저장된 끝부분 CRC
+     * @return 이어받기 가능 여부
+     */
+    private boolean reconcileTempFile(DownloadState state, int tailLength, long tailValue) {
+        long fileLength = tempFile.length();
+        long totalBytes = state.getTotalBytes();
+        long downloadedBytes = state.getDownloadedBytes();
+        long expectedLength = state.isSegmented() ? totalBytes : downloadedBytes;
+
+        // 크기가 맞더라도 순차 다운로드는 끝부분 내용을 확인
+        boolean tailValid = true;
+        if (!state.isSegmented() && tailLength > 0 && fileLength >= downloadedBytes) {
+            tailValid = computeTailCrc(downloadedBytes - tailLength, tailLength) == tailValue;
+            if (!tailValid) {
+                Log.w(TAG, "임시 파일 끝부분 불일치 ▶ " + (downloadedBytes - tailLength) + "~" + downloadedBytes);
             }
         }
+        if (fileLength == expectedLength && tailValid) {
+            return true;
+        }
+
+        Log.w(TAG, "임시 파일 크기 불일치, 복구 시도 ▶ 파일 " + fileLength + ", 기록 " + expectedLength);
+        if (totalBytes <= 0) {
+            return false;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+            if (state.isSegmented()) {
+                RangeSet ranges = state.getCompletedRanges();
+                long validLength = Math.min(fileLength, totalBytes);
+                ranges.remove(validLength, Long.MAX_VALUE);
+                raf.setLength(totalBytes);
+                state.setDownloadedBytes(ranges.getCoveredBytes());
+            } else {
+                long resumeAt;
+                if (fileLength >= downloadedBytes) {
+                    // 끝부분이 맞으면 기록 위치부터, 다르면 검사 구간 앞에서부터 이어받음
+                    resumeAt = tailValid ? downloadedBytes : downloadedBytes - tailLength;
+                } else {
+                    resumeAt = Math.max(0, fileLength - tailCheckBytes);
+                }
+                raf.setLength(resumeAt);
+                state.setDownloadedBytes(resumeAt);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "임시 파일 복구 중 오류 발생", e);
+            return false;
+        }
+
+        // 해시 중간 상태가 복구 위치보다 앞서면 사용할 수 없음 (다운로드 시 다시 계산)
+        long verifiedPrefix = state.isSegmented() ?
+                state.getCompletedRanges().getContiguousPrefix() : state.getDownloadedBytes();
+        if (state.getDigest() != null && state.getDigest().getByteCount() > verifiedPrefix) {
+            state.setDigest(null);
+        }
+
+        // 복구된 상태를 바로 저장해 파일과 기록을 일치시킴
+        saveState(state);
+        Log.d(TAG, "임시 파일 복구 완료 ▶ " + state.getDownloadedBytes() + "/" + totalBytes);
+        return true;
+    }
+
+    /**
+     * 임시 파일 일부의 CRC 계산
+     *
+     * @param position 시작 위치
+     * @param length 길이
+     * @return CRC 값, 파일을 읽지 못하면 -1
+     */
+    private long computeTailCrc(long position, int length) {
+        if (tailBuffer.length < length) {
+            tailBuffer = new byte[length];
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "r")) {
+            if (raf.length() < position + length) {
+                return -1;
+            }
+            raf.seek(position);
+            raf.readFully(tailBuffer, 0, length);
+        } catch (IOException e) {
+            Log.w(TAG, "임시 파일 끝부분 읽기 실패", e);
+            return -1;
+        }
+        tailCrc.reset();
+        tailCrc.update(tailBuffer, 0, length);
+        return tailCrc.getValue();
     }
 
     // 저장된 다운로드 상태 삭제
     public synchronized void clearState() {
-        if (stateFile.exists() && stateFile.delete()) {
-            Log.d(TAG, "다운로드 상태 파일 삭제 완료");
+        store.clear();
+        Log.d(TAG, "다운로드 상태 파일 삭제 완료");
+    }
+
+    // 길이(short) + UTF-8 바이트로 문자열 기록, null은 길이 -1
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) -1);
+            return;
         }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
     }
 
-    // 직렬화를 위한 내부 클래스
-    private static class SerializableDownloadState implements Serializable {
-        private static final long serialVersionUID = 2L; // 버전 증가
-
-        String downloadId;
-        long downloadedBytes;
-        long totalBytes;
-        long lastUpdateTime;
-        boolean isCompleted;
-        boolean isCancelled;
-
-        SerializableDownloadState(String downloadId, long downloadedBytes, long totalBytes,
-                                  long lastUpdateTime, boolean isCompleted, boolean isCancelled) {
-            this.downloadId = downloadId;
-            this.downloadedBytes = downloadedBytes;
-            this.totalBytes = totalBytes;
-            this.lastUpdateTime = lastUpdateTime;
-            this.isCompleted = isCompleted;
-            this.isCancelled = isCancelled;
+    // putString()으로 기록한 문자열 읽기
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
         }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
     }
 }
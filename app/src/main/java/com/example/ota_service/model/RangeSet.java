@@ -0,0 +1,208 @@
+package com.example.ota_service.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 다운로드 완료된 바이트 구간 집합 관리 클래스
+// 구간은 [start, end) 형태이며 항상 정렬 + 병합된 상태로 유지함
+public class RangeSet {
+    private long[] starts;
+    private long[] ends;
+    private int size;
+
+    // 기본 생성자
+    public RangeSet() {
+        this.starts = new long[8];
+        this.ends = new long[8];
+        this.size = 0;
+    }
+
+    /**
+     * 완료 구간 추가 (인접/겹치는 구간은 병합)
+     *
+     * @param start 시작 위치(포함)
+     * @param end 끝 위치(미포함)
+     */
+    public synchronized void add(long start, long end) {
+        if (end <= start) return;
+
+        // 대부분의 호출은 마지막으로 쓴 구간을 연장하는 경우이므로 먼저 확인
+        int index = findFirstEndingAtOrAfter(start);
+        if (index < size && starts[index] <= end) {
+            // 기존 구간과 겹치거나 맞닿음 -> 병합
+            starts[index] = Math.min(starts[index], start);
+            long newEnd = Math.max(ends[index], end);
+
+            // 뒤쪽 구간까지 덮는 경우 연쇄 병합
+            int last = index;
+            while (last + 1 < size && starts[last + 1] <= newEnd) {
+                last++;
+                newEnd = Math.max(newEnd, ends[last]);
+            }
+            ends[index] = newEnd;
+
+            int removed = last - index;
+            if (removed > 0) {
+                System.arraycopy(starts, last + 1, starts, index + 1, size - last - 1);
+                System.arraycopy(ends, last + 1, ends, index + 1, size - last - 1);
+                size -= removed;
+            }
+            return;
+        }
+
+        // 새 구간 삽입
+        ensureCapacity(size + 1);
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        starts[index] = start;
+        ends[index] = end;
+        size++;
+    }
+
+    /**
+     * 구간 제거 (블록 재다운로드 등)
+     *
+     * @param start 시작 위치(포함)
+     * @param end 끝 위치(미포함)
+     */
+    public synchronized void remove(long start, long end) {
+        if (end <= start) return;
+
+        RangeSet result = new RangeSet();
+        for (int i = 0; i < size; i++) {
+            if (ends[i] <= start || starts[i] >= end) {
+                result.add(starts[i], ends[i]);
+            } else {
+                if (starts[i] < start) result.add(starts[i], start);
+                if (ends[i] > end) result.add(end, ends[i]);
+            }
+        }
+        this.starts = result.starts;
+        this.ends = result.ends;
+        this.size = result.size;
+    }
+
+    // 해당 구간 전체가 완료되었는지 확인
+    public synchronized boolean contains(long start, long end) {
+        if (end <= start) return true;
+        int index = findFirstEndingAtOrAfter(start + 1);
+        return index < size && starts[index] <= start && ends[index] >= end;
+    }
+
+    // 완료된 전체 바이트 수 반환
+    public synchronized long getCoveredBytes() {
+        long covered = 0;
+        for (int i = 0; i < size; i++) {
+            covered += ends[i] - starts[i];
+        }
+        return covered;
+    }
+
+    // 0부터 연속으로 완료된 길이 반환
+    public synchronized long getContiguousPrefix() {
+        if (size == 0 || starts[0] > 0) return 0;
+        return ends[0];
+    }
+
+    // 구간 개수 반환
+    public synchronized int getRangeCount() {
+        return size;
+    }
+
+    // 모두 비움
+    public synchronized void clear() {
+        size = 0;
+    }
+
+    /**
+     * [0, totalBytes) 중 아직 받지 못한 구간 목록 반환
+     *
+     * @param totalBytes 전체 파일 크기
+     * @return {start, end} 배열 리스트
+     */
+    public synchronized List<long[]> getMissingRanges(long totalBytes) {
+        List<long[]> missing = new ArrayList<>();
+        long cursor = 0;
+        for (int i = 0; i < size && cursor < totalBytes; i++) {
+            if (starts[i] > cursor) {
+                missing.add(new long[] { cursor, Math.min(starts[i], totalBytes) });
+            }
+            cursor = Math.max(cursor, ends[i]);
+        }
+        if (cursor < totalBytes) {
+            missing.add(new long[] { cursor, totalBytes });
+        }
+        return missing;
+    }
+
+    /**
+     * 구간 개수와 구간들을 버퍼에 기록 (공간이 부족하면 앞쪽 구간만 기록)
+     * 뒤쪽 구간이 빠지면 해당 부분을 다시 받게 될 뿐이므로 완료 범위를 부풀리지는 않음
+     *
+     * @param out 대상 버퍼
+     * @return 기록한 구간 수
+     */
+    public synchronized int writeTo(ByteBuffer out) {
+        int count = Math.min(size, Math.max(0, (out.remaining() - 4) / 16));
+        out.putInt(count);
+        for (int i = 0; i < count; i++) {
+            out.putLong(starts[i]);
+            out.putLong(ends[i]);
+        }
+        return count;
+    }
+
+    // writeTo()로 기록한 버퍼로부터 복원
+    public static RangeSet readFrom(ByteBuffer in) {
+        RangeSet set = new RangeSet();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            set.add(in.getLong(), in.getLong());
+        }
+        return set;
+    }
+
+    // 복사본 생성
+    public synchronized RangeSet copy() {
+        RangeSet copy = new RangeSet();
+        copy.starts = Arrays.copyOf(starts, Math.max(size, 8));
+        copy.ends = Arrays.copyOf(ends, Math.max(size, 8));
+        copy.size = size;
+        return copy;
+    }
+
+    // end > position 을 만족하는 첫 구간 인덱스 (이진 탐색)
+    private int findFirstEndingAtOrAfter(long position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int newLength = Math.max(capacity, starts.length * 2);
+            starts = Arrays.copyOf(starts, newLength);
+            ends = Arrays.copyOf(ends, newLength);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(starts[i]).append('-').append(ends[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ota_service.network;
+
+import android.util.Log;
+
+import java.io.InterruptedIOException;
+
+// 토큰 버킷 방식의 다운로드 속도 제한 클래스
+// 읽은 만큼 토큰을 차감하고, 부족하면 채워질 때까지 읽기 스레드를 대기시킴
+// 읽기를 늦추면 TCP 수신 윈도우로 서버 송신 속도도 함께 줄어들므로 연결을 끊지 않고 속도만 바뀜
+// 여러 연결(분할 다운로드)이 하나를 공유하면 전체 속도가 제한됨
+public class BandwidthShaper {
+    private static final String TAG = BandwidthShaper.class.getSimpleName();
+
+    public static final long UNLIMITED = 0;
+    private static final long BURST_MS = 250;                // 최대 누적 토큰 = 0.25초 분량
+    private static final long MIN_BURST_BYTES = 64 * 1024;   // 버퍼 하나는 한 번에 통과할 수 있도록
+
+    private long bytesPerSecond = UNLIMITED;
+    private long burstBytes = MIN_BURST_BYTES;
+    private double tokens = 0;
+    private long lastRefillTime = System.nanoTime();
+
+    /**
+     * 속도 제한 변경 (진행 중인 다운로드에도 즉시 적용)
+     *
+     * @param bytesPerSecond 초당 최대 바이트 수 (0 이하면 제한 없음)
+     */
+    public synchronized void setRate(long bytesPerSecond) {
+        long rate = Math.max(UNLIMITED, bytesPerSecond);
+        if (rate == this.bytesPerSecond) {
+            return;
+        }
+
+        refill();
+        this.bytesPerSecond = rate;
+        this.burstBytes = Math.max(MIN_BURST_BYTES, rate * BURST_MS / 1000);
+        tokens = Math.min(tokens, burstBytes);
+
+        Log.d(TAG, "속도 제한 변경 ▶ " + (rate == UNLIMITED ? "제한 없음" : rate + " bytes/s"));
+        // 대기 중인 스레드가 새 속도로 다시 계산하도록 깨움
+        notifyAll();
+    }
+
+    // 현재 속도 제한 반환 (0이면 제한 없음)
+    public synchronized long getRate() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * 읽은 바이트만큼 토큰 사용 (부족하면 다음 읽기 전에 채워질 때까지 대기)
+     *
+     * @param bytes 읽은 바이트 수
+     * @throws InterruptedIOException 대기 중 인터럽트 시
+     */
+    public synchronized void acquire(int bytes) throws InterruptedIOException {
+        if (bytesPerSecond == UNLIMITED) {
+            return;
+        }
+
+        refill();
+        tokens -= bytes;
+
+        // 토큰이 음수(빚)인 동안 대기, 속도가 바뀌면 깨어나서 다시 계산
+        while (tokens < 0 && bytesPerSecond != UNLIMITED) {
+            long waitMs = Math.max(1, (long) Math.ceil(-tokens * 1000 / bytesPerSecond));
+            try {
+                wait(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("속도 제한 대기 중 인터럽트");
+            }
+            refill();
+        }
+        if (bytesPerSecond == UNLIMITED) {
+            tokens = 0;
+        }
+    }
+
+    // 경과 시간만큼 토큰 보충
+    private void refill() {
+        long now = System.nanoTime();
+        if (bytesPerSecond != UNLIMITED) {
+            tokens = Math.min(burstBytes, tokens + (now - lastRefillTime) * bytesPerSecond / 1e9);
+        }
+        lastRefillTime = now;
+    }
+
+    /**
+     * 앱 사용 중에는 지정 속도로 제한하고 백그라운드에서는 제한 없이 받는 정책
+     *
+     * @param foregroundRate 포그라운드 속도 제한(bytes/s)
+     * @return 정책
+     */
+    public static Policy foregroundLimited(final long foregroundRate) {
+        return appInForeground -> appInForeground ? foregroundRate : UNLIMITED;
+    }
+
+    // 앱 상태에 따른 속도 제한 정책
+    public interface Policy {
+        long getRateLimit(boolean appInForeground);
+    }
+}
@@ -1,35 +1,186 @@
 package com.example.ota_service.network;
 
+import android.content.Context;
 import android.util.Log;
 
 import com.example.ota_service.R;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import javax.net.SocketFactory;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 // HTTP 통신 처리용 네트워크 클래스
+// OkHttpClient는 프로세스 전체에서 하나만 사용 - DownloadManager가 새로 만들어지거나 이어받기를 해도
+// 연결 풀의 유휴 연결과 TLS 세션이 그대로 남아 DNS/TCP/TLS 핸드셰이크를 다시 하지 않음
+// HTTP/2 서버에는 같은 호스트의 요청이 연결 하나에 스트림으로 다중화되고,
+// withSeparateConnections()는 HTTP/1.1만 사용해 요청마다 별도 TCP 연결을 사용
 public class ConnectionManager {
     private static final String TAG = ConnectionManager.class.getSimpleName();
-    private final OkHttpClient client;
 
-    // ConnectionManager 생성자
+    private static final int MAX_IDLE_CONNECTIONS = 16;     // 분할 연결 + 헤징 연결을 모두 유휴 상태로 보관
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final String DNS_CACHE_FILE = "dns_cache.bin";
+
+    private static OkHttpClient sharedClient;
+    private static OkHttpClient http1Client;        // 공용 클라이언트와 연결 풀을 같이 쓰는 HTTP/1.1 전용 클라이언트
+    private static int socketReceiveBufferSize = 0; // 0이면 OS 자동 조절
+
+    private final boolean separateConnections;
+
+    // ConnectionManager 생성자 (시스템 DNS 사용)
     public ConnectionManager() {
-        HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message -> Log.v(TAG, "OKHTTP ▶ " + message));
-        logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
-
-        // Okhttp 클라이언트 생성 - 타임아웃 설정
-        client = new OkHttpClient.Builder()
-                .addInterceptor(logging)
-                .connectTimeout(15, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .retryOnConnectionFailure(true)
-                .build();
+        this(null);
+    }
+
+    /**
+     * ConnectionManager 생성자 - 공용 클라이언트를 처음 만들 때 DNS 캐시를 함께 설정
+     *
+     * @param context DNS 캐시 파일을 둘 앱 컨텍스트
+     */
+    public ConnectionManager(Context context) {
+        getSharedClient(context);
+        this.separateConnections = false;
+    }
+
+    private ConnectionManager(boolean separateConnections) {
+        this.separateConnections = separateConnections;
+    }
+
+    /**
+     * HTTP/2 다중화 없이 요청마다 별도 TCP 연결을 사용하는 ConnectionManager 반환
+     * 연결 하나의 혼잡 제어/손실에 모든 구간이 묶이는 것을 피하고 싶을 때 사용 (연결 풀은 공유)
+     *
+     * @return 별도 연결용 ConnectionManager
+     */
+    public ConnectionManager withSeparateConnections() {
+        return separateConnections ? this : new ConnectionManager(true);
+    }
+
+    // 프로세스 공용 OkHttpClient 반환 (처음 호출 시 생성)
+    public static OkHttpClient getSharedClient() {
+        return getSharedClient(null);
+    }
+
+    // 프로세스 공용 OkHttpClient 반환 (처음 호출 시 생성, context가 있으면 DNS 캐시 사용)
+    private static synchronized OkHttpClient getSharedClient(Context context) {
+        if (sharedClient == null) {
+            HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message -> Log.v(TAG, "OKHTTP ▶ " + message));
+            logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
+
+            // Okhttp 클라이언트 생성 - 타임아웃 및 연결 풀 설정
+            // (HTTP/2, HTTP/1.1 모두 허용 - 서버와 ALPN으로 협상)
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .addInterceptor(logging)
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .connectTimeout(15, TimeUnit.SECONDS)
+                    .readTimeout(30, TimeUnit.SECONDS)
+                    .writeTimeout(30, TimeUnit.SECONDS)
+                    .retryOnConnectionFailure(true);
+            if (socketReceiveBufferSize > 0) {
+                builder.socketFactory(new ReceiveBufferSocketFactory(socketReceiveBufferSize));
+            }
+
+            // 재시작 후에도 DNS 조회 없이 바로 연결하도록 조회 결과를 캐시 디렉토리에 보관
+            if (context != null) {
+                DnsCache dnsCache = new DnsCache(new File(context.getCacheDir(), DNS_CACHE_FILE));
+                builder.dns(dnsCache)
+                        .eventListenerFactory(dnsCache.getEventListenerFactory());
+            }
+            sharedClient = builder.build();
+        } else if (context != null && !(sharedClient.dns() instanceof DnsCache)) {
+            Log.w(TAG, "공용 클라이언트가 이미 생성되어 DNS 캐시를 적용하지 않음");
+        }
+        return sharedClient;
+    }
+
+    // HTTP/1.1 전용 클라이언트 반환 (연결 풀, DNS, 타임아웃은 공용 클라이언트와 같음)
+    private static synchronized OkHttpClient getHttp1Client() {
+        if (http1Client == null) {
+            http1Client = getSharedClient().newBuilder()
+                    .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                    .build();
+        }
+        return http1Client;
+    }
+
+    /**
+     * TCP 수신 버퍼 크기 설정 (새로 여는 연결부터 적용)
+     * 대역폭 x 지연이 큰 회선에서 수신 윈도우가 처리량을 막지 않도록 키울 때 사용
+     * 값을 지정하면 OS의 수신 버퍼 자동 조절이 꺼지므로 기본은 0(자동 조절)
+     * HTTP/2 스트림/연결 흐름 제어 윈도우는 OkHttp가 16MB로 고정 (공개 API 없음)
+     *
+     * @param bytes 수신 버퍼 크기 (0이면 OS 기본값)
+     */
+    public static synchronized void setSocketReceiveBufferSize(int bytes) {
+        int size = Math.max(0, bytes);
+        if (size == socketReceiveBufferSize) {
+            return;
+        }
+        socketReceiveBufferSize = size;
+        if (sharedClient != null) {
+            // 기존 연결 풀과 설정은 그대로 두고 소켓 생성 방식만 교체
+            sharedClient = sharedClient.newBuilder()
+                    .socketFactory(size > 0 ? new ReceiveBufferSocketFactory(size) : SocketFactory.getDefault())
+                    .build();
+            http1Client = null;
+        }
+        Log.d(TAG, "TCP 수신 버퍼 ▶ " + (size > 0 ? size + " bytes" : "자동"));
+    }
+
+    // 현재 요청에 사용할 클라이언트
+    private OkHttpClient client() {
+        return separateConnections ? getHttp1Client() : getSharedClient();
+    }
+
+    /**
+     * 연결 미리 수립 - 백그라운드에서 HEAD 요청을 보내 DNS 조회, TCP/TLS 연결을 끝내 두고 연결 풀에 남김
+     * 이후 첫 GET 요청은 풀의 연결을 바로 사용하므로 첫 바이트까지의 시간이 줄어듦
+     *
+     * @param url 연결할 URL
+     */
+    public void prewarm(String url) {
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(url)
+                    .head()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "연결 미리 수립 건너뜀 ▶ 잘못된 URL " + url);
+            return;
+        }
+
+        client().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                Log.d(TAG, "연결 미리 수립 완료 ▶ " + request.url().host() + " (" + response.protocol() + ")");
+                response.close();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // 실패해도 다운로드 시 다시 연결하므로 로그만 남김
+                Log.w(TAG, "연결 미리 수립 실패 ▶ " + request.url().host() + ", " + e.getMessage());
+            }
+        });
     }
 
     /**
@@ -42,16 +193,131 @@ public class ConnectionManager {
      */
 
     public Response connect(String url, long rangeStart) throws IOException {
+        return newCall(url, rangeStart).execute();
+    }
+
+    /**
+     * 이어받기 요청 Call 생성 (취소가 필요한 경우 Call을 직접 보관)
+     *
+     * @param url 연결할 url
+     * @param rangeStart 이어받기를 위한 시작 위치(0이면 처음부터)
+     * @return 실행 전 Call 객체
+     */
+    public Call newCall(String url, long rangeStart) {
+        return newCall(url, rangeStart, null);
+    }
+
+    /**
+     * 이어받기 요청 Call 생성 - 검증값이 있으면 If-Range를 붙여 서버 파일이 바뀐 경우 전체 파일(200)을 받음
+     *
+     * @param url 연결할 url
+     * @param rangeStart 이어받기를 위한 시작 위치(0이면 처음부터)
+     * @param ifRange 저장된 ETag 또는 Last-Modified (null이면 조건 없이 요청)
+     * @return 실행 전 Call 객체
+     */
+    public Call newCall(String url, long rangeStart, String ifRange) {
         Request.Builder requestBuilder = new Request.Builder().url(url);
 
         // range 헤더 추가
         if (rangeStart > 0) {
             requestBuilder.addHeader("Range", "bytes=" + rangeStart + "-");
-            Log.d(TAG, "이어받기 요청 ▶ " + rangeStart + " 바이트부터");
+            if (ifRange != null) {
+                requestBuilder.addHeader("If-Range", ifRange);
+            }
+            Log.d(TAG, "이어받기 요청 ▶ " + rangeStart + " 바이트부터" + (ifRange != null ? " (If-Range)" : ""));
         }
 
         Request request = requestBuilder.build();
-        return client.newCall(request).execute();
+        return client().newCall(request);
+    }
+
+    /**
+     * 구간 요청 Call 생성 (취소가 필요한 경우 Call을 직접 보관)
+     *
+     * @param url 연결할 url
+     * @param rangeStart 구간 시작 위치
+     * @param rangeEnd 구간 끝 위치(포함), -1이면 파일 끝까지
+     * @return 실행 전 Call 객체
+     */
+    public Call newRangeCall(String url, long rangeStart, long rangeEnd) {
+        return newRangeCall(url, rangeStart, rangeEnd, null);
+    }
+
+    /**
+     * 구간 요청 Call 생성 - 검증값이 있으면 If-Range를 붙여 서버 파일이 바뀐 경우 섞이지 않게 함
+     *
+     * @param url 연결할 url
+     * @param rangeStart 구간 시작 위치
+     * @param rangeEnd 구간 끝 위치(포함), -1이면 파일 끝까지
+     * @param ifRange 저장된 ETag 또는 Last-Modified (null이면 조건 없이 요청)
+     * @return 실행 전 Call 객체
+     */
+    public Call newRangeCall(String url, long rangeStart, long rangeEnd, String ifRange) {
+        String range = "bytes=" + rangeStart + "-" + (rangeEnd >= 0 ? String.valueOf(rangeEnd) : "");
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .addHeader("Range", range);
+        if (ifRange != null) {
+            requestBuilder.addHeader("If-Range", ifRange);
+        }
+        return client().newCall(requestBuilder.build());
+    }
+
+    /**
+     * 여러 구간을 한 번에 요청하는 Call 생성 (Range: bytes=a-b,c-d,...)
+     * 지원하는 서버는 206 multipart/byteranges로 응답하고, 지원하지 않으면 200(전체 파일)이나 단일 구간으로 응답
+     *
+     * @param url 연결할 url
+     * @param ranges 요청할 구간 목록 {시작, 끝(미포함)}
+     * @param ifRange 저장된 ETag 또는 Last-Modified (null이면 조건 없이 요청)
+     * @return 실행 전 Call 객체
+     */
+    public Call newMultiRangeCall(String url, List<long[]> ranges, String ifRange) {
+        StringBuilder range = new StringBuilder("bytes=");
+        for (int i = 0; i < ranges.size(); i++) {
+            if (i > 0) {
+                range.append(',');
+            }
+            range.append(ranges.get(i)[0]).append('-').append(ranges.get(i)[1] - 1);
+        }
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .addHeader("Range", range.toString());
+        if (ifRange != null) {
+            requestBuilder.addHeader("If-Range", ifRange);
+        }
+        return client().newCall(requestBuilder.build());
+    }
+
+    /**
+     * 응답에서 이어받기 검증값 추출 (강한 ETag 우선, 없으면 Last-Modified)
+     * 약한 ETag(W/)는 If-Range에 사용할 수 없으므로 제외
+     *
+     * @param response 서버 응답
+     * @return 검증값, 없으면 null
+     */
+    public static String getValidator(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    /**
+     * 응답이 저장된 검증값과 같은 파일인지 확인 (ETag 또는 Last-Modified 중 하나가 같으면 같은 파일)
+     *
+     * @param response 서버 응답
+     * @param validator 저장된 검증값 (null이면 확인하지 않음)
+     * @return 같은 파일이거나 비교할 값이 없으면 true
+     */
+    public static boolean matchesValidator(Response response, String validator) {
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if (validator == null || (etag == null && lastModified == null)) {
+            return true;
+        }
+        return validator.equals(etag) || validator.equals(lastModified);
     }
 
     /**
@@ -67,11 +333,12 @@ public class ConnectionManager {
                 .url(url)
                 .head()
                 .build();
-        return client.newCall(request).execute();
+        return client().newCall(request).execute();
     }
 
     /**
      * 서버 상태 및 가용성 체크(Availability)
+     * 다운로드 경로에서는 사용하지 않음 (GET 응답 자체로 가용성을 판단해 HEAD 왕복을 줄임)
      *
      * @param url 체크할 URL
      * @return 서버가 정상이면 true, 아니면 false
@@ -84,7 +351,7 @@ public class ConnectionManager {
                     .head() // HEAD 요청
                     .build();
 
-            Response response = client.newCall(request).execute();
+            Response response = client().newCall(request).execute();
             boolean isSuccess = response.isSuccessful();
             response.close();
 
@@ -108,7 +375,7 @@ public class ConnectionManager {
                     .head()
                     .build();
 
-            Response response = client.newCall(request).execute();
+            Response response = client().newCall(request).execute();
             int code = response.code();
             response.close();
 
@@ -119,12 +386,88 @@ public class ConnectionManager {
         }
     }
 
+    // HTTP 오류 응답 (5xx, 408, 429는 잠시 후 다시 시도할 수 있음)
+    public static class HttpStatusException extends IOException {
+        private final int code;
+
+        public HttpStatusException(String message, int code) {
+            super(message + " ▶ " + code);
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public boolean isRetryable() {
+            return code >= 500 || code == 408 || code == 429;
+        }
+    }
+
+    // If-Range 검증값이 맞지 않아 서버가 전체 파일을 보냄 (서버 파일이 바뀜, 처음부터 다시 받아야 함)
+    public static class ResourceChangedException extends IOException {
+        public ResourceChangedException(String message) {
+            super(message);
+        }
+    }
+
     /**
      * OkHttpClient 인스턴스 반환
      *
      * @return OkHttpClient 인스턴스
      */
     public OkHttpClient getClient() {
-        return client;
+        return client();
+    }
+
+    // 연결 전에 수신 버퍼 크기를 지정하는 소켓 팩토리 (윈도우 스케일은 연결 시점에 정해지므로 연결 전에 설정)
+    private static class ReceiveBufferSocketFactory extends SocketFactory {
+        private final SocketFactory delegate = SocketFactory.getDefault();
+        private final int receiveBufferSize;
+
+        ReceiveBufferSocketFactory(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            Socket socket = configure(delegate.createSocket());
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            Socket socket = configure(delegate.createSocket());
+            socket.bind(new InetSocketAddress(localHost, localPort));
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            Socket socket = configure(delegate.createSocket());
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+                throws IOException {
+            Socket socket = configure(delegate.createSocket());
+            socket.bind(new InetSocketAddress(localAddress, localPort));
+            socket.connect(new InetSocketAddress(address, port));
+            return socket;
+        }
+
+        private Socket configure(Socket socket) throws IOException {
+            socket.setReceiveBufferSize(receiveBufferSize);
+            return socket;
+        }
     }
 }
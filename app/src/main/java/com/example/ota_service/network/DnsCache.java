@@ -0,0 +1,326 @@
+package com.example.ota_service.network;
+
+import android.util.Log;
+
+import com.example.ota_service.model.CheckpointStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.UnknownHostException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Call;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+// 조회 결과를 메모리와 디스크에 보관하는 DNS 캐시 (OkHttp Dns 구현)
+// 서비스가 다시 시작되어도 디스크에 남은 주소로 바로 연결을 시작해 첫 바이트까지의 시간을 줄임
+// 유효 시간이 지난 주소도 최대 보관 시간 안이면 즉시 돌려주고 백그라운드에서 다시 조회 (stale-while-revalidate)
+// 주소마다 실제 연결 시간(TCP + TLS)을 측정해서 빠른 주소를 앞에 둠
+// Java의 InetAddress는 DNS 응답의 TTL을 알려주지 않으므로 유효 시간은 고정값 사용
+public class DnsCache implements Dns {
+    private static final String TAG = DnsCache.class.getSimpleName();
+
+    public static final long DEFAULT_TTL_MS = 60 * 1000;                // 이 시간 안의 기록은 그대로 사용
+    public static final long DEFAULT_MAX_STALE_MS = 24 * 60 * 60 * 1000; // 이 시간까지는 오래된 기록을 쓰면서 다시 조회
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int SLOT_SIZE = 4 * 1024;
+    private static final int MAX_ENTRIES = 32;
+    private static final long SAVE_DELAY_MS = 2000;         // 연결 시간 기록이 몰릴 때 한 번에 저장
+    private static final long FAILURE_PENALTY_MS = 10000;   // 연결 실패한 주소에 매기는 연결 시간
+    private static final double LATENCY_WEIGHT = 0.3;       // 새 측정값 반영 비율 (지수 이동 평균)
+
+    private final Dns delegate;
+    private final CheckpointStore store;
+    private final long ttlMs;
+    private final long maxStaleMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();    // 주소 문자열 -> 평균 연결 시간(ms)
+    private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final AtomicBoolean savePending = new AtomicBoolean(false);
+    private final ScheduledExecutorService executor;
+
+    private boolean loaded = false;
+
+    /**
+     * DnsCache 생성자 (시스템 DNS 사용, 기본 유효 시간)
+     *
+     * @param cacheFile 조회 결과를 저장할 파일
+     */
+    public DnsCache(File cacheFile) {
+        this(Dns.SYSTEM, cacheFile, DEFAULT_TTL_MS, DEFAULT_MAX_STALE_MS);
+    }
+
+    /**
+     * DnsCache 생성자
+     *
+     * @param delegate 실제 조회에 사용할 Dns
+     * @param cacheFile 조회 결과를 저장할 파일
+     * @param ttlMs 다시 조회하지 않고 사용할 시간(ms)
+     * @param maxStaleMs 오래된 기록을 바로 사용하면서 백그라운드로 다시 조회할 최대 시간(ms)
+     */
+    public DnsCache(Dns delegate, File cacheFile, long ttlMs, long maxStaleMs) {
+        this.delegate = delegate;
+        this.store = new CheckpointStore(cacheFile, SLOT_SIZE);
+        this.ttlMs = ttlMs;
+        this.maxStaleMs = Math.max(ttlMs, maxStaleMs);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ota-dns");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        ensureLoaded();
+
+        Entry entry = entries.get(hostname);
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.resolvedAt;
+            if (age >= 0 && age < ttlMs) {
+                return rank(entry.addresses);
+            }
+            if (age >= 0 && age < maxStaleMs) {
+                // 오래된 기록은 바로 쓰고 새 주소는 다음 연결부터 사용
+                refreshAsync(hostname);
+                return rank(entry.addresses);
+            }
+        }
+
+        try {
+            return rank(resolve(hostname));
+        } catch (UnknownHostException e) {
+            if (entry != null) {
+                // 조회 실패 시 보관 시간이 지났더라도 마지막 주소로 시도
+                Log.w(TAG, "DNS 조회 실패, 이전 주소 사용 ▶ " + hostname);
+                return rank(entry.addresses);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 연결 시간 측정용 EventListener 팩토리 (OkHttpClient.Builder.eventListenerFactory에 등록)
+     *
+     * @return 요청마다 측정용 리스너를 만드는 팩토리
+     */
+    public EventListener.Factory getEventListenerFactory() {
+        return call -> new LatencyListener();
+    }
+
+    // 실제 DNS 조회 후 기록
+    private List<InetAddress> resolve(String hostname) throws UnknownHostException {
+        List<InetAddress> addresses = delegate.lookup(hostname);
+        if (addresses.isEmpty()) {
+            throw new UnknownHostException("주소 없음 ▶ " + hostname);
+        }
+        entries.put(hostname, new Entry(new ArrayList<>(addresses), System.currentTimeMillis()));
+        scheduleSave();
+        return addresses;
+    }
+
+    // 백그라운드 재조회 (호스트마다 하나만 진행)
+    private void refreshAsync(String hostname) {
+        if (!refreshing.add(hostname)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                resolve(hostname);
+                Log.d(TAG, "DNS 재조회 완료 ▶ " + hostname);
+            } catch (UnknownHostException e) {
+                Log.w(TAG, "DNS 재조회 실패 ▶ " + hostname + ", " + e.getMessage());
+            } finally {
+                refreshing.remove(hostname);
+            }
+        });
+    }
+
+    // 측정된 연결 시간이 짧은 순서로 정렬 (측정 전 주소는 조회 순서대로 뒤에 둠)
+    private List<InetAddress> rank(List<InetAddress> addresses) {
+        List<InetAddress> ranked = new ArrayList<>(addresses);
+        Collections.sort(ranked, (a, b) -> Long.compare(getLatency(a), getLatency(b)));
+        return ranked;
+    }
+
+    private long getLatency(InetAddress address) {
+        Long latency = latencies.get(address.getHostAddress());
+        return latency != null ? latency : Long.MAX_VALUE;
+    }
+
+    // 연결 시간 측정값 반영
+    private void recordLatency(InetAddress address, long elapsedMs) {
+        if (address == null) {
+            return;
+        }
+        String key = address.getHostAddress();
+        Long previous = latencies.get(key);
+        long average = previous == null ? elapsedMs
+                : Math.round(previous * (1 - LATENCY_WEIGHT) + elapsedMs * LATENCY_WEIGHT);
+        latencies.put(key, average);
+        scheduleSave();
+    }
+
+    // 처음 조회할 때 디스크 기록 불러오기
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        ByteBuffer in = store.read();
+        if (in == null) {
+            return;
+        }
+        try {
+            int version = in.get();
+            if (version != FORMAT_VERSION) {
+                Log.w(TAG, "형식이 다른 DNS 기록 무시 ▶ " + version);
+                return;
+            }
+            int count = in.get();
+            for (int i = 0; i < count; i++) {
+                String hostname = getString(in);
+                long resolvedAt = in.getLong();
+                int addressCount = in.get();
+                List<InetAddress> addresses = new ArrayList<>(addressCount);
+                for (int j = 0; j < addressCount; j++) {
+                    byte[] raw = new byte[in.get()];
+                    in.get(raw);
+                    int latency = in.getInt();
+                    InetAddress address = InetAddress.getByAddress(hostname, raw);
+                    addresses.add(address);
+                    if (latency >= 0) {
+                        latencies.put(address.getHostAddress(), (long) latency);
+                    }
+                }
+                entries.put(hostname, new Entry(addresses, resolvedAt));
+            }
+            Log.d(TAG, "DNS 기록 복원 ▶ " + entries.size() + "개 호스트");
+        } catch (RuntimeException | UnknownHostException e) {
+            Log.e(TAG, "DNS 기록 읽기 실패", e);
+            entries.clear();
+            latencies.clear();
+        }
+    }
+
+    // 변경 사항을 잠시 모았다가 저장
+    private void scheduleSave() {
+        if (savePending.compareAndSet(false, true)) {
+            executor.schedule(this::save, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 디스크에 기록 (최근에 조회한 호스트부터, 공간이 모자라면 나머지는 버림)
+    private void save() {
+        savePending.set(false);
+
+        List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.getValue().resolvedAt, a.getValue().resolvedAt));
+
+        ByteBuffer out = ByteBuffer.allocate(store.getCapacity());
+        out.put((byte) FORMAT_VERSION);
+        int countPosition = out.position();
+        out.put((byte) 0);
+
+        int count = 0;
+        for (Map.Entry<String, Entry> item : sorted) {
+            if (count >= MAX_ENTRIES) {
+                break;
+            }
+            int start = out.position();
+            try {
+                putString(out, item.getKey());
+                out.putLong(item.getValue().resolvedAt);
+                List<InetAddress> addresses = item.getValue().addresses;
+                out.put((byte) addresses.size());
+                for (InetAddress address : addresses) {
+                    byte[] raw = address.getAddress();
+                    Long latency = latencies.get(address.getHostAddress());
+                    out.put((byte) raw.length);
+                    out.put(raw);
+                    out.putInt(latency != null ? (int) Math.min(Integer.MAX_VALUE, latency) : -1);
+                }
+                count++;
+            } catch (BufferOverflowException e) {
+                out.position(start);
+                break;
+            }
+        }
+        out.put(countPosition, (byte) count);
+        out.flip();
+
+        try {
+            store.write(out);
+        } catch (IOException e) {
+            Log.e(TAG, "DNS 기록 저장 실패", e);
+        }
+    }
+
+    // 길이(short) + UTF-8 바이트로 문자열 기록
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    // putString()으로 기록한 문자열 읽기
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 호스트 하나의 조회 결과
+    private static class Entry {
+        final List<InetAddress> addresses;
+        final long resolvedAt;  // 조회 시각 (재시작 후에도 비교하도록 벽시계 기준)
+
+        Entry(List<InetAddress> addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    // 요청 하나의 연결 시간 측정 (OkHttp 4.x는 경로를 하나씩 순서대로 시도)
+    private class LatencyListener extends EventListener {
+        private long connectStartNanos;
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            recordLatency(inetSocketAddress.getAddress(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStartNanos));
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            Log.w(TAG, "연결 실패 주소 순위 낮춤 ▶ " + inetSocketAddress);
+            recordLatency(inetSocketAddress.getAddress(), FAILURE_PENALTY_MS);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.ota_service.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+// 같은 파일을 제공하는 여러 미러(CDN/리전) 중 빠른 곳을 골라 주는 클래스
+// 시작할 때 모든 미러에 작은 구간 요청을 보내 응답 지연과 처리량을 측정하고,
+// 다운로드 중에는 구간 요청마다 실제 속도를 반영해서 구간별로 예상 완료 시간이 가장 짧은 미러를 고름
+// 실패한 미러는 일정 시간 제외하고, 크기가 다른 미러는 다운로드가 끝날 때까지 사용하지 않음
+// 검증값(ETag 등)은 같은 파일이라도 CDN/리전마다 다를 수 있어 미러끼리 비교하지 않음
+// (미러별 검증값은 If-Range에만 사용하고, 내용이 같은지는 매니페스트/SHA-256으로 확인)
+public class MirrorSelector {
+    private static final String TAG = MirrorSelector.class.getSimpleName();
+
+    private static final long PROBE_BYTES = 256 * 1024;         // 측정용 구간 크기
+    private static final long PROBE_TIMEOUT_MS = 10000;         // 측정 최대 대기 시간
+    private static final long FAILURE_COOLDOWN_MS = 30000;      // 실패한 미러를 제외하는 시간
+    private static final double SPEED_WEIGHT = 0.5;             // 새 속도 측정값 반영 비율 (지수 이동 평균, 속도 저하에 빨리 반응)
+    private static final double SWITCH_RATIO = 2.0;             // 다른 미러가 이 배수 이상 빨라야 진행 중인 구간을 옮김
+
+    private final List<Mirror> mirrors = new ArrayList<>();
+    private volatile boolean probed = false;
+
+    /**
+     * MirrorSelector 생성자
+     *
+     * @param urls 미러 URL 목록 (첫 번째가 기본 URL, 측정 전에는 기본 URL 사용)
+     */
+    public MirrorSelector(List<String> urls) {
+        for (String url : urls) {
+            if (url != null && !containsUrl(url)) {
+                mirrors.add(new Mirror(url));
+            }
+        }
+        if (mirrors.isEmpty()) {
+            throw new IllegalArgumentException("미러 URL이 없음");
+        }
+    }
+
+    public int getMirrorCount() {
+        return mirrors.size();
+    }
+
+    // 측정 완료 여부
+    public boolean isProbed() {
+        return probed;
+    }
+
+    /**
+     * 모든 미러를 동시에 측정 (블록됨)
+     * 같은 파일인지 확인하기 위해 기본 URL(실패 시 처음으로 성공한 미러)의 크기를 기준으로 삼고, 미러별 검증값은 저장
+     *
+     * @param connectionManager 네트워크 연결 관리
+     * @return 사용할 수 있는 미러 수
+     */
+    public int probe(ConnectionManager connectionManager) {
+        ExecutorService executor = Executors.newFixedThreadPool(mirrors.size());
+        List<Call> calls = new ArrayList<>();
+        List<Future<ProbeResult>> futures = new ArrayList<>();
+        for (Mirror mirror : mirrors) {
+            Call call = connectionManager.newRangeCall(mirror.url, 0, PROBE_BYTES - 1);
+            calls.add(call);
+            futures.add(executor.submit(() -> probeMirror(call)));
+        }
+
+        long deadline = System.currentTimeMillis() + PROBE_TIMEOUT_MS;
+        ProbeResult[] results = new ProbeResult[mirrors.size()];
+        for (int i = 0; i < mirrors.size(); i++) {
+            Mirror mirror = mirrors.get(i);
+            try {
+                long wait = Math.max(0, deadline - System.currentTimeMillis());
+                results[i] = futures.get(i).get(wait, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                calls.get(i).cancel();
+                Log.w(TAG, "미러 측정 시간 초과 ▶ " + mirror.url);
+            } catch (ExecutionException e) {
+                Log.w(TAG, "미러 측정 실패 ▶ " + mirror.url + ", " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        executor.shutdownNow();
+
+        // 기준 결과 (기본 URL 우선, 실패 시 목록 순서상 처음으로 성공한 미러)
+        ProbeResult reference = results[0];
+        for (int i = 1; reference == null && i < results.length; i++) {
+            reference = results[i];
+        }
+        synchronized (this) {
+            for (int i = 0; i < mirrors.size(); i++) {
+                Mirror mirror = mirrors.get(i);
+                ProbeResult result = results[i];
+                if (result == null) {
+                    mirror.cooldownUntil = System.currentTimeMillis() + FAILURE_COOLDOWN_MS;
+                    continue;
+                }
+                if (result.totalBytes != reference.totalBytes) {
+                    // 다른 파일을 제공하는 미러 - 섞이면 파일이 손상되므로 사용하지 않음
+                    Log.w(TAG, "미러 파일 크기 불일치, 제외 ▶ " + mirror.url + " (" + result.totalBytes
+                            + " / 기준 " + reference.totalBytes + ")");
+                    mirror.disabled = true;
+                    continue;
+                }
+                mirror.validator = result.validator;
+                mirror.latencyMs = result.latencyMs;
+                mirror.bytesPerSecond = result.bytesPerSecond;
+                mirror.cooldownUntil = 0;
+                Log.d(TAG, "미러 측정 ▶ " + mirror.url + ", 지연 " + result.latencyMs + "ms, "
+                        + result.bytesPerSecond / 1024 + " KB/s");
+            }
+            probed = true;
+        }
+        return getAvailableCount();
+    }
+
+    // 미러 하나 측정 (응답 헤더까지의 지연, 본문 처리량, 전체 크기, 검증값)
+    private static ProbeResult probeMirror(Call call) throws IOException {
+        long startTime = System.nanoTime();
+        try (Response response = call.execute()) {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            if (response.code() != 206) {
+                throw new ConnectionManager.HttpStatusException("구간 요청 미지원", response.code());
+            }
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new IOException("응답 데이터가 없음");
+            }
+
+            String contentRange = response.header("Content-Range");
+            int slash = contentRange != null ? contentRange.lastIndexOf('/') : -1;
+            long totalBytes;
+            try {
+                totalBytes = slash >= 0 ? Long.parseLong(contentRange.substring(slash + 1).trim()) : -1;
+            } catch (NumberFormatException e) {
+                totalBytes = -1;
+            }
+
+            // 본문을 끝까지 읽어 처리량 측정
+            BufferedSource source = body.source();
+            byte[] scratch = new byte[16 * 1024];
+            long bodyStart = System.nanoTime();
+            long received = 0;
+            int read;
+            while ((read = source.read(scratch, 0, scratch.length)) != -1) {
+                received += read;
+            }
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bodyStart));
+
+            ProbeResult result = new ProbeResult();
+            result.latencyMs = latencyMs;
+            result.bytesPerSecond = received * 1000 / elapsedMs;
+            result.totalBytes = totalBytes;
+            result.validator = ConnectionManager.getValidator(response);
+            return result;
+        }
+    }
+
+    /**
+     * 구간을 받을 미러 선택 - 지연 + 남은 크기 / 속도가 가장 짧은 미러
+     * 사용할 수 있는 미러가 없으면 제외 시간이 가장 먼저 끝나는 미러
+     *
+     * @param remainingBytes 받을 크기
+     * @return 미러 URL
+     */
+    public synchronized String select(long remainingBytes) {
+        long now = System.currentTimeMillis();
+        Mirror best = null;
+        long bestTime = Long.MAX_VALUE;
+        Mirror fallback = null;
+        for (Mirror mirror : mirrors) {
+            if (mirror.disabled) {
+                continue;
+            }
+            if (mirror.cooldownUntil > now) {
+                if (fallback == null || mirror.cooldownUntil < fallback.cooldownUntil) {
+                    fallback = mirror;
+                }
+                continue;
+            }
+            long time = mirror.estimateTime(remainingBytes);
+            if (best == null || time < bestTime) {
+                best = mirror;
+                bestTime = time;
+            }
+        }
+        if (best != null) {
+            return best.url;
+        }
+        return fallback != null ? fallback.url : mirrors.get(0).url;
+    }
+
+    /**
+     * 요청에 붙일 If-Range 검증값
+     * 기본 URL은 저장된 검증값, 다른 미러는 측정 때 받은 자기 검증값 (측정 전이거나 없으면 null)
+     *
+     * @param url 요청할 미러 URL
+     * @param primaryValidator 기본 URL의 저장된 검증값
+     * @return If-Range 검증값, 없으면 null
+     */
+    public synchronized String getValidator(String url, String primaryValidator) {
+        Mirror mirror = find(url);
+        if (mirror == null || isPrimary(url)) {
+            return primaryValidator;
+        }
+        return mirror.validator;
+    }
+
+    // 기본 URL 여부 (저장된 검증값은 기본 URL 기준)
+    public boolean isPrimary(String url) {
+        return mirrors.get(0).url.equals(url);
+    }
+
+    /**
+     * 진행 중인 구간을 옮길 더 빠른 미러 확인
+     *
+     * @param currentUrl 현재 받고 있는 미러
+     * @param remainingBytes 구간의 남은 크기
+     * @return 옮길 미러 URL, 옮길 필요가 없으면 null
+     */
+    public synchronized String findBetter(String currentUrl, long remainingBytes) {
+        Mirror current = find(currentUrl);
+        if (current == null || !probed) {
+            return null;
+        }
+        String candidate = select(remainingBytes);
+        Mirror better = find(candidate);
+        if (better == null || better == current) {
+            return null;
+        }
+        long currentTime = current.estimateTime(remainingBytes);
+        long betterTime = better.estimateTime(remainingBytes);
+        return currentTime > betterTime * SWITCH_RATIO ? candidate : null;
+    }
+
+    /**
+     * 연결 하나의 실제 속도 보고
+     *
+     * @param url 미러 URL
+     * @param bytesPerSecond 측정 구간의 속도
+     */
+    public synchronized void reportThroughput(String url, long bytesPerSecond) {
+        Mirror mirror = find(url);
+        if (mirror == null) {
+            return;
+        }
+        mirror.bytesPerSecond = mirror.bytesPerSecond == 0 ? bytesPerSecond
+                : Math.round(mirror.bytesPerSecond * (1 - SPEED_WEIGHT) + bytesPerSecond * SPEED_WEIGHT);
+    }
+
+    // 미러 요청 실패 보고 - 일정 시간 선택에서 제외
+    public synchronized void reportFailure(String url) {
+        Mirror mirror = find(url);
+        if (mirror == null || mirrors.size() == 1) {
+            return;
+        }
+        mirror.cooldownUntil = System.currentTimeMillis() + FAILURE_COOLDOWN_MS;
+        Log.w(TAG, "미러 일시 제외 ▶ " + url);
+    }
+
+    // 지정한 미러 말고 사용할 수 있는 미러가 있는지 여부
+    public synchronized boolean hasAlternative(String url) {
+        long now = System.currentTimeMillis();
+        for (Mirror mirror : mirrors) {
+            if (!mirror.disabled && mirror.cooldownUntil <= now && !mirror.url.equals(url)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 현재 사용할 수 있는 미러 수
+    public synchronized int getAvailableCount() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Mirror mirror : mirrors) {
+            if (!mirror.disabled && mirror.cooldownUntil <= now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 미러 URL 목록 (제외된 미러 포함)
+    public List<String> getUrls() {
+        List<String> urls = new ArrayList<>();
+        for (Mirror mirror : mirrors) {
+            urls.add(mirror.url);
+        }
+        return Collections.unmodifiableList(urls);
+    }
+
+    private Mirror find(String url) {
+        for (Mirror mirror : mirrors) {
+            if (mirror.url.equals(url)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private boolean containsUrl(String url) {
+        return find(url) != null;
+    }
+
+    // 미러 하나의 상태
+    private static class Mirror {
+        final String url;
+        long latencyMs;
+        long bytesPerSecond;    // 연결 하나 기준 속도 (0이면 측정 전)
+        long cooldownUntil;
+        boolean disabled;
+        String validator;       // 측정 때 받은 검증값 (If-Range용)
+
+        Mirror(String url) {
+            this.url = url;
+        }
+
+        // 구간을 받는 데 걸릴 예상 시간(ms), 속도를 모르면 가장 늦은 것으로 봄
+        long estimateTime(long bytes) {
+            if (bytesPerSecond <= 0) {
+                return Long.MAX_VALUE / 2;
+            }
+            return latencyMs + bytes * 1000 / bytesPerSecond;
+        }
+    }
+
+    // 측정 결과
+    private static class ProbeResult {
+        long latencyMs;
+        long bytesPerSecond;
+        long totalBytes;
+        String validator;
+    }
+}
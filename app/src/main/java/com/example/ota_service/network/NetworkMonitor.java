@@ -0,0 +1,118 @@
+package com.example.ota_service.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 네트워크 연결 상태 감시 클래스
+// 인터넷 가능한 네트워크가 새로 연결되면 리스너에 알려서 재시도 대기 중인 다운로드를 바로 이어받게 함
+public class NetworkMonitor {
+    private static final String TAG = NetworkMonitor.class.getSimpleName();
+
+    private final ConnectivityManager connectivityManager;
+    private final Set<Network> availableNetworks = Collections.newSetFromMap(new ConcurrentHashMap<Network, Boolean>());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private ConnectivityManager.NetworkCallback networkCallback;
+
+    // NetworkMonitor 생성자
+    public NetworkMonitor(Context context) {
+        this.connectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    // 감시 시작 (ACCESS_NETWORK_STATE 권한 필요)
+    public synchronized void start() {
+        if (networkCallback != null || connectivityManager == null) {
+            return;
+        }
+
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                boolean wasOffline = availableNetworks.isEmpty();
+                availableNetworks.add(network);
+                Log.d(TAG, "네트워크 연결됨 ▶ " + network);
+                for (Listener listener : listeners) {
+                    listener.onNetworkAvailable(wasOffline);
+                }
+            }
+
+            @Override
+            public void onLost(Network network) {
+                availableNetworks.remove(network);
+                Log.d(TAG, "네트워크 연결 끊김 ▶ " + network);
+            }
+        };
+
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        try {
+            connectivityManager.registerNetworkCallback(request, networkCallback);
+        } catch (RuntimeException e) {
+            // 권한이 없거나 등록 한도 초과 시 - 백오프 재시도만 사용
+            Log.e(TAG, "네트워크 감시 등록 실패", e);
+            networkCallback = null;
+        }
+    }
+
+    // 감시 종료
+    public synchronized void stop() {
+        if (networkCallback == null) {
+            return;
+        }
+        try {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "네트워크 감시 해제 실패", e);
+        }
+        networkCallback = null;
+        availableNetworks.clear();
+    }
+
+    // 현재 인터넷 연결 여부
+    @SuppressWarnings("deprecation")
+    public boolean isConnected() {
+        if (connectivityManager == null) {
+            return true;
+        }
+        if (!availableNetworks.isEmpty()) {
+            return true;
+        }
+
+        // 콜백이 아직 오지 않았을 수 있으므로 현재 상태 직접 확인
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            Network network = connectivityManager.getActiveNetwork();
+            NetworkCapabilities capabilities = network != null
+                    ? connectivityManager.getNetworkCapabilities(network) : null;
+            return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        }
+        NetworkInfo info = connectivityManager.getActiveNetworkInfo();
+        return info != null && info.isConnected();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // 네트워크 연결 리스너
+    public interface Listener {
+        // wasOffline: 연결된 네트워크가 하나도 없다가 새로 연결된 경우 true
+        void onNetworkAvailable(boolean wasOffline);
+    }
+}
@@ -11,22 +11,27 @@ import android.os.Environment;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.RemoteCallbackList;
+import android.os.RemoteException;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.app.NotificationManagerCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.core.content.ContextCompat;
 
 import com.example.ota_service.download.DownloadManager;
 import com.example.ota_service.download.DownloadProgressInfo;
+import com.example.ota_service.download.ProgressBus;
+import com.example.ota_service.network.BandwidthShaper;
 import com.example.ota_service.ui.DownloadStatusView;
+import com.example.ota_service.utils.NotificationUpdater;
 import com.example.ota_service.utils.NotificationUtils;
 
 import java.io.File;
+import java.io.IOException;
 
 // OTA Download를 위한 Foreground Service 구축 부분
-public class DownloadService extends Service implements DownloadManager.DownloadManagerListener {
+public class DownloadService extends Service {
     private static final String TAG = DownloadService.class.getSimpleName();
 
     // 인텐트 액션 정의 부분
@@ -35,8 +40,16 @@ public class DownloadService extends Service implements DownloadManager.Download
     public static final String ACTION_REQUEST_STATUS = "com.example.ota_service.REQUEST_STATUS";
     public static final String ACTION_SET_FOREGROUND_STATE = "SET_FOREGROUND_STATE";
 
+    // 앱 사용 중 다운로드 속도 제한 (백그라운드에서는 제한 없음)
+    private static final long FOREGROUND_BANDWIDTH_LIMIT = 2L * 1024 * 1024;
+
+    // 소비자별 진행 정보 최소 전달 간격 (상태 변경은 간격과 상관없이 바로 전달)
+    private static final long CALLBACK_INTERVAL_MS = 250;       // 바인딩된 클라이언트 콜백
+    private static final long NOTIFICATION_INTERVAL_MS = 250;   // 알림 갱신 (실제 갱신 여부와 간격은 NotificationUpdater가 판단)
+    private static final long FLOATING_VIEW_INTERVAL_MS = 200;  // 플로팅 뷰 갱신 (메인 스레드)
+
     private DownloadManager downloadManager;
-    private NotificationManagerCompat notificationManager;
+    private NotificationUpdater notificationUpdater;
     private boolean isServiceRunning = false;
 
     private DownloadStatusView floatingView;
@@ -46,6 +59,76 @@ public class DownloadService extends Service implements DownloadManager.Download
 
     private Handler mainHandler;
 
+    // 바인딩된 클라이언트의 진행 상황 콜백 (클라이언트가 죽으면 자동으로 제거됨, 쿠키는 상태 변경만 받는지 여부)
+    private final RemoteCallbackList<IDownloadCallback> callbacks = new RemoteCallbackList<>();
+    private int lastDispatchedStatus = -1;
+
+    // UI가 프레임마다 읽는 진행 정보 공유 메모리 (만들지 못하면 null, 콜백으로만 전달)
+    private ProgressMemory progressMemory;
+
+    // 바인더 인터페이스 구현 - 바인더 스레드에서 호출되므로 서비스 상태를 바꾸는 명령은 메인 스레드로 넘김
+    private final IDownloadService.Stub binder = new IDownloadService.Stub() {
+        @Override
+        public void startDownload() {
+            mainHandler.post(() -> {
+                if (downloadManager.isDownloading()) {
+                    return;
+                }
+                // 바인딩이 끊겨도 다운로드가 계속되도록 시작된 서비스로 전환 (onStartCommand에서는 처리 없음)
+                // handleStartDownload에서 바로 startForeground를 호출하므로 startForegroundService 사용
+                ContextCompat.startForegroundService(DownloadService.this,
+                        new Intent(DownloadService.this, DownloadService.class));
+                handleStartDownload();
+            });
+        }
+
+        @Override
+        public void cancelDownload() {
+            mainHandler.post(DownloadService.this::handleCancelDownload);
+        }
+
+        @Override
+        public DownloadProgressInfo getCurrentProgress() {
+            return downloadManager.getCurrentProgress();
+        }
+
+        @Override
+        public void setAppInForeground(boolean inForeground) {
+            mainHandler.post(() -> {
+                DownloadService.this.setAppInForeground(inForeground);
+                Log.d(TAG, "포그라운드 상태 변경 ▶ " + inForeground);
+            });
+        }
+
+        @Override
+        public void registerCallback(IDownloadCallback callback, boolean transitionsOnly) {
+            if (callback != null) {
+                callbacks.register(callback, transitionsOnly);
+            }
+        }
+
+        @Override
+        public void unregisterCallback(IDownloadCallback callback) {
+            if (callback != null) {
+                callbacks.unregister(callback);
+            }
+        }
+
+        @Override
+        public Bundle getProgressMemory() {
+            ProgressMemory memory = progressMemory;
+            if (memory == null) {
+                return null;
+            }
+            try {
+                return memory.toBundle();
+            } catch (IOException e) {
+                Log.w(TAG, "공유 메모리 전달 실패 ▶ " + e.getMessage());
+                return null;
+            }
+        }
+    };
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -56,12 +139,16 @@ public class DownloadService extends Service implements DownloadManager.Download
 
         // 알림 채널 생성
         NotificationUtils.createNotificationChannel(this);
-        notificationManager = NotificationManagerCompat.from(this);
+        notificationUpdater = new NotificationUpdater(this);
 
         // 다운로드 매니저 초기화
         File downloadDir = getExternalFilesDir(Environment.DIRECTORY_DOWNLOADS);
         downloadManager = new DownloadManager(this, downloadDir);
-        downloadManager.setListener(this);
+        downloadManager.setBandwidthPolicy(BandwidthShaper.foregroundLimited(FOREGROUND_BANDWIDTH_LIMIT));
+        downloadManager.setAppInForeground(isAppInForeground);
+
+        // 다운로드 요청 전에 서버 연결(DNS/TCP/TLS)을 미리 수립해 첫 바이트까지의 시간을 줄임
+        downloadManager.prewarmConnections();
 
         isServiceRunning = true;
 
@@ -83,6 +170,19 @@ public class DownloadService extends Service implements DownloadManager.Download
                 }
             }
         });
+
+        // 진행 상황 구독 - 다운로드 스레드는 발행만 하고, 클라이언트 콜백/알림/플로팅 뷰는 각자 주기로 최신 상태를 받음
+        ProgressBus progressBus = downloadManager.getProgressBus();
+        try {
+            // 공유 메모리 기록은 값 몇 개를 덮어쓰는 것뿐이라 간격 제한 없이 모두 반영
+            progressMemory = ProgressMemory.create(this);
+            progressBus.subscribe(progressMemory::write, 0);
+        } catch (IOException e) {
+            Log.w(TAG, "진행 정보 공유 메모리 생성 실패, 콜백으로만 전달 ▶ " + e.getMessage());
+        }
+        progressBus.subscribe(this::dispatchProgress, CALLBACK_INTERVAL_MS);
+        progressBus.subscribe(this::updateNotification, NOTIFICATION_INTERVAL_MS);
+        progressBus.subscribe(this::updateFloatingView, FLOATING_VIEW_INTERVAL_MS, mainHandler::post);
     }
 
     @Override
@@ -103,14 +203,18 @@ public class DownloadService extends Service implements DownloadManager.Download
                     handleRequestStatus();
                     break;
                 case ACTION_SET_FOREGROUND_STATE:
-                    isAppInForeground = intent.getBooleanExtra("isInForeground", true);
+                    setAppInForeground(intent.getBooleanExtra("isInForeground", true));
                     Log.d(TAG, "포그라운드 상태 변경 ▶ " + isAppInForeground);
                     break;
             }
-        } else {
+        } else if (intent == null) {
             // 서비스가 시스템에 의해 재시작된 경우
             restoreDownloadState();
+        } else if ((flags & START_FLAG_REDELIVERY) != 0) {
+            // 바인더로 시작한 다운로드 도중 서비스가 종료되어 다시 전달된 경우 - 이어받기
+            handleStartDownload();
         }
+        // 처음 전달된 액션 없는 인텐트는 바인더로 다운로드를 시작할 때 서비스를 시작 상태로 두기 위한 것 - 별도 처리 없음
 
         // 서비스가 종료되면 자동으로 다시 시작 (Intent 포함)
         return START_REDELIVER_INTENT;
@@ -119,7 +223,7 @@ public class DownloadService extends Service implements DownloadManager.Download
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return binder;
     }
 
     @Override
@@ -140,6 +244,13 @@ public class DownloadService extends Service implements DownloadManager.Download
         if (downloadManager != null) {
             downloadManager.shutdown();
         }
+        if (notificationUpdater != null) {
+            notificationUpdater.cancelPending();
+        }
+        callbacks.kill();
+        if (progressMemory != null) {
+            progressMemory.close();
+        }
 
         isServiceRunning = false;
         super.onDestroy();
@@ -150,7 +261,7 @@ public class DownloadService extends Service implements DownloadManager.Download
         Log.d(TAG, "앱이 최근 목록에서 제거됨");
 
         // 앱이 제거되면 백그라운드 상태로 변경(5. 12.)
-        isAppInForeground = false;
+        setAppInForeground(false);
 
         // 다운로드가 진행 중이면 상태 저장
         if (downloadManager != null && downloadManager.isDownloading()) {
@@ -182,7 +293,7 @@ public class DownloadService extends Service implements DownloadManager.Download
     private void handleRequestStatus() {
         if (downloadManager != null) {
             DownloadProgressInfo progress = downloadManager.getCurrentProgress();
-            broadcastProgressUpdate(progress);
+            dispatchProgress(progress);
 
             // 다운로드 중이던 Foreground 서비스 유지
             if (downloadManager.isDownloading()) {
@@ -198,7 +309,7 @@ public class DownloadService extends Service implements DownloadManager.Download
 
             if (previousState != null) {
                 Log.d(TAG, "이전 다운로드 상태 복원");
-                broadcastProgressUpdate(previousState);
+                dispatchProgress(previousState);
 
                 // 사용자에게 복원된 상태 알림
                 updateNotification(previousState);
@@ -208,41 +319,17 @@ public class DownloadService extends Service implements DownloadManager.Download
 
     // Foreground 서비스 시작
     private void startForegroundWithNotification(DownloadProgressInfo progress) {
-        Notification notification = NotificationUtils.createDownloadNotification(
-                this, progress.getProgress(), progress.getStatusMessage()
-        );
+        Notification notification = notificationUpdater.buildForeground(progress);
         startForeground(NotificationUtils.NOTIFICATION_ID, notification);
     }
 
-    // 알림 업데이트
+    // 알림 업데이트 (같은 내용이나 너무 잦은 진행 알림은 NotificationUpdater에서 건너뜀)
     private void updateNotification(DownloadProgressInfo progress) {
-        switch (progress.getStatus()) {
-            case DownloadProgressInfo.STATUS_DOWNLOADING:
-                Notification progressNotification = NotificationUtils.createDownloadNotification(
-                        this, progress.getProgress(), progress.getStatusMessage()
-                );
-                notificationManager.notify(NotificationUtils.NOTIFICATION_ID, progressNotification);
-                break;
+        notificationUpdater.update(progress);
 
+        switch (progress.getStatus()) {
             case DownloadProgressInfo.STATUS_COMPLETED:
-                // 다운로드 완료 알림
-                Notification completeNotification = NotificationUtils.createCompletionNotification(
-                        this, progress.getStatusMessage()
-                );
-                notificationManager.notify(NotificationUtils.NOTIFICATION_ID, completeNotification);
-
-                // Foreground 서비스 종료
-                stopForeground(false);
-                stopSelf();
-                break;
-
             case DownloadProgressInfo.STATUS_FAILED:
-                // 실패 알림
-                Notification failureNotification = NotificationUtils.createFailureNotification(
-                        this, progress.getStatusMessage()
-                );
-                notificationManager.notify(NotificationUtils.NOTIFICATION_ID, failureNotification);
-
                 // Foreground 서비스 종료
                 stopForeground(false);
                 stopSelf();
@@ -250,59 +337,74 @@ public class DownloadService extends Service implements DownloadManager.Download
 
             case DownloadProgressInfo.STATUS_CANCELLED:
                 // 취소 시 서비스 종료하지 않고 알림만 업데이트
-                Notification cancelNotification = NotificationUtils.createDownloadNotification(
-                        this, 0, "다운로드 일시 중지됨"
-                );
-                notificationManager.notify(NotificationUtils.NOTIFICATION_ID, cancelNotification);
-
                 // stopForeground(false); // 이 부분 제거
                 // stopSelf(); // 이 부분 제거
                 break;
         }
     }
-    
-    // 상태 업데이트 브로드캐스트
-    private void broadcastProgressUpdate(DownloadProgressInfo progress) {
-        Intent intent = new Intent(ServiceManager.ACTION_STATUS_UPDATE);
-        intent.putExtra(ServiceManager.EXTRA_PROGRESS_INFO, progress);
-        LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
-    }
-    
-    // 다운로드매니저 리스너 구현 파트
-    @Override
-    public void onStatusChanged(DownloadProgressInfo progress) {
-        // 상태 브로드캐스트
-        broadcastProgressUpdate(progress);
-
-        // 알림 업데이트
-        updateNotification(progress);
 
-        // 플로팅 뷰 업데이트(5. 9.) - 메인 스레드에서 실행
-        // Foreground 사용으로 수정(5. 12.)
-        mainHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                if (!isAppInForeground) {
-                    if (progress.getStatus() == DownloadProgressInfo.STATUS_DOWNLOADING ||
-                    progress.getStatus() == DownloadProgressInfo.STATUS_CANCELLED) { // 취소 상태까지 추가
-                        if (!floatingView.isShowing()) {
-                            Log.d(TAG, "플로팅 뷰 표시 - 백그라운드 상태");
-                            floatingView.show();
-                        }
-                        floatingView.updateStatus(progress);
-                    } else if (progress.getStatus() == DownloadProgressInfo.STATUS_COMPLETED ||
-                            progress.getStatus() == DownloadProgressInfo.STATUS_FAILED) {
-                        floatingView.hide();
+    // 바인딩된 클라이언트에 진행 상황 전달 (oneway 호출이라 다른 프로세스의 클라이언트를 기다리지 않음)
+    // 공유 메모리를 읽는 클라이언트에는 상태 변경만 전달
+    // RemoteCallbackList는 동시에 한 번만 순회할 수 있으므로 잠금으로 순서를 맞춤
+    private void dispatchProgress(DownloadProgressInfo progress) {
+        synchronized (callbacks) {
+            int status = progress.getStatus();
+            boolean transition = status != lastDispatchedStatus
+                    || status == DownloadProgressInfo.STATUS_COMPLETED
+                    || status == DownloadProgressInfo.STATUS_FAILED
+                    || status == DownloadProgressInfo.STATUS_CANCELLED;
+            lastDispatchedStatus = status;
+
+            int count = callbacks.beginBroadcast();
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (!transition && Boolean.TRUE.equals(callbacks.getBroadcastCookie(i))) {
+                        continue;
                     }
-                } else {
-                    // 포그라운드면 플로팅 뷰 숨김
-                    if (floatingView.isShowing()) {
-                        Log.d(TAG, "플로팅 뷰 숨김 - 포그라운드 상태");
-                        floatingView.hide();
+                    try {
+                        callbacks.getBroadcastItem(i).onProgress(progress);
+                    } catch (RemoteException e) {
+                        // 클라이언트 프로세스 종료 - RemoteCallbackList가 등록을 정리함
+                        Log.w(TAG, "진행 상황 콜백 실패 ▶ " + e.getMessage());
                     }
                 }
+            } finally {
+                callbacks.finishBroadcast();
             }
-        });
+        }
+    }
+
+    // 플로팅 뷰 업데이트(5. 9.) - 메인 스레드에서 실행
+    // Foreground 사용으로 수정(5. 12.)
+    private void updateFloatingView(DownloadProgressInfo progress) {
+        if (!isAppInForeground) {
+            if (progress.getStatus() == DownloadProgressInfo.STATUS_DOWNLOADING ||
+            progress.getStatus() == DownloadProgressInfo.STATUS_VERIFYING ||
+            progress.getStatus() == DownloadProgressInfo.STATUS_CANCELLED) { // 취소 상태까지 추가
+                if (!floatingView.isShowing()) {
+                    Log.d(TAG, "플로팅 뷰 표시 - 백그라운드 상태");
+                    floatingView.show();
+                }
+                floatingView.updateStatus(progress);
+            } else if (progress.getStatus() == DownloadProgressInfo.STATUS_COMPLETED ||
+                    progress.getStatus() == DownloadProgressInfo.STATUS_FAILED) {
+                floatingView.hide();
+            }
+        } else {
+            // 포그라운드면 플로팅 뷰 숨김
+            if (floatingView.isShowing()) {
+                Log.d(TAG, "플로팅 뷰 숨김 - 포그라운드 상태");
+                floatingView.hide();
+            }
+        }
+    }
+
+    // 포그라운드 상태 변경 - 다운로드 속도 정책에도 전달
+    private void setAppInForeground(boolean inForeground) {
+        isAppInForeground = inForeground;
+        if (downloadManager != null) {
+            downloadManager.setAppInForeground(inForeground);
+        }
     }
 
     // 상태 감지 메서드 추가 5. 12.
@@ -315,7 +417,7 @@ public class DownloadService extends Service implements DownloadManager.Download
                 public void onActivityStarted(Activity activity) {
                     if (++activityReferences == 1) {
                         // 포그라운드로 전환시킴
-                        isAppInForeground = true;
+                        setAppInForeground(true);
                         if (floatingView != null && floatingView.isShowing()) {
                             floatingView.hide();
                         }
@@ -326,7 +428,7 @@ public class DownloadService extends Service implements DownloadManager.Download
                 public void onActivityStopped(Activity activity) {
                     if (--activityReferences == 0) {
                         // 앱이 백그라운드로 전환됨
-                        isAppInForeground = false;
+                        setAppInForeground(false);
                         if (downloadManager.isDownloading() && floatingView != null) {
                             floatingView.show();
                         }
@@ -0,0 +1,249 @@
+package com.example.ota_service.service;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.os.SharedMemory;
+import android.system.ErrnoException;
+import android.util.Log;
+
+import com.example.ota_service.download.DownloadProgressInfo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+// 서비스 프로세스와 UI 프로세스가 진행 정보를 공유하는 작은 메모리 영역
+// 서비스는 진행 정보가 바뀔 때마다 숫자 값만 덮어쓰고, UI는 화면 프레임마다 순번만 확인해서 바뀐 경우에만 읽음
+// (Parcelable 직렬화/바인더 호출 없이 진행률 표시, 상태 메시지가 필요한 상태 변경은 바인더 콜백으로 전달)
+// API 27 이상은 SharedMemory, 그 아래는 캐시 디렉터리의 파일을 양쪽에서 메모리 매핑해서 사용
+//
+// 배치 (네이티브 바이트 순서):
+// [순번 int][상태 int][진행률 int][예약 int][받은 바이트 long][전체 바이트 long][속도 long][남은 시간 long][검사값 long]
+// 프로세스 사이에서는 쓰기 순서를 보장할 수단(메모리 배리어)이 없으므로 값 전체의 검사값을 같이 기록하고,
+// 읽는 쪽은 검사값이 맞을 때만 사용 (쓰는 도중에 읽어서 두 번의 기록이 섞인 값은 버리고 다시 읽음)
+public class ProgressMemory {
+    private static final String TAG = ProgressMemory.class.getSimpleName();
+
+    private static final int SIZE = 56;
+    private static final int OFFSET_SEQUENCE = 0;
+    private static final int OFFSET_STATUS = 4;
+    private static final int OFFSET_PROGRESS = 8;
+    private static final int OFFSET_DOWNLOADED = 16;
+    private static final int OFFSET_TOTAL = 24;
+    private static final int OFFSET_SPEED = 32;
+    private static final int OFFSET_REMAINING = 40;
+    private static final int OFFSET_CHECKSUM = 48;
+    private static final int MAX_READ_RETRIES = 4;
+
+    private static final String KEY_SHARED_MEMORY = "shared_memory";
+    private static final String KEY_FILE_DESCRIPTOR = "file_descriptor";
+    private static final String FALLBACK_FILE_NAME = "ota_progress.bin";
+
+    private final ByteBuffer buffer;
+    private final Object memory;    // SharedMemory (API 27 이상) 또는 매핑한 파일, 바인더로 넘길 때 사용
+    private final boolean writable; // 쓰는 쪽(서비스) 여부
+    private int sequence = 0;       // 쓰는 쪽: 마지막으로 쓴 순번
+    private int lastReadSequence = 0;   // 읽는 쪽: 마지막으로 읽은 순번 (0은 아직 기록 없음)
+    private boolean closed = false;
+
+    private ProgressMemory(ByteBuffer buffer, Object memory, boolean writable) {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.memory = memory;
+        this.writable = writable;
+    }
+
+    /**
+     * 쓰는 쪽(서비스) 영역 생성
+     *
+     * @param context 서비스 컨텍스트 (대체 파일 위치)
+     * @return 공유 메모리 영역
+     * @throws IOException 생성/매핑 실패 시
+     */
+    public static ProgressMemory create(Context context) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            try {
+                SharedMemory sharedMemory = SharedMemory.create("ota-progress", SIZE);
+                return new ProgressMemory(sharedMemory.mapReadWrite(), sharedMemory, true);
+            } catch (ErrnoException e) {
+                throw new IOException("공유 메모리 생성 실패", e);
+            }
+        }
+
+        File file = new File(context.getCacheDir(), FALLBACK_FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(SIZE);
+            // 매핑은 파일을 닫아도 유지됨
+            ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+            return new ProgressMemory(buffer, file, true);
+        }
+    }
+
+    /**
+     * 읽는 쪽(UI) 영역 열기
+     *
+     * @param bundle 서비스가 toBundle()로 넘긴 정보
+     * @return 공유 메모리 영역 (읽기 전용)
+     * @throws IOException 매핑 실패 또는 정보가 없는 경우
+     */
+    public static ProgressMemory open(Bundle bundle) throws IOException {
+        if (bundle == null) {
+            throw new IOException("공유 메모리 정보가 없음");
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            SharedMemory sharedMemory = bundle.getParcelable(KEY_SHARED_MEMORY);
+            if (sharedMemory != null) {
+                try {
+                    return new ProgressMemory(sharedMemory.mapReadOnly(), sharedMemory, false);
+                } catch (ErrnoException e) {
+                    throw new IOException("공유 메모리 매핑 실패", e);
+                }
+            }
+        }
+
+        ParcelFileDescriptor descriptor = bundle.getParcelable(KEY_FILE_DESCRIPTOR);
+        if (descriptor == null) {
+            throw new IOException("공유 메모리 정보가 없음");
+        }
+        try (FileInputStream input = new FileInputStream(descriptor.getFileDescriptor())) {
+            ByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, SIZE);
+            return new ProgressMemory(buffer, null, false);
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    /**
+     * 읽는 쪽에 넘길 정보 (바인더로 전달, 받는 프로세스에서 open()으로 매핑)
+     *
+     * @return 공유 메모리 또는 파일 디스크립터를 담은 Bundle
+     * @throws IOException 파일 열기 실패 시
+     */
+    public Bundle toBundle() throws IOException {
+        if (!writable) {
+            throw new IOException("읽기 전용 영역은 넘길 수 없음");
+        }
+        Bundle bundle = new Bundle();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1 && memory instanceof SharedMemory) {
+            bundle.putParcelable(KEY_SHARED_MEMORY, (SharedMemory) memory);
+        } else {
+            bundle.putParcelable(KEY_FILE_DESCRIPTOR,
+                    ParcelFileDescriptor.open((File) memory, ParcelFileDescriptor.MODE_READ_ONLY));
+        }
+        return bundle;
+    }
+
+    /**
+     * 진행 정보 기록 (쓰는 쪽, 할당 없음)
+     *
+     * @param progress 진행 정보
+     */
+    public synchronized void write(DownloadProgressInfo progress) {
+        if (closed) {
+            return;
+        }
+        if (++sequence == 0) {
+            sequence = 1;
+        }
+        int status = progress.getStatus();
+        int percent = progress.getProgress();
+        long downloaded = progress.getDownloadedBytes();
+        long total = progress.getTotalBytes();
+        long speed = progress.getSpeed();
+        long remaining = progress.getEstimatedTimeRemaining();
+
+        buffer.putInt(OFFSET_SEQUENCE, sequence);
+        buffer.putInt(OFFSET_STATUS, status);
+        buffer.putInt(OFFSET_PROGRESS, percent);
+        buffer.putLong(OFFSET_DOWNLOADED, downloaded);
+        buffer.putLong(OFFSET_TOTAL, total);
+        buffer.putLong(OFFSET_SPEED, speed);
+        buffer.putLong(OFFSET_REMAINING, remaining);
+        buffer.putLong(OFFSET_CHECKSUM, checksum(sequence, status, percent, downloaded, total, speed, remaining));
+    }
+
+    /**
+     * 마지막으로 읽은 뒤 바뀐 값이 있으면 읽음 (읽는 쪽, 프레임마다 호출해도 되도록 할당 없음)
+     * 상태 메시지(errorMessage)는 공유하지 않으므로 건드리지 않음
+     *
+     * @param out 값을 채울 진행 정보
+     * @return 새 값을 읽었으면 true, 바뀐 값이 없거나 쓰는 중이라 읽지 못했으면 false
+     */
+    public synchronized boolean readIfChanged(DownloadProgressInfo out) {
+        if (closed) {
+            return false;
+        }
+        for (int i = 0; i < MAX_READ_RETRIES; i++) {
+            int readSequence = buffer.getInt(OFFSET_SEQUENCE);
+            if (readSequence == lastReadSequence) {
+                return false;
+            }
+            int status = buffer.getInt(OFFSET_STATUS);
+            int percent = buffer.getInt(OFFSET_PROGRESS);
+            long downloaded = buffer.getLong(OFFSET_DOWNLOADED);
+            long total = buffer.getLong(OFFSET_TOTAL);
+            long speed = buffer.getLong(OFFSET_SPEED);
+            long remaining = buffer.getLong(OFFSET_REMAINING);
+            if (buffer.getLong(OFFSET_CHECKSUM)
+                    != checksum(readSequence, status, percent, downloaded, total, speed, remaining)) {
+                // 쓰는 중 - 다시 확인
+                continue;
+            }
+
+            out.setStatus(status);
+            out.setProgress(percent);
+            out.setDownloadedBytes(downloaded);
+            out.setTotalBytes(total);
+            out.setSpeed(speed);
+            out.setEstimatedTimeRemaining(remaining);
+            lastReadSequence = readSequence;
+            return true;
+        }
+        // 계속 쓰는 중이면 다음 프레임에 다시 시도
+        return false;
+    }
+
+    // 값 전체의 검사값 (섞인 값이 우연히 맞지 않도록 곱셈/시프트로 섞음)
+    private static long checksum(int sequence, int status, int percent, long downloaded, long total,
+                                 long speed, long remaining) {
+        long hash = 0x9E3779B97F4A7C15L;
+        hash = mix(hash ^ sequence);
+        hash = mix(hash ^ ((long) status << 32 | (percent & 0xFFFFFFFFL)));
+        hash = mix(hash ^ downloaded);
+        hash = mix(hash ^ total);
+        hash = mix(hash ^ speed);
+        return mix(hash ^ remaining);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    // 다음 readIfChanged에서 값이 그대로여도 다시 읽도록 함
+    public void invalidate() {
+        lastReadSequence = 0;
+    }
+
+    // 매핑 해제 (해제 뒤의 읽기/쓰기는 무시)
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1 && memory instanceof SharedMemory) {
+            SharedMemory.unmap(buffer);
+            // 읽는 쪽은 같은 프로세스면 서비스와 같은 객체를 받으므로 닫지 않음 (다른 프로세스에서 받은 복제본은 GC 시 닫힘)
+            if (writable) {
+                ((SharedMemory) memory).close();
+            }
+        }
+        Log.d(TAG, "진행 정보 공유 메모리 해제");
+    }
+}
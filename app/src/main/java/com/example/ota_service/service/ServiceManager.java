@@ -1,113 +1,307 @@
 package com.example.ota_service.service;
 
-import android.bluetooth.BluetoothProfile.ServiceListener;
-import android.content.BroadcastReceiver;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
+import android.content.ServiceConnection;
 import android.os.Bundle;
-import android.provider.MediaStore;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.RemoteException;
+import android.util.Log;
+import android.view.Choreographer;
 
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
-
-import com.example.ota_service.download.DownloadManager;
 import com.example.ota_service.download.DownloadProgressInfo;
 
+import java.io.IOException;
+
 // Activity - Service 간 통신을 관리하는 클래스
+// 서비스에 바인딩해서 명령은 바인더 메서드로 직접 호출하고, 진행 상황은 등록한 콜백으로 받음
+// 바인딩 전(또는 서비스 프로세스가 죽은 뒤)에는 기존처럼 startService 인텐트로 명령을 보냄
+// 서비스가 공유 메모리를 제공하면 진행률은 화면 프레임마다 메모리에서 직접 읽고, 콜백으로는 상태 변경만 받음
+// 프레임 폴링은 진행률이 바뀌는 상태(다운로드/검증 중)에서만 돌리고, 대기/완료/실패 등에서는 멈춤
 public class ServiceManager {
-    // 브로드캐스트 액션 정의
-    public static final String ACTION_STATUS_UPDATE = "com.example.ota_service.STATUS_UPDATE";
-    public static final String EXTRA_PROGRESS_INFO = "progress_info";
+    private static final String TAG = ServiceManager.class.getSimpleName();
 
     private final Context context;
     private final ServiceListener listener;
-    private final BroadcastReceiver statusReceiver;
-    private boolean receiverRegistered = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private IDownloadService service;
+    private boolean bound = false;
+
+    // 메인 스레드로 넘길 최신 진행 정보 (콜백이 밀려도 마지막 것 하나만 전달)
+    private final DownloadProgressInfo latestProgress = new DownloadProgressInfo();
+    private final DownloadProgressInfo deliveredProgress = new DownloadProgressInfo();
+    private boolean deliveryPosted = false;
+
+    // 진행 정보 공유 메모리 (서비스가 제공하지 않으면 null)
+    private ProgressMemory progressMemory;
+    private final DownloadProgressInfo memoryProgress = new DownloadProgressInfo();
+    private int lastStatus = DownloadProgressInfo.STATUS_IDLE;  // 콜백으로 마지막에 받은 상태
+    private boolean polling = false;    // 프레임 콜백 등록 여부 (메인 스레드에서만 변경)
+
+    // 화면 프레임마다 공유 메모리 확인 - 순번이 바뀐 경우에만 읽어서 전달
+    private final Choreographer.FrameCallback pollProgress = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!polling) {
+                return;
+            }
+            if (progressMemory == null || !isPollingStatus(lastStatus)) {
+                // 진행이 멈춘 상태 - 다음 상태 변경 콜백에서 다시 시작
+                polling = false;
+                return;
+            }
+            if (progressMemory.readIfChanged(memoryProgress) && isNumericStatus(memoryProgress.getStatus())
+                    && memoryProgress.getStatus() == lastStatus && listener != null) {
+                listener.onStatusUpdate(memoryProgress);
+            }
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    private final Runnable deliverProgress = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (latestProgress) {
+                deliveredProgress.set(latestProgress);
+                deliveryPosted = false;
+            }
+            lastStatus = deliveredProgress.getStatus();
+            if (progressMemory != null) {
+                // 상태 변경 뒤에는 메모리 값이 그대로여도 다음 프레임에 다시 읽어서 최신 진행률로 맞춤
+                progressMemory.invalidate();
+            }
+            updatePolling();
+            if (listener != null) {
+                listener.onStatusUpdate(deliveredProgress);
+            }
+        }
+    };
+
+    // 서비스 -> 클라이언트 진행 상황 콜백 (바인더 스레드, 같은 프로세스면 서비스의 전달 스레드에서 호출됨)
+    // 전달된 객체는 서비스 쪽에서 재사용될 수 있으므로 바로 복사해 둠
+    private final IDownloadCallback.Stub callback = new IDownloadCallback.Stub() {
+        @Override
+        public void onProgress(DownloadProgressInfo progress) {
+            synchronized (latestProgress) {
+                latestProgress.set(progress);
+                if (deliveryPosted) {
+                    return;
+                }
+                deliveryPosted = true;
+            }
+            mainHandler.post(deliverProgress);
+        }
+    };
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            service = IDownloadService.Stub.asInterface(binder);
+            Log.d(TAG, "서비스 바인딩 완료");
+            try {
+                openProgressMemory(service.getProgressMemory());
+                service.registerCallback(callback, progressMemory != null);
+                // 서비스에 포그라운드 상태 알림(5. 12.)
+                service.setAppInForeground(true);
+
+                // 연결 직후 현재 상태를 바로 가져와 화면에 반영
+                DownloadProgressInfo progress = service.getCurrentProgress();
+                if (progress != null) {
+                    lastStatus = progress.getStatus();
+                    if (listener != null) {
+                        listener.onStatusUpdate(progress);
+                    }
+                }
+                updatePolling();
+            } catch (RemoteException e) {
+                Log.e(TAG, "서비스 초기화 호출 실패", e);
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // 서비스 프로세스 종료 - 다시 살아나면 onServiceConnected가 다시 호출됨
+            Log.w(TAG, "서비스 연결 끊김");
+            service = null;
+            closeProgressMemory();
+        }
+    };
 
     /**
      * Service Manager 생성자
      *
      * @param context 애플리케이션 컨텍스트
-     * @param listener 서비스 이벤트 리스너
+     * @param listener 서비스 이벤트 리스너 (메인 스레드에서 호출됨)
      */
     public ServiceManager(Context context, ServiceListener listener) {
         this.context = context;
         this.listener = listener;
-
-        // 브로드캐스트 리시버 초기화
-        statusReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if (ACTION_STATUS_UPDATE.equals(intent.getAction())) {
-                    Bundle extras = intent.getExtras();
-                    if (extras != null && extras.containsKey(EXTRA_PROGRESS_INFO)) {
-                        DownloadProgressInfo progressInfo = extras.getParcelable(EXTRA_PROGRESS_INFO);
-                        if (listener != null && progressInfo != null) {
-                            listener.onStatusUpdate(progressInfo);
-                        }
-                    }
-                }
-            }
-        };
     }
 
     // 서비스 연결 시작
     public void connect() {
-        if (!receiverRegistered) {
-            IntentFilter filter = new IntentFilter(ACTION_STATUS_UPDATE);
-            LocalBroadcastManager.getInstance(context).registerReceiver(statusReceiver, filter);
-            receiverRegistered = true;
+        if (!bound) {
+            bound = context.bindService(new Intent(context, DownloadService.class), connection,
+                    Context.BIND_AUTO_CREATE);
+            if (!bound) {
+                Log.e(TAG, "서비스 바인딩 실패");
+            }
         }
-
-        // 서비스에 현재 상태 요청
-        Intent intent = new Intent(context, DownloadService.class);
-        intent.setAction(DownloadService.ACTION_REQUEST_STATUS);
-        context.startService(intent);
-
-        // 서비스에 포그라운드 상태 알림(5. 12.)
-        Intent foregroundIntent = new Intent(context, DownloadService.class);
-        foregroundIntent.setAction(DownloadService.ACTION_SET_FOREGROUND_STATE); // 수정
-        foregroundIntent.putExtra("isInForeground", true);
-        context.startService(foregroundIntent);
     }
 
     // 서비스 연결 종료
     public void disconnect() {
-        // 서비스에 백그라운드 상태 알림(5. 12.)
-        Intent intent = new Intent(context, DownloadService.class);
-        intent.setAction(DownloadService.ACTION_SET_FOREGROUND_STATE); // 수정
-        intent.putExtra("isInForeground", false);
-        context.startService(intent);
+        IDownloadService current = service;
+        if (current != null) {
+            try {
+                // 서비스에 백그라운드 상태 알림(5. 12.)
+                current.setAppInForeground(false);
+                current.unregisterCallback(callback);
+            } catch (RemoteException e) {
+                Log.w(TAG, "서비스 해제 호출 실패 ▶ " + e.getMessage());
+            }
+        } else {
+            sendCommand(new Intent(context, DownloadService.class)
+                    .setAction(DownloadService.ACTION_SET_FOREGROUND_STATE)
+                    .putExtra("isInForeground", false));
+        }
 
-        if (receiverRegistered) {
-            LocalBroadcastManager.getInstance(context).unregisterReceiver(statusReceiver);
-            receiverRegistered = false;
+        if (bound) {
+            context.unbindService(connection);
+            bound = false;
+        }
+        service = null;
+        closeProgressMemory();
+        mainHandler.removeCallbacks(deliverProgress);
+        synchronized (latestProgress) {
+            deliveryPosted = false;
         }
     }
 
     // 다운로드 시작
     public void startDownload() {
-        Intent intent = new Intent(context, DownloadService.class);
-        intent.setAction(DownloadService.ACTION_START_DOWNLOAD);
-        context.startService(intent);
+        IDownloadService current = service;
+        if (current != null) {
+            try {
+                current.startDownload();
+                return;
+            } catch (RemoteException e) {
+                Log.w(TAG, "다운로드 시작 호출 실패, 인텐트로 전달 ▶ " + e.getMessage());
+            }
+        }
+        sendCommand(new Intent(context, DownloadService.class).setAction(DownloadService.ACTION_START_DOWNLOAD));
     }
 
     // 취소
     public void cancelDownload() {
-        Intent intent = new Intent(context, DownloadService.class);
-        intent.setAction(DownloadService.ACTION_CANCEL_DOWNLOAD);
-        context.startService(intent);
+        IDownloadService current = service;
+        if (current != null) {
+            try {
+                current.cancelDownload();
+                return;
+            } catch (RemoteException e) {
+                Log.w(TAG, "다운로드 취소 호출 실패, 인텐트로 전달 ▶ " + e.getMessage());
+            }
+        }
+        sendCommand(new Intent(context, DownloadService.class).setAction(DownloadService.ACTION_CANCEL_DOWNLOAD));
     }
 
-    // 확인
+    // 확인 - 바인딩되어 있으면 현재 상태를 바로 리스너에 전달
     public void checkServiceStatus() {
-        Intent intent = new Intent(context, DownloadService.class);
-        intent.setAction(DownloadService.ACTION_REQUEST_STATUS);
+        DownloadProgressInfo progress = getCurrentProgress();
+        if (progress != null) {
+            if (listener != null) {
+                listener.onStatusUpdate(progress);
+            }
+            return;
+        }
+        sendCommand(new Intent(context, DownloadService.class).setAction(DownloadService.ACTION_REQUEST_STATUS));
+    }
+
+    /**
+     * 현재 진행 정보를 동기로 조회
+     *
+     * @return 진행 정보, 서비스에 바인딩되지 않았으면 null
+     */
+    public DownloadProgressInfo getCurrentProgress() {
+        IDownloadService current = service;
+        if (current == null) {
+            return null;
+        }
+        try {
+            return current.getCurrentProgress();
+        } catch (RemoteException e) {
+            Log.w(TAG, "진행 정보 조회 실패 ▶ " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 서비스에 바인딩되어 있는지 여부
+    public boolean isConnected() {
+        return service != null;
+    }
+
+    // 서비스가 넘긴 공유 메모리 매핑 (실패하면 콜백으로만 받음, 폴링은 상태에 따라 updatePolling에서 시작)
+    private void openProgressMemory(Bundle memoryInfo) {
+        closeProgressMemory();
+        if (memoryInfo == null) {
+            return;
+        }
+        try {
+            progressMemory = ProgressMemory.open(memoryInfo);
+        } catch (IOException e) {
+            Log.w(TAG, "진행 정보 공유 메모리 열기 실패, 콜백으로 받음 ▶ " + e.getMessage());
+        }
+    }
+
+    // 마지막 상태에 맞춰 프레임 폴링 시작/중지 (메인 스레드)
+    private void updatePolling() {
+        boolean shouldPoll = progressMemory != null && isPollingStatus(lastStatus);
+        if (shouldPoll && !polling) {
+            polling = true;
+            Choreographer.getInstance().postFrameCallback(pollProgress);
+        } else if (!shouldPoll && polling) {
+            polling = false;
+            Choreographer.getInstance().removeFrameCallback(pollProgress);
+        }
+    }
+
+    private void closeProgressMemory() {
+        if (polling) {
+            polling = false;
+            Choreographer.getInstance().removeFrameCallback(pollProgress);
+        }
+        if (progressMemory != null) {
+            progressMemory.close();
+            progressMemory = null;
+        }
+    }
+
+    // 공유 메모리의 숫자 값만으로 상태 메시지를 만들 수 있는 상태 (나머지는 콜백의 메시지 사용)
+    private static boolean isNumericStatus(int status) {
+        return status == DownloadProgressInfo.STATUS_DOWNLOADING
+                || status == DownloadProgressInfo.STATUS_VERIFYING
+                || status == DownloadProgressInfo.STATUS_PAUSED;
+    }
+
+    // 공유 메모리의 진행률이 계속 바뀌는 상태 (이 상태에서만 프레임마다 확인)
+    private static boolean isPollingStatus(int status) {
+        return status == DownloadProgressInfo.STATUS_DOWNLOADING
+                || status == DownloadProgressInfo.STATUS_VERIFYING;
+    }
+
+    // 바인딩 전 명령 전달 (startService 인텐트)
+    private void sendCommand(Intent intent) {
         context.startService(intent);
     }
 
     // 서비스 리스너 인터페이스
     public interface ServiceListener {
+        // 전달되는 객체는 다음 갱신 때 재사용되므로 보관하려면 복사해야 함
         void onStatusUpdate(DownloadProgressInfo progressInfo);
     }
 }
@@ -36,6 +36,10 @@ public class DownloadStatusView extends LinearLayout {
     private WindowManager.LayoutParams params;
     private boolean isShowing = false;
 
+    // 상태 문구 재사용 버퍼 (진행 중 갱신마다 문자열을 만들지 않음)
+    private final StringBuilder statusText = new StringBuilder(96);
+    private char[] statusChars = new char[96];
+
     // 뷰 이동을 위한 변수
     private float initialX, initialY;
     private float initialTouchX, initialTouchY;
@@ -213,10 +217,11 @@ public class DownloadStatusView extends LinearLayout {
                 break;
 
             case DownloadProgressInfo.STATUS_DOWNLOADING:
+            case DownloadProgressInfo.STATUS_VERIFYING:
                 progressBar.setVisibility(View.VISIBLE);
                 progressBar.setIndeterminate(false);
                 progressBar.setProgress(progressInfo.getProgress());
-                tvStatus.setText(progressInfo.getStatusMessage());
+                setStatusText(progressInfo);
                 btnAction.setText("취소");
                 isDownloading = true;
                 break;
@@ -259,6 +264,18 @@ public class DownloadStatusView extends LinearLayout {
         }
     }
 
+    // 진행 상태 문구를 재사용 버퍼에 만들어 표시 (setText(char[])는 내부 래퍼를 재사용해서 문자열을 만들지 않음)
+    private void setStatusText(DownloadProgressInfo progressInfo) {
+        statusText.setLength(0);
+        progressInfo.appendStatusMessage(statusText);
+        int length = statusText.length();
+        if (statusChars.length < length) {
+            statusChars = new char[length * 2];
+        }
+        statusText.getChars(0, length, statusChars, 0);
+        tvStatus.setText(statusChars, 0, length);
+    }
+
     // 리스너 설정
     public void setListener(DownloadStatusListener listener) {
         this.listener = listener;
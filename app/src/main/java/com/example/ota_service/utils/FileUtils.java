@@ -1,20 +1,50 @@
 package com.example.ota_service.utils;
 
 public class FileUtils {
+    private static final String[] SIZE_UNITS = new String[] { "B", "KB", "MB", "GB", "TB" };
+
     // 파일 크기를 사람이 읽기 쉬운 형태로 변환(B, KB, GB, MB) 기존 코드와 같음
     public static String formatFileSize(long size) {
-        if (size <= 0) return "0 B";
+        return appendFileSize(new StringBuilder(16), size).toString();
+    }
 
-        final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" };
-        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
+    /**
+     * 파일 크기를 StringBuilder에 이어 씀 (소수점 둘째 자리, 반올림)
+     * log10/pow/String.format 대신 정수 연산만 사용해서 자주 호출해도 할당이 생기지 않음
+     *
+     * @param builder 결과를 쓸 StringBuilder
+     * @param size 바이트 수
+     * @return builder
+     */
+    public static StringBuilder appendFileSize(StringBuilder builder, long size) {
+        if (size <= 0) return builder.append("0 B");
 
-        return String.format("%.2f %s", size / Math.pow(1024, digitGroups), units[digitGroups]);
+        int digitGroups = 0;
+        while (digitGroups < SIZE_UNITS.length - 1 && size >= 1L << (10 * (digitGroups + 1))) {
+            digitGroups++;
+        }
+        long unit = 1L << (10 * digitGroups);
+
+        // 소수점 둘째 자리까지 반올림한 값 (x100)
+        long scaled = size / unit * 100 + ((size % unit) * 100 + unit / 2) / unit;
+        return appendFixed(builder, scaled, 100).append(' ').append(SIZE_UNITS[digitGroups]);
     }
 
     // 시간을 사람이 읽기 쉬운 형식으로 변환함(ms -> h:m:s)
     public static String formatDownloadTime(long millis) {
+        return appendDownloadTime(new StringBuilder(16), millis).toString();
+    }
+
+    /**
+     * 시간을 StringBuilder에 이어 씀 (형식은 formatDownloadTime과 같음)
+     *
+     * @param builder 결과를 쓸 StringBuilder
+     * @param millis 시간(ms)
+     * @return builder
+     */
+    public static StringBuilder appendDownloadTime(StringBuilder builder, long millis) {
         if (millis < 1000) {
-            return millis + "ms";
+            return builder.append(millis).append("ms");
         }
 
         long seconds = millis / 1000;
@@ -22,12 +52,24 @@ public class FileUtils {
         long hours = minutes / 60;
 
         if (hours > 0) {
-            return String.format("%d시간 %d분 %d초", hours, minutes % 60, seconds % 60);
+            return builder.append(hours).append("시간 ").append(minutes % 60).append("분 ")
+                    .append(seconds % 60).append('초');
         } else if (minutes > 0) {
-            return String.format("%d분 %d초", minutes, seconds % 60);
+            return builder.append(minutes).append("분 ").append(seconds % 60).append('초');
         } else {
-            return String.format("%.1f초", millis / 1000.0);
+            // 소수점 첫째 자리까지 반올림
+            return appendFixed(builder, (millis + 50) / 100, 10).append('초');
+        }
+    }
+
+    // scale배 한 정수 값을 소수로 씀 (scale은 10 또는 100)
+    private static StringBuilder appendFixed(StringBuilder builder, long scaled, int scale) {
+        builder.append(scaled / scale).append('.');
+        long fraction = scaled % scale;
+        if (scale == 100 && fraction < 10) {
+            builder.append('0');
         }
+        return builder.append(fraction);
     }
 
     // 남은 예상 시간 계산
@@ -0,0 +1,227 @@
+package com.example.ota_service.utils;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.example.ota_service.MainActivity;
+import com.example.ota_service.download.DownloadProgressInfo;
+import com.example.ota_service.service.DownloadService;
+
+// 다운로드 알림 갱신 담당 클래스
+// 진행 알림 빌더와 PendingIntent는 한 번만 만들어 재사용하고, 진행률/문구가 그대로면 다시 올리지 않음
+// 시스템도 앱의 잦은 알림 갱신을 제한하므로 진행 중 갱신은 최소 간격 안에서 한 번만 올림
+// 간격 때문에 올리지 못한 최신 진행 정보는 보관했다가 간격이 끝나면 올림 (진행이 멈춰도 마지막 값이 보이도록)
+// 상태가 바뀌는 알림(완료/실패/취소, 다운로드 -> 검증 등)은 간격과 상관없이 항상 올림
+public class NotificationUpdater {
+    private static final String TAG = NotificationUpdater.class.getSimpleName();
+    private static final long MIN_UPDATE_INTERVAL_MS = 1000;   // 진행 알림 최소 갱신 간격
+
+    private final Context context;
+    private final NotificationManagerCompat notificationManager;
+    private final PendingIntent contentIntent;
+    private final NotificationCompat.Builder progressBuilder;
+
+    // 마지막으로 올린 진행 알림 상태
+    private final StringBuilder statusText = new StringBuilder(96);
+    private final StringBuilder postedText = new StringBuilder(96);
+    private int postedStatus = -1;
+    private int postedProgress = -1;
+    private long postedTime = 0;
+
+    // 간격 제한으로 미룬 최신 진행 정보 (메인 스레드에서 간격이 끝나면 올림)
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final DownloadProgressInfo pendingProgress = new DownloadProgressInfo();
+    private boolean pendingScheduled = false;
+    private final Runnable postPending = this::postPending;
+
+    /**
+     * NotificationUpdater 생성자
+     *
+     * @param context 서비스 컨텍스트
+     */
+    public NotificationUpdater(Context context) {
+        this.context = context;
+        this.notificationManager = NotificationManagerCompat.from(context);
+
+        // MainActivity로 이동하는 Intent
+        Intent notificationIntent = new Intent(context, MainActivity.class);
+        contentIntent = PendingIntent.getActivity(context, 0, notificationIntent, PendingIntent.FLAG_IMMUTABLE);
+
+        // 다운로드 취소 Intent
+        Intent cancelIntent = new Intent(context, DownloadService.class);
+        cancelIntent.setAction(DownloadService.ACTION_CANCEL_DOWNLOAD);
+        PendingIntent cancelPendingIntent = PendingIntent.getService(context, 0, cancelIntent,
+                PendingIntent.FLAG_IMMUTABLE);
+
+        // 진행 알림 빌더 (진행률과 문구만 바꿔서 재사용)
+        progressBuilder = new NotificationCompat.Builder(context, NotificationUtils.CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.stat_sys_download)
+                .setContentTitle("OTA 다운로드")
+                .setContentIntent(contentIntent)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setOnlyAlertOnce(true)
+                .setOngoing(true)
+                .addAction(android.R.drawable.ic_delete, "취소", cancelPendingIntent);
+    }
+
+    /**
+     * Foreground 서비스 시작용 진행 알림 생성 (올린 것으로 기록)
+     *
+     * @param progress 진행 정보
+     * @return 알림 객체
+     */
+    public synchronized Notification buildForeground(DownloadProgressInfo progress) {
+        renderStatusText(progress);
+        return buildProgress(progress.getStatus(), progress.getProgress());
+    }
+
+    /**
+     * 진행 정보에 맞게 알림 갱신
+     * 진행 중에는 바뀐 내용이 있고 최소 간격이 지났을 때만 올리고, 상태 변경은 항상 올림
+     *
+     * @param progress 진행 정보
+     * @return 알림을 올렸으면 true
+     */
+    public synchronized boolean update(DownloadProgressInfo progress) {
+        int status = progress.getStatus();
+        switch (status) {
+            case DownloadProgressInfo.STATUS_DOWNLOADING:
+            case DownloadProgressInfo.STATUS_VERIFYING:
+                renderStatusText(progress);
+                if (status == postedStatus) {
+                    if (progress.getProgress() == postedProgress && contentEquals(statusText, postedText)) {
+                        // 화면에 보이는 내용이 같음
+                        cancelPending();
+                        return false;
+                    }
+                    long wait = postedTime + MIN_UPDATE_INTERVAL_MS - SystemClock.elapsedRealtime();
+                    if (wait > 0) {
+                        // 간격 제한 - 최신 값을 보관했다가 간격이 끝나면 올림
+                        pendingProgress.set(progress);
+                        if (!pendingScheduled) {
+                            pendingScheduled = true;
+                            handler.postDelayed(postPending, wait);
+                        }
+                        return false;
+                    }
+                }
+                cancelPending();
+                post(buildProgress(status, progress.getProgress()));
+                return true;
+
+            case DownloadProgressInfo.STATUS_COMPLETED:
+                // 다운로드 완료 알림
+                cancelPending();
+                post(buildFinal(android.R.drawable.stat_sys_download_done, "다운로드 완료", progress));
+                markFinal(status);
+                return true;
+
+            case DownloadProgressInfo.STATUS_FAILED:
+                // 실패 알림
+                cancelPending();
+                post(buildFinal(android.R.drawable.stat_notify_error, "다운로드 실패", progress));
+                markFinal(status);
+                return true;
+
+            case DownloadProgressInfo.STATUS_CANCELLED:
+                // 취소 시 서비스 종료하지 않고 알림만 업데이트
+                statusText.setLength(0);
+                statusText.append("다운로드 일시 중지됨");
+                cancelPending();
+                post(buildProgress(status, 0));
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    // 미룬 진행 알림 취소 (서비스 종료 시 또는 더 새로운 알림을 올릴 때)
+    public synchronized void cancelPending() {
+        if (pendingScheduled) {
+            pendingScheduled = false;
+            handler.removeCallbacks(postPending);
+        }
+    }
+
+    // 간격이 끝난 뒤 미룬 진행 알림 올리기 (그 사이 상태가 바뀌었거나 내용이 같으면 생략)
+    private synchronized void postPending() {
+        if (!pendingScheduled) {
+            return;
+        }
+        pendingScheduled = false;
+        int status = pendingProgress.getStatus();
+        if (status != postedStatus) {
+            return;
+        }
+        renderStatusText(pendingProgress);
+        if (pendingProgress.getProgress() == postedProgress && contentEquals(statusText, postedText)) {
+            return;
+        }
+        post(buildProgress(status, pendingProgress.getProgress()));
+    }
+
+    // 진행 알림 생성 후 올린 내용으로 기록 (문구는 statusText에 미리 작성)
+    private Notification buildProgress(int status, int percent) {
+        // 빌더는 문구를 복사하지 않고 참조하므로 재사용 버퍼가 아닌 문자열로 넘김
+        progressBuilder.setContentText(statusText.toString())
+                .setProgress(100, Math.max(0, percent), false);
+        postedText.setLength(0);
+        postedText.append(statusText);
+        postedStatus = status;
+        postedProgress = percent;
+        postedTime = SystemClock.elapsedRealtime();
+        return progressBuilder.build();
+    }
+
+    // 완료/실패 알림 생성 (한 번만 올리므로 빌더를 새로 만들고 PendingIntent는 재사용)
+    private Notification buildFinal(int icon, String title, DownloadProgressInfo progress) {
+        return new NotificationCompat.Builder(context, NotificationUtils.CHANNEL_ID)
+                .setSmallIcon(icon)
+                .setContentTitle(title)
+                .setContentText(progress.getStatusMessage())
+                .setContentIntent(contentIntent)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setAutoCancel(true)
+                .build();
+    }
+
+    private void markFinal(int status) {
+        Log.d(TAG, "최종 상태 알림 ▶ " + status);
+        postedText.setLength(0);
+        postedStatus = status;
+        postedProgress = -1;
+        postedTime = SystemClock.elapsedRealtime();
+    }
+
+    private void renderStatusText(DownloadProgressInfo progress) {
+        statusText.setLength(0);
+        progress.appendStatusMessage(statusText);
+    }
+
+    private void post(Notification notification) {
+        notificationManager.notify(NotificationUtils.NOTIFICATION_ID, notification);
+    }
+
+    private static boolean contentEquals(StringBuilder a, StringBuilder b) {
+        int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
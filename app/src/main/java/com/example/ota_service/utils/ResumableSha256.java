@@ -0,0 +1,232 @@
+package com.example.ota_service.utils;
+
+// 중간 상태(midstate)를 저장/복원할 수 있는 SHA-256 구현
+// MessageDigest는 내부 상태를 꺼낼 수 없으므로 이어받기 시 이미 받은 부분을 다시 읽지 않기 위해 직접 구현함
+public class ResumableSha256 {
+    private static final int BLOCK_SIZE = 64;
+    public static final int STATE_SIZE = 8 * 4 + 8 + 4 + BLOCK_SIZE; // 저장 상태 크기(bytes)
+
+    private static final int[] K = {
+            0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+            0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+            0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+            0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+            0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+            0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+            0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+            0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    private final int[] h = new int[8];
+    private final int[] w = new int[64];
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private long byteCount;
+
+    // 기본 생성자 (초기 상태)
+    public ResumableSha256() {
+        reset();
+    }
+
+    // 초기 상태로 되돌림
+    public synchronized void reset() {
+        h[0] = 0x6a09e667;
+        h[1] = 0xbb67ae85;
+        h[2] = 0x3c6ef372;
+        h[3] = 0xa54ff53a;
+        h[4] = 0x510e527f;
+        h[5] = 0x9b05688c;
+        h[6] = 0x1f83d9ab;
+        h[7] = 0x5be0cd19;
+        blockLength = 0;
+        byteCount = 0;
+    }
+
+    /**
+     * 데이터 추가
+     *
+     * @param data 데이터 배열
+     * @param offset 시작 위치
+     * @param length 길이
+     */
+    public synchronized void update(byte[] data, int offset, int length) {
+        byteCount += length;
+
+        // 이전에 남은 블록 채우기
+        if (blockLength > 0) {
+            int copy = Math.min(BLOCK_SIZE - blockLength, length);
+            System.arraycopy(data, offset, block, blockLength, copy);
+            blockLength += copy;
+            offset += copy;
+            length -= copy;
+            if (blockLength < BLOCK_SIZE) {
+                return;
+            }
+            compress(block, 0);
+            blockLength = 0;
+        }
+
+        // 전체 블록은 복사 없이 바로 처리
+        while (length >= BLOCK_SIZE) {
+            compress(data, offset);
+            offset += BLOCK_SIZE;
+            length -= BLOCK_SIZE;
+        }
+
+        if (length > 0) {
+            System.arraycopy(data, offset, block, 0, length);
+            blockLength = length;
+        }
+    }
+
+    // 지금까지 처리한 바이트 수 반환
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * 현재까지의 해시 값 계산 (내부 상태는 변경하지 않음)
+     *
+     * @return 32바이트 해시 값
+     */
+    public synchronized byte[] digest() {
+        ResumableSha256 copy = restore(saveState());
+
+        // 패딩: 0x80, 0 ..., 비트 길이(64bit)
+        long bitLength = copy.byteCount * 8;
+        byte[] padding = new byte[((copy.blockLength < 56) ? 56 : 120) - copy.blockLength + 8];
+        padding[0] = (byte) 0x80;
+        for (int i = 0; i < 8; i++) {
+            padding[padding.length - 1 - i] = (byte) (bitLength >>> (8 * i));
+        }
+        copy.update(padding, 0, padding.length);
+
+        byte[] result = new byte[32];
+        for (int i = 0; i < 8; i++) {
+            result[i * 4] = (byte) (copy.h[i] >>> 24);
+            result[i * 4 + 1] = (byte) (copy.h[i] >>> 16);
+            result[i * 4 + 2] = (byte) (copy.h[i] >>> 8);
+            result[i * 4 + 3] = (byte) copy.h[i];
+        }
+        return result;
+    }
+
+    // 현재까지의 해시 값을 16진수 문자열로 반환
+    public String digestHex() {
+        return toHex(digest());
+    }
+
+    /**
+     * 중간 상태 저장 (체크포인트용)
+     *
+     * @return STATE_SIZE 크기의 상태 배열
+     */
+    public synchronized byte[] saveState() {
+        byte[] state = new byte[STATE_SIZE];
+        int p = 0;
+        for (int value : h) {
+            p = putInt(state, p, value);
+        }
+        p = putInt(state, p, (int) (byteCount >>> 32));
+        p = putInt(state, p, (int) byteCount);
+        p = putInt(state, p, blockLength);
+        System.arraycopy(block, 0, state, p, BLOCK_SIZE);
+        return state;
+    }
+
+    /**
+     * 저장된 중간 상태로부터 복원
+     *
+     * @param state saveState()로 저장한 배열
+     * @return 복원된 객체, 형식이 맞지 않으면 null
+     */
+    public static ResumableSha256 restore(byte[] state) {
+        if (state == null || state.length != STATE_SIZE) {
+            return null;
+        }
+        ResumableSha256 sha = new ResumableSha256();
+        int p = 0;
+        for (int i = 0; i < 8; i++, p += 4) {
+            sha.h[i] = getInt(state, p);
+        }
+        sha.byteCount = ((long) getInt(state, p) << 32) | (getInt(state, p + 4) & 0xffffffffL);
+        p += 8;
+        sha.blockLength = getInt(state, p);
+        p += 4;
+        if (sha.blockLength < 0 || sha.blockLength >= BLOCK_SIZE
+                || sha.byteCount % BLOCK_SIZE != sha.blockLength) {
+            return null;
+        }
+        System.arraycopy(state, p, sha.block, 0, BLOCK_SIZE);
+        return sha;
+    }
+
+    // 바이트 배열을 16진수 문자열로 변환
+    public static String toHex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = digits[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    // 64바이트 블록 하나 처리
+    private void compress(byte[] data, int offset) {
+        for (int i = 0; i < 16; i++) {
+            w[i] = getInt(data, offset + i * 4);
+        }
+        for (int i = 16; i < 64; i++) {
+            int s0 = Integer.rotateRight(w[i - 15], 7) ^ Integer.rotateRight(w[i - 15], 18) ^ (w[i - 15] >>> 3);
+            int s1 = Integer.rotateRight(w[i - 2], 17) ^ Integer.rotateRight(w[i - 2], 19) ^ (w[i - 2] >>> 10);
+            w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+        }
+
+        int a = h[0], b = h[1], c = h[2], d = h[3], e = h[4], f = h[5], g = h[6], hh = h[7];
+        for (int i = 0; i < 64; i++) {
+            int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int t1 = hh + s1 + ch + K[i] + w[i];
+            int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            int t2 = s0 + maj;
+
+            hh = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+
+        h[0] += a;
+        h[1] += b;
+        h[2] += c;
+        h[3] += d;
+        h[4] += e;
+        h[5] += f;
+        h[6] += g;
+        h[7] += hh;
+    }
+
+    private static int putInt(byte[] dest, int p, int value) {
+        dest[p] = (byte) (value >>> 24);
+        dest[p + 1] = (byte) (value >>> 16);
+        dest[p + 2] = (byte) (value >>> 8);
+        dest[p + 3] = (byte) value;
+        return p + 4;
+    }
+
+    private static int getInt(byte[] src, int p) {
+        return ((src[p] & 0xff) << 24) | ((src[p + 1] & 0xff) << 16)
+                | ((src[p + 2] & 0xff) << 8) | (src[p + 3] & 0xff);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResumableSha256[" + byteCount + " bytes]";
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ota_service.download;
+
+import com.example.ota_service.utils.ResumableSha256;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.*;
+
+public class BlockManifestTest {
+
+    @Test
+    public void computeRoot_singleLeafIsLeaf() throws Exception {
+        byte[] leaf = sha256(new byte[]{1});
+        assertArrayEquals(leaf, BlockManifest.computeRoot(new byte[][]{leaf}));
+    }
+
+    @Test
+    public void computeRoot_hashesPairs() throws Exception {
+        byte[] a = sha256(new byte[]{1});
+        byte[] b = sha256(new byte[]{2});
+        assertArrayEquals(sha256(concat(a, b)), BlockManifest.computeRoot(new byte[][]{a, b}));
+    }
+
+    @Test
+    public void computeRoot_promotesUnpairedLastNode() throws Exception {
+        byte[] a = sha256(new byte[]{1});
+        byte[] b = sha256(new byte[]{2});
+        byte[] c = sha256(new byte[]{3});
+
+        // 세 번째 노드는 짝 없이 상위로 올라간 뒤 (a,b)와 결합
+        byte[] expected = sha256(concat(sha256(concat(a, b)), c));
+        assertArrayEquals(expected, BlockManifest.computeRoot(new byte[][]{a, b, c}));
+    }
+
+    @Test
+    public void computeRoot_emptyIsHashOfNothing() throws Exception {
+        assertArrayEquals(sha256(new byte[0]), BlockManifest.computeRoot(new byte[0][]));
+    }
+
+    @Test
+    public void parse_acceptsMatchingRoot() throws Exception {
+        byte[][] blocks = {sha256(new byte[]{1}), sha256(new byte[]{2}), sha256(new byte[]{3})};
+        BlockManifest manifest = BlockManifest.parse(manifestText(10, 25, blocks, BlockManifest.computeRoot(blocks)));
+
+        assertEquals(3, manifest.getBlockCount());
+        assertEquals(20, manifest.getBlockStart(2));
+        assertEquals(25, manifest.getBlockEnd(2));
+        assertArrayEquals(blocks[1], manifest.getBlockHash(1));
+        assertEquals(ResumableSha256.toHex(BlockManifest.computeRoot(blocks)), manifest.getRootHex());
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_rejectsRootMismatch() throws Exception {
+        byte[][] blocks = {sha256(new byte[]{1}), sha256(new byte[]{2})};
+        BlockManifest.parse(manifestText(10, 20, blocks, sha256(new byte[]{9})));
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_rejectsWrongBlockCount() throws Exception {
+        byte[][] blocks = {sha256(new byte[]{1}), sha256(new byte[]{2})};
+        BlockManifest.parse(manifestText(10, 30, blocks, BlockManifest.computeRoot(blocks)));
+    }
+
+    static String manifestText(int blockSize, long totalBytes, byte[][] blocks, byte[] root) {
+        StringBuilder text = new StringBuilder()
+                .append("block_size=").append(blockSize).append('\n')
+                .append("total_size=").append(totalBytes).append('\n')
+                .append("root=").append(ResumableSha256.toHex(root)).append('\n');
+        for (byte[] block : blocks) {
+            text.append(ResumableSha256.toHex(block)).append('\n');
+        }
+        return text.toString();
+    }
+
+    static byte[] sha256(byte[] data) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ota_service.download;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CheckpointSchedulerTest {
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void everyBytes_triggersAtThreshold() {
+        CheckpointScheduler.Policy policy = CheckpointScheduler.everyBytes(4 * MB);
+        assertFalse(policy.shouldCheckpoint(4 * MB - 1, 60000, 0));
+        assertTrue(policy.shouldCheckpoint(4 * MB, 0, 0));
+    }
+
+    @Test
+    public void everyInterval_requiresProgress() {
+        CheckpointScheduler.Policy policy = CheckpointScheduler.everyInterval(3000);
+        assertFalse(policy.shouldCheckpoint(1, 2999, 0));
+        assertTrue(policy.shouldCheckpoint(1, 3000, 0));
+
+        // 진행이 없으면 시간이 지나도 저장하지 않음
+        assertFalse(policy.shouldCheckpoint(0, 60000, 0));
+    }
+
+    @Test
+    public void adaptive_scalesWithSpeed() {
+        CheckpointScheduler.Policy policy = CheckpointScheduler.adaptive(3000, 4 * MB, 64 * MB);
+
+        // 10MB/s -> 약 3초 분량(30MB)마다 저장
+        long speed = 10 * MB;
+        assertFalse(policy.shouldCheckpoint(30 * MB - 1, 1000, speed));
+        assertTrue(policy.shouldCheckpoint(30 * MB, 1000, speed));
+    }
+
+    @Test
+    public void adaptive_clampsToMinAndMaxBytes() {
+        CheckpointScheduler.Policy policy = CheckpointScheduler.adaptive(3000, 4 * MB, 64 * MB);
+
+        // 느린 회선은 최소 간격, 빠른 회선은 최대 간격으로 제한
+        assertFalse(policy.shouldCheckpoint(4 * MB - 1, 1000, 100 * 1024));
+        assertTrue(policy.shouldCheckpoint(4 * MB, 1000, 100 * 1024));
+        assertFalse(policy.shouldCheckpoint(64 * MB - 1, 1000, 1000 * MB));
+        assertTrue(policy.shouldCheckpoint(64 * MB, 1000, 1000 * MB));
+    }
+
+    @Test
+    public void adaptive_savesAfterTimeCapEvenWhenSlow() {
+        CheckpointScheduler.Policy policy = CheckpointScheduler.adaptive(3000, 4 * MB, 64 * MB);
+
+        // 목표 간격의 10배가 지나면 분량과 상관없이 저장 (진행이 있을 때만)
+        assertFalse(policy.shouldCheckpoint(1024, 29999, 10));
+        assertTrue(policy.shouldCheckpoint(1024, 30000, 10));
+        assertFalse(policy.shouldCheckpoint(0, 30000, 10));
+    }
+}
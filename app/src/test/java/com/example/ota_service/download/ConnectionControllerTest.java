@@ -0,0 +1,100 @@
+package com.example.ota_service.download;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConnectionControllerTest {
+    private ConnectionController controller;
+    private final List<Integer> decisions = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        controller = new ConnectionController(1, 8, 2);
+        controller.setListener((previousCount, newCount, bytesPerSecond, decision) -> decisions.add(decision));
+    }
+
+    @Test
+    public void constructor_clampsInitialCount() {
+        assertEquals(8, new ConnectionController(1, 8, 20).getConnectionCount());
+        assertEquals(2, new ConnectionController(2, 8, 0).getConnectionCount());
+    }
+
+    @Test
+    public void onSample_skipsWarmUpThenProbesUp() {
+        // 첫 측정은 연결 수립 구간이라 건너뜀
+        assertEquals(2, controller.onSample(100));
+        assertTrue(decisions.isEmpty());
+
+        assertEquals(3, controller.onSample(100));
+        assertEquals(ConnectionController.DECISION_INCREASE, (int) decisions.get(0));
+    }
+
+    @Test
+    public void onSample_keepsAddingWhileThroughputGrows() {
+        controller.onSample(100);               // 워밍업
+        controller.onSample(100);               // 2 -> 3
+        controller.onSample(0);                 // 워밍업
+        assertEquals(4, controller.onSample(120));  // 20% 증가 -> 3 -> 4
+        assertEquals(2, decisions.size());
+        assertEquals(ConnectionController.DECISION_INCREASE, (int) decisions.get(1));
+    }
+
+    @Test
+    public void onSample_revertsWhenProbeHasNoGain() {
+        controller.onSample(100);
+        controller.onSample(100);               // 2 -> 3
+        controller.onSample(0);
+        assertEquals(2, controller.onSample(102));  // 5% 미만 -> 되돌림
+        assertEquals(ConnectionController.DECISION_REVERT, (int) decisions.get(1));
+    }
+
+    @Test
+    public void onSample_probesAgainAfterHoldPeriod() {
+        controller.onSample(100);
+        controller.onSample(100);               // 2 -> 3
+        controller.onSample(0);
+        controller.onSample(100);               // 되돌림 3 -> 2
+        controller.onSample(0);                 // 워밍업
+
+        // 안정 상태로 일정 횟수 측정한 뒤에 다시 하나 늘려 봄
+        for (int i = 0; i < 4; i++) {
+            assertEquals(2, controller.onSample(100));
+        }
+        assertEquals(3, controller.onSample(100));
+        assertEquals(ConnectionController.DECISION_INCREASE, (int) decisions.get(decisions.size() - 1));
+    }
+
+    @Test
+    public void onSample_halvesOnCongestion() {
+        ConnectionController large = new ConnectionController(1, 8, 6);
+        large.onSample(0);
+        large.onSample(600);                    // 6 -> 7
+        large.onSample(0);
+        large.onSample(600);                    // 이득 없음 -> 6
+        large.onSample(0);
+        large.onSample(600);                    // 안정 상태 기준
+
+        // 30% 넘게 떨어지면 절반으로
+        assertEquals(3, large.onSample(300));
+    }
+
+    @Test
+    public void onSample_neverExceedsBounds() {
+        ConnectionController bounded = new ConnectionController(1, 2, 2);
+        bounded.onSample(0);
+        assertEquals(2, bounded.onSample(100));
+
+        ConnectionController single = new ConnectionController(1, 4, 1);
+        single.onSample(0);
+        single.onSample(100);                   // 1 -> 2
+        single.onSample(0);
+        single.onSample(100);                   // 되돌림 -> 1
+        single.onSample(0);
+        assertEquals(1, single.onSample(10));   // 최소 연결 수에서는 줄이지 않음
+    }
+}
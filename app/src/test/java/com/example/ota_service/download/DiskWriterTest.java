@@ -0,0 +1,85 @@
+package com.example.ota_service.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class DiskWriterTest {
+    private static final int BUFFER_SIZE = 16;
+    private static final int QUEUE_DEPTH = 2;
+
+    private File file;
+    private RandomAccessFile raf;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("writer", ".bin");
+        raf = new RandomAccessFile(file, "rw");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        raf.close();
+        file.delete();
+    }
+
+    @Test
+    public void finish_writesChunksAtPosition() throws Exception {
+        DiskWriter writer = new DiskWriter(raf.getChannel(), BUFFER_SIZE, QUEUE_DEPTH, null);
+        writer.start();
+        submit(writer, 4, "world");
+        submit(writer, 0, "hi, ");
+        writer.finish();
+
+        byte[] data = new byte[9];
+        raf.seek(0);
+        raf.readFully(data);
+        assertEquals("hi, world", new String(data, "US-ASCII"));
+    }
+
+    @Test
+    public void listenerError_failsReaderInsteadOfHanging() throws Exception {
+        DiskWriter writer = new DiskWriter(raf.getChannel(), BUFFER_SIZE, QUEUE_DEPTH, chunk -> {
+            throw new IllegalStateException("listener");
+        });
+        writer.start();
+
+        // 리스너 오류 뒤에도 쓰기 스레드가 버퍼를 돌려주지 못하면 acquire/submit이 계속 대기함
+        IOException failure = null;
+        try {
+            for (int i = 0; i < 100; i++) {
+                submit(writer, i * BUFFER_SIZE, "data");
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        assertNotNull(failure);
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+
+        writer.abort();
+    }
+
+    @Test(expected = IOException.class)
+    public void finish_reportsListenerError() throws Exception {
+        DiskWriter writer = new DiskWriter(raf.getChannel(), BUFFER_SIZE, QUEUE_DEPTH, chunk -> {
+            throw new IllegalStateException("listener");
+        });
+        writer.start();
+        submit(writer, 0, "data");
+        writer.finish();
+    }
+
+    private static void submit(DiskWriter writer, long position, String text) throws IOException {
+        BufferPool.Chunk chunk = writer.acquire();
+        byte[] bytes = text.getBytes("US-ASCII");
+        System.arraycopy(bytes, 0, chunk.array(), 0, bytes.length);
+        chunk.set(position, bytes.length);
+        writer.submit(chunk);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ota_service.download;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class MultipartRangeReaderTest {
+    private static final String BOUNDARY = "3d6b6a416f9b5";
+
+    @Test
+    public void getBoundary_parsesQuotedAndPlainValues() {
+        assertEquals(BOUNDARY, MultipartRangeReader.getBoundary("multipart/byteranges; boundary=" + BOUNDARY));
+        assertEquals(BOUNDARY, MultipartRangeReader.getBoundary("Multipart/ByteRanges;boundary=\"" + BOUNDARY + "\""));
+        assertNull(MultipartRangeReader.getBoundary("application/octet-stream"));
+        assertNull(MultipartRangeReader.getBoundary("multipart/byteranges"));
+        assertNull(MultipartRangeReader.getBoundary(null));
+    }
+
+    @Test
+    public void parseContentRange_returnsExclusiveEnd() {
+        assertArrayEquals(new long[]{500, 1000}, MultipartRangeReader.parseContentRange("bytes 500-999/8000"));
+        assertArrayEquals(new long[]{0, 1}, MultipartRangeReader.parseContentRange("bytes 0-0/*"));
+        assertNull(MultipartRangeReader.parseContentRange("bytes */8000"));
+        assertNull(MultipartRangeReader.parseContentRange("bytes 10-5/8000"));
+        assertNull(MultipartRangeReader.parseContentRange("items 0-9/10"));
+    }
+
+    @Test
+    public void nextPart_readsEachPartBody() throws Exception {
+        Buffer body = new Buffer()
+                .writeUtf8("preamble\r\n")
+                .writeUtf8(part(0, "hello"))
+                .writeUtf8(part(100, "world!"))
+                .writeUtf8("\r\n--" + BOUNDARY + "--\r\n");
+        MultipartRangeReader reader = new MultipartRangeReader(body, BOUNDARY);
+        BufferPool.Chunk chunk = new BufferPool(4, 1).acquire(0);
+
+        assertArrayEquals(new long[]{0, 5}, reader.nextPart());
+        assertEquals("hello", readPart(reader, chunk));
+
+        assertArrayEquals(new long[]{100, 106}, reader.nextPart());
+        assertEquals(100, reader.getPartPosition());
+        assertEquals("world!", readPart(reader, chunk));
+        assertEquals(106, reader.getPartPosition());
+
+        assertNull(reader.nextPart());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    public void nextPart_skipsUnreadBody() throws Exception {
+        Buffer body = new Buffer()
+                .writeUtf8(part(0, "skipped"))
+                .writeUtf8(part(50, "kept"))
+                .writeUtf8("\r\n--" + BOUNDARY + "--\r\n");
+        MultipartRangeReader reader = new MultipartRangeReader(body, BOUNDARY);
+        BufferPool.Chunk chunk = new BufferPool(16, 1).acquire(0);
+
+        reader.nextPart();
+        assertArrayEquals(new long[]{50, 54}, reader.nextPart());
+        assertEquals("kept", readPart(reader, chunk));
+    }
+
+    @Test(expected = IOException.class)
+    public void nextPart_rejectsPartWithoutContentRange() throws Exception {
+        Buffer body = new Buffer()
+                .writeUtf8("--" + BOUNDARY + "\r\n")
+                .writeUtf8("Content-Type: application/octet-stream\r\n\r\n")
+                .writeUtf8("data");
+        new MultipartRangeReader(body, BOUNDARY).nextPart();
+    }
+
+    @Test(expected = IOException.class)
+    public void fill_failsWhenPartIsTruncated() throws Exception {
+        Buffer body = new Buffer()
+                .writeUtf8("--" + BOUNDARY + "\r\n")
+                .writeUtf8("Content-Range: bytes 0-9/100\r\n\r\n")
+                .writeUtf8("short");
+        MultipartRangeReader reader = new MultipartRangeReader(body, BOUNDARY);
+        BufferPool.Chunk chunk = new BufferPool(16, 1).acquire(0);
+
+        reader.nextPart();
+        // 선언한 길이보다 먼저 끝나면 오류
+        readPart(reader, chunk);
+    }
+
+    private static String part(long start, String data) {
+        // 앞 파트 본문 뒤의 줄바꿈은 구분자 줄에 붙여서 전송됨
+        return (start == 0 ? "" : "\r\n") + "--" + BOUNDARY + "\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Range: bytes " + start + "-" + (start + data.length() - 1) + "/1000\r\n"
+                + "\r\n"
+                + data;
+    }
+
+    private static String readPart(MultipartRangeReader reader, BufferPool.Chunk chunk) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int read;
+        while ((read = reader.fill(chunk)) != -1) {
+            builder.append(new String(chunk.array(), 0, read, StandardCharsets.US_ASCII));
+        }
+        return builder.toString();
+    }
+}
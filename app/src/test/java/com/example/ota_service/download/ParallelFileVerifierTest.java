@@ -0,0 +1,91 @@
+package com.example.ota_service.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParallelFileVerifierTest {
+    private static final int BLOCK_SIZE = 1024;
+    private static final int TOTAL_BYTES = BLOCK_SIZE * 5 + 100;   // 마지막 블록은 짧음
+
+    private File file;
+    private BlockManifest manifest;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] data = new byte[TOTAL_BYTES];
+        new Random(1).nextBytes(data);
+        file = File.createTempFile("verify", ".bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+
+        byte[][] blocks = new byte[6][];
+        for (int i = 0; i < blocks.length; i++) {
+            int start = i * BLOCK_SIZE;
+            int end = Math.min(TOTAL_BYTES, start + BLOCK_SIZE);
+            blocks[i] = BlockManifestTest.sha256(Arrays.copyOfRange(data, start, end));
+        }
+        manifest = BlockManifest.parse(BlockManifestTest.manifestText(BLOCK_SIZE, TOTAL_BYTES, blocks,
+                BlockManifest.computeRoot(blocks)));
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void verify_intactFileHasNoMismatches() throws Exception {
+        assertTrue(new ParallelFileVerifier(3).verify(file, manifest, null).isEmpty());
+    }
+
+    @Test
+    public void verify_reportsEveryCorruptedBlock() throws Exception {
+        corrupt(BLOCK_SIZE + 10);           // 블록 1
+        corrupt(BLOCK_SIZE * 3);            // 블록 3 첫 바이트
+        corrupt(TOTAL_BYTES - 1);           // 마지막(짧은) 블록 5
+
+        List<Integer> mismatched = new ParallelFileVerifier(3).verify(file, manifest, null);
+        assertEquals(Arrays.asList(1, 3, 5), mismatched);
+    }
+
+    @Test
+    public void verify_reportsProgressUpToTotal() throws Exception {
+        final long[] last = new long[2];
+        new ParallelFileVerifier(2).verify(file, manifest, (verifiedBytes, totalBytes) -> {
+            last[0] = verifiedBytes;
+            last[1] = totalBytes;
+        });
+        assertEquals(TOTAL_BYTES, last[0]);
+        assertEquals(TOTAL_BYTES, last[1]);
+    }
+
+    @Test(expected = IOException.class)
+    public void verify_rejectsSizeMismatch() throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(TOTAL_BYTES - 1);
+        }
+        new ParallelFileVerifier(2).verify(file, manifest, null);
+    }
+
+    // 해당 위치의 바이트를 뒤집음
+    private void corrupt(long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(~value);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.ota_service.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ProgressBusTest {
+    private ProgressBus bus;
+    private QueueExecutor executor;
+    private List<DownloadProgressInfo> received;
+
+    @Before
+    public void setUp() {
+        bus = new ProgressBus();
+        executor = new QueueExecutor();
+        received = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    @Test
+    public void publish_conflatesProgressToLatest() {
+        bus.subscribe(this::record, 0, executor);
+        DownloadProgressInfo progress = new DownloadProgressInfo();
+
+        // 발행하는 쪽은 같은 객체를 계속 갱신해서 사용
+        bus.publish(progress.setDownloading(10, 100, 0));
+        bus.publish(progress.setDownloading(20, 100, 0));
+        bus.publish(progress.setDownloading(30, 100, 0));
+        executor.runAll();
+
+        // 상태 변경(첫 DOWNLOADING)은 그대로, 뒤의 진행 정보는 마지막 값 하나로 합쳐짐
+        assertEquals(2, received.size());
+        assertEquals(10, received.get(0).getDownloadedBytes());
+        assertEquals(30, received.get(1).getDownloadedBytes());
+    }
+
+    @Test
+    public void publish_keepsTransitionsInOrder() {
+        bus.subscribe(this::record, 0, executor);
+
+        bus.publish(DownloadProgressInfo.createStarting());
+        bus.publish(DownloadProgressInfo.createDownloading(50, 100, 0));
+        bus.publish(DownloadProgressInfo.createVerifying(10, 100));
+        bus.publish(DownloadProgressInfo.createCompleted(100, 1000));
+        executor.runAll();
+
+        assertStatuses(DownloadProgressInfo.STATUS_CONNECTING, DownloadProgressInfo.STATUS_DOWNLOADING,
+                DownloadProgressInfo.STATUS_VERIFYING, DownloadProgressInfo.STATUS_COMPLETED);
+    }
+
+    @Test
+    public void publish_dropsThrottledProgressBeforeTransition() {
+        // 간격이 길면 다음 상태 변경이 기다리는 동안 이전 진행 정보는 건너뜀
+        bus.subscribe(this::record, 60000, executor);
+
+        bus.publish(DownloadProgressInfo.createDownloading(10, 100, 0));
+        executor.runAll();
+        bus.publish(DownloadProgressInfo.createDownloading(50, 100, 0));
+        bus.publish(DownloadProgressInfo.createCompleted(100, 1000));
+        executor.runAll();
+
+        assertStatuses(DownloadProgressInfo.STATUS_DOWNLOADING, DownloadProgressInfo.STATUS_COMPLETED);
+        assertEquals(10, received.get(0).getDownloadedBytes());
+    }
+
+    @Test
+    public void publish_deliversRepeatedTerminalStatus() {
+        bus.subscribe(this::record, 60000, executor);
+
+        bus.publish(DownloadProgressInfo.createFailed("first"));
+        bus.publish(DownloadProgressInfo.createFailed("second"));
+        executor.runAll();
+
+        // 최종 상태는 같은 상태라도 합치지 않음
+        assertEquals(2, received.size());
+        assertEquals(DownloadProgressInfo.createFailed("second").getErrorMessage(), received.get(1).getErrorMessage());
+    }
+
+    @Test
+    public void subscribe_replaysLastPublished() {
+        bus.publish(DownloadProgressInfo.createDownloading(40, 100, 0));
+        bus.subscribe(this::record, 0, executor);
+        executor.runAll();
+
+        assertEquals(1, received.size());
+        assertEquals(40, received.get(0).getDownloadedBytes());
+    }
+
+    @Test
+    public void unsubscribe_dropsPendingEvents() {
+        ProgressBus.Subscriber subscriber = this::record;
+        bus.subscribe(subscriber, 0, executor);
+        bus.publish(DownloadProgressInfo.createStarting());
+        bus.unsubscribe(subscriber);
+        executor.runAll();
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void getLastPublished_returnsCopy() {
+        assertNull(bus.getLastPublished());
+
+        DownloadProgressInfo progress = DownloadProgressInfo.createDownloading(10, 100, 0);
+        bus.publish(progress);
+        progress.setDownloading(90, 100, 0);
+
+        DownloadProgressInfo last = bus.getLastPublished();
+        assertEquals(10, last.getDownloadedBytes());
+        assertNotSame(last, bus.getLastPublished());
+    }
+
+    // 전달된 객체는 버스가 재사용하므로 복사해서 보관
+    private void record(DownloadProgressInfo progress) {
+        received.add(new DownloadProgressInfo(progress));
+    }
+
+    private void assertStatuses(int... statuses) {
+        assertEquals(statuses.length, received.size());
+        for (int i = 0; i < statuses.length; i++) {
+            assertEquals(statuses[i], received.get(i).getStatus());
+        }
+    }
+
+    // 테스트 스레드에서 직접 실행하는 Executor (실행 시점을 테스트가 정함)
+    private static class QueueExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.addLast(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.pollFirst()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ota_service.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CheckpointStoreTest {
+    private static final int SLOT_SIZE = 256;
+    private static final int HEADER_SIZE = 24;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("checkpoint", ".ckpt");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void read_withoutFileReturnsNull() {
+        assertNull(new CheckpointStore(file, SLOT_SIZE).read());
+    }
+
+    @Test
+    public void read_returnsLatestWrite() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        write(store, "first");
+        write(store, "second");
+        assertEquals("second", read(store));
+        store.close();
+
+        // 다시 열어도 순번이 큰 쪽을 읽음
+        assertEquals("second", read(new CheckpointStore(file, SLOT_SIZE)));
+    }
+
+    @Test
+    public void read_fallsBackWhenLatestBodyIsCorrupted() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        write(store, "first");      // 슬롯 0
+        write(store, "second");     // 슬롯 1
+        store.close();
+
+        flipByte(SLOT_SIZE + HEADER_SIZE);
+        assertEquals("first", read(new CheckpointStore(file, SLOT_SIZE)));
+    }
+
+    @Test
+    public void read_fallsBackWhenLatestHeaderIsTorn() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        write(store, "first");
+        write(store, "second");
+        store.close();
+
+        // 헤더를 쓰기 전에 종료된 경우 (매직 값이 없음)
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(SLOT_SIZE);
+            raf.write(new byte[HEADER_SIZE]);
+        }
+        assertEquals("first", read(new CheckpointStore(file, SLOT_SIZE)));
+    }
+
+    @Test
+    public void read_returnsNullWhenBothSlotsAreCorrupted() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        write(store, "first");
+        write(store, "second");
+        store.close();
+
+        flipByte(HEADER_SIZE);
+        flipByte(SLOT_SIZE + HEADER_SIZE);
+        assertNull(new CheckpointStore(file, SLOT_SIZE).read());
+    }
+
+    @Test
+    public void write_afterFallbackKeepsValidSlot() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        write(store, "first");
+        write(store, "second");
+        store.close();
+        flipByte(SLOT_SIZE + HEADER_SIZE);
+
+        // 손상된 슬롯 쪽에 새로 기록하고 유효한 이전 기록은 남겨 둠
+        CheckpointStore reopened = new CheckpointStore(file, SLOT_SIZE);
+        assertEquals("first", read(reopened));
+        write(reopened, "third");
+        assertEquals("third", read(reopened));
+        reopened.close();
+
+        flipByte(SLOT_SIZE + HEADER_SIZE);
+        assertEquals("first", read(new CheckpointStore(file, SLOT_SIZE)));
+    }
+
+    @Test(expected = IOException.class)
+    public void write_rejectsPayloadLargerThanSlot() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        store.write(ByteBuffer.allocate(store.getCapacity() + 1));
+    }
+
+    @Test
+    public void clear_removesFile() throws Exception {
+        CheckpointStore store = new CheckpointStore(file, SLOT_SIZE);
+        write(store, "first");
+        store.clear();
+        assertFalse(file.exists());
+        assertNull(store.read());
+    }
+
+    private static void write(CheckpointStore store, String text) throws IOException {
+        store.write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(CheckpointStore store) {
+        ByteBuffer buffer = store.read();
+        assertNotNull(buffer);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void flipByte(long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(~value);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.ota_service.model;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RangeSetTest {
+
+    @Test
+    public void add_mergesOverlappingAndAdjacentRanges() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+        set.add(10, 20);    // 맞닿음
+        set.add(5, 15);     // 겹침
+        assertEquals("[0-20]", set.toString());
+        assertEquals(1, set.getRangeCount());
+        assertEquals(20, set.getCoveredBytes());
+    }
+
+    @Test
+    public void add_keepsRangesSortedAndBridgesGaps() {
+        RangeSet set = new RangeSet();
+        set.add(40, 50);
+        set.add(0, 10);
+        set.add(20, 30);
+        assertEquals("[0-10, 20-30, 40-50]", set.toString());
+
+        // 가운데를 덮는 구간은 양쪽 구간까지 연쇄 병합
+        set.add(5, 45);
+        assertEquals("[0-50]", set.toString());
+    }
+
+    @Test
+    public void add_ignoresEmptyRange() {
+        RangeSet set = new RangeSet();
+        set.add(10, 10);
+        set.add(20, 5);
+        assertEquals(0, set.getRangeCount());
+    }
+
+    @Test
+    public void add_growsPastInitialCapacity() {
+        RangeSet set = new RangeSet();
+        for (int i = 0; i < 100; i++) {
+            set.add(i * 10L, i * 10L + 5);
+        }
+        assertEquals(100, set.getRangeCount());
+        assertEquals(500, set.getCoveredBytes());
+    }
+
+    @Test
+    public void remove_splitsAndTrimsRanges() {
+        RangeSet set = new RangeSet();
+        set.add(0, 100);
+        set.remove(40, 60);
+        assertEquals("[0-40, 60-100]", set.toString());
+
+        set.remove(30, 70);
+        assertEquals("[0-30, 70-100]", set.toString());
+
+        set.remove(90, Long.MAX_VALUE);
+        assertEquals("[0-30, 70-90]", set.toString());
+
+        set.remove(0, 30);
+        assertEquals("[70-90]", set.toString());
+    }
+
+    @Test
+    public void contains_requiresSingleCoveringRange() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+        set.add(20, 30);
+        assertTrue(set.contains(0, 10));
+        assertTrue(set.contains(22, 28));
+        assertFalse(set.contains(5, 25));
+        assertFalse(set.contains(10, 11));
+        assertTrue(set.contains(15, 15));
+    }
+
+    @Test
+    public void getContiguousPrefix_onlyCountsRangeFromZero() {
+        RangeSet set = new RangeSet();
+        set.add(10, 20);
+        assertEquals(0, set.getContiguousPrefix());
+        set.add(0, 10);
+        assertEquals(20, set.getContiguousPrefix());
+    }
+
+    @Test
+    public void getMissingRanges_returnsGapsUpToTotal() {
+        RangeSet set = new RangeSet();
+        set.add(10, 20);
+        set.add(30, 40);
+        List<long[]> missing = set.getMissingRanges(50);
+        assertEquals(3, missing.size());
+        assertArrayEquals(new long[]{0, 10}, missing.get(0));
+        assertArrayEquals(new long[]{20, 30}, missing.get(1));
+        assertArrayEquals(new long[]{40, 50}, missing.get(2));
+    }
+
+    @Test
+    public void getMissingRanges_clipsToTotalBytes() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+        set.add(30, 60);
+        List<long[]> missing = set.getMissingRanges(35);
+        assertEquals(1, missing.size());
+        assertArrayEquals(new long[]{10, 30}, missing.get(0));
+
+        assertTrue(set.getMissingRanges(10).isEmpty());
+        assertEquals(1, new RangeSet().getMissingRanges(5).size());
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrip() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+        set.add(20, 30);
+        set.add(40, 50);
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        assertEquals(3, set.writeTo(buffer));
+        buffer.flip();
+        assertEquals(set.toString(), RangeSet.readFrom(buffer).toString());
+    }
+
+    @Test
+    public void writeTo_truncatesToLeadingRangesWhenBufferIsShort() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+        set.add(20, 30);
+        set.add(40, 50);
+
+        // 개수(4) + 구간 두 개(32)만 들어가는 공간
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 16 * 2 + 15);
+        assertEquals(2, set.writeTo(buffer));
+        buffer.flip();
+        RangeSet restored = RangeSet.readFrom(buffer);
+        assertEquals("[0-10, 20-30]", restored.toString());
+
+        // 뒤쪽 구간이 빠져도 완료 범위를 부풀리지 않음
+        assertTrue(restored.getCoveredBytes() <= set.getCoveredBytes());
+    }
+
+    @Test
+    public void writeTo_writesZeroCountWhenNoRoomForRanges() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        assertEquals(0, set.writeTo(buffer));
+        buffer.flip();
+        assertEquals(0, RangeSet.readFrom(buffer).getRangeCount());
+    }
+
+    @Test
+    public void copy_isIndependent() {
+        RangeSet set = new RangeSet();
+        set.add(0, 10);
+        RangeSet copy = set.copy();
+        set.add(20, 30);
+        copy.remove(0, 5);
+        assertEquals("[0-10, 20-30]", set.toString());
+        assertEquals("[5-10]", copy.toString());
+    }
+}
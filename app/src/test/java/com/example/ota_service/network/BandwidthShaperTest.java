@@ -0,0 +1,93 @@
+package com.example.ota_service.network;
+
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+
+import static org.junit.Assert.*;
+
+public class BandwidthShaperTest {
+    private static final int KB = 1024;
+
+    @Test
+    public void acquire_unlimitedDoesNotWait() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper();
+        long start = System.nanoTime();
+        shaper.acquire(100 * 1024 * KB);
+        assertTrue(elapsedMs(start) < 50);
+    }
+
+    @Test
+    public void acquire_waitsForRate() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper();
+        shaper.setRate(1024 * KB);
+
+        // 토큰이 없는 상태에서 0.5초 분량 -> 약 0.5초 대기
+        long start = System.nanoTime();
+        shaper.acquire(512 * KB);
+        long elapsed = elapsedMs(start);
+        assertTrue("elapsed " + elapsed, elapsed >= 400);
+        assertTrue("elapsed " + elapsed, elapsed < 1500);
+    }
+
+    @Test
+    public void acquire_burstIsCappedAfterIdle() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper();
+        shaper.setRate(1024 * KB);      // 누적 한도 = 0.25초 분량(256KB)
+        Thread.sleep(600);
+
+        // 쉬는 동안 쌓인 토큰은 한도까지만 사용 가능
+        long start = System.nanoTime();
+        shaper.acquire(256 * KB);
+        assertTrue(elapsedMs(start) < 100);
+
+        start = System.nanoTime();
+        shaper.acquire(256 * KB);
+        long elapsed = elapsedMs(start);
+        assertTrue("elapsed " + elapsed, elapsed >= 180);
+    }
+
+    @Test
+    public void setRate_wakesWaitingReader() throws Exception {
+        final BandwidthShaper shaper = new BandwidthShaper();
+        shaper.setRate(64 * KB);
+
+        // 10초 분량을 기다리는 중 제한 해제 -> 바로 돌아옴
+        Thread release = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            shaper.setRate(BandwidthShaper.UNLIMITED);
+        });
+        release.start();
+        long start = System.nanoTime();
+        shaper.acquire(640 * KB);
+        assertTrue(elapsedMs(start) < 2000);
+        assertEquals(BandwidthShaper.UNLIMITED, shaper.getRate());
+        release.join();
+    }
+
+    @Test(expected = InterruptedIOException.class)
+    public void acquire_interruptedWhileWaiting() throws Exception {
+        BandwidthShaper shaper = new BandwidthShaper();
+        shaper.setRate(64 * KB);
+        Thread.currentThread().interrupt();
+        try {
+            shaper.acquire(640 * KB);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void foregroundLimited_onlyLimitsInForeground() {
+        BandwidthShaper.Policy policy = BandwidthShaper.foregroundLimited(512 * KB);
+        assertEquals(512 * KB, policy.getRateLimit(true));
+        assertEquals(BandwidthShaper.UNLIMITED, policy.getRateLimit(false));
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+}
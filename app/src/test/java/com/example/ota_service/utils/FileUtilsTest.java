@@ -0,0 +1,80 @@
+package com.example.ota_service.utils;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FileUtilsTest {
+    private static final long KB = 1024;
+    private static final long MB = KB * 1024;
+    private static final long GB = MB * 1024;
+
+    @Test
+    public void formatFileSize_matchesPreviousFormat() {
+        long[] sizes = {
+                0, 1, 999, 1023, KB, KB + 5, KB + 128, KB * 1000, MB - 1, MB, MB + 5243,
+                GB - 1, GB, 3 * GB + 512 * MB, 1024 * GB, 5000 * GB
+        };
+        for (long size : sizes) {
+            assertEquals("size " + size, previousFileSize(size), FileUtils.formatFileSize(size));
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            long size = random.nextLong() & ((1L << (1 + random.nextInt(50))) - 1);
+            assertEquals("size " + size, previousFileSize(size), FileUtils.formatFileSize(size));
+        }
+    }
+
+    @Test
+    public void formatDownloadTime_matchesPreviousFormat() {
+        long[] times = { 0, 999, 1000, 1049, 1050, 1950, 9999, 59949, 59950, 60000, 61000, 3599999, 3600000, 90061000 };
+        for (long millis : times) {
+            assertEquals("millis " + millis, previousDownloadTime(millis), FileUtils.formatDownloadTime(millis));
+        }
+        for (long millis = 0; millis < 200000; millis += 7) {
+            assertEquals("millis " + millis, previousDownloadTime(millis), FileUtils.formatDownloadTime(millis));
+        }
+    }
+
+    @Test
+    public void appendFileSize_appendsToExistingBuilder() {
+        StringBuilder builder = new StringBuilder("크기: ");
+        assertSame(builder, FileUtils.appendFileSize(builder, 3 * MB / 2));
+        assertEquals("크기: 1.50 MB", builder.toString());
+
+        FileUtils.appendDownloadTime(builder.append(", "), 1500);
+        assertEquals("크기: 1.50 MB, 1.5초", builder.toString());
+    }
+
+    // 정수 연산으로 바꾸기 전의 구현 (소수점 기호를 맞추기 위해 Locale만 고정)
+    private static String previousFileSize(long size) {
+        if (size <= 0) return "0 B";
+
+        final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" };
+        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
+
+        return String.format(Locale.ROOT, "%.2f %s", size / Math.pow(1024, digitGroups), units[digitGroups]);
+    }
+
+    private static String previousDownloadTime(long millis) {
+        if (millis < 1000) {
+            return millis + "ms";
+        }
+
+        long seconds = millis / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+
+        if (hours > 0) {
+            return String.format(Locale.ROOT, "%d시간 %d분 %d초", hours, minutes % 60, seconds % 60);
+        } else if (minutes > 0) {
+            return String.format(Locale.ROOT, "%d분 %d초", minutes, seconds % 60);
+        } else {
+            return String.format(Locale.ROOT, "%.1f초", millis / 1000.0);
+        }
+    }
+}
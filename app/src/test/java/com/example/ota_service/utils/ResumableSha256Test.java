@@ -0,0 +1,101 @@
+package com.example.ota_service.utils;
+
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResumableSha256Test {
+
+    // 블록 경계(64바이트)에 맞지 않는 길이와 분할 위치 포함
+    private static final int[] LENGTHS = {0, 1, 55, 56, 63, 64, 65, 119, 120, 128, 1000, 4096 + 7};
+
+    @Test
+    public void digest_matchesMessageDigest() throws Exception {
+        for (int length : LENGTHS) {
+            byte[] data = randomBytes(length, length);
+            ResumableSha256 sha = new ResumableSha256();
+            sha.update(data, 0, data.length);
+            assertArrayEquals("length " + length, expected(data), sha.digest());
+            assertEquals(length, sha.getByteCount());
+        }
+    }
+
+    @Test
+    public void saveStateRestore_continuesAtAnySplit() throws Exception {
+        byte[] data = randomBytes(1000, 42);
+        byte[] expected = expected(data);
+        for (int split = 0; split <= data.length; split += 7) {
+            ResumableSha256 first = new ResumableSha256();
+            first.update(data, 0, split);
+
+            ResumableSha256 resumed = ResumableSha256.restore(first.saveState());
+            assertNotNull("split " + split, resumed);
+            assertEquals(split, resumed.getByteCount());
+            resumed.update(data, split, data.length - split);
+            assertArrayEquals("split " + split, expected, resumed.digest());
+        }
+    }
+
+    @Test
+    public void saveStateRestore_acrossSeveralCheckpoints() throws Exception {
+        byte[] data = randomBytes(5000, 7);
+        int[] splits = {13, 64, 191, 1024, 1025, 3333, 5000};
+
+        ResumableSha256 sha = new ResumableSha256();
+        int position = 0;
+        for (int split : splits) {
+            sha.update(data, position, split - position);
+            position = split;
+            sha = ResumableSha256.restore(sha.saveState());
+            assertNotNull(sha);
+        }
+        assertArrayEquals(expected(data), sha.digest());
+    }
+
+    @Test
+    public void digest_doesNotChangeState() throws Exception {
+        byte[] data = randomBytes(200, 3);
+        ResumableSha256 sha = new ResumableSha256();
+        sha.update(data, 0, 77);
+        sha.digest();
+        sha.update(data, 77, data.length - 77);
+        assertArrayEquals(expected(data), sha.digest());
+    }
+
+    @Test
+    public void restore_rejectsMalformedState() {
+        assertNull(ResumableSha256.restore(null));
+        assertNull(ResumableSha256.restore(new byte[ResumableSha256.STATE_SIZE - 1]));
+
+        // 바이트 수와 블록 길이가 맞지 않는 상태
+        ResumableSha256 sha = new ResumableSha256();
+        sha.update(new byte[10], 0, 10);
+        byte[] state = sha.saveState();
+        state[8 * 4 + 8 + 3] = 11;
+        assertNull(ResumableSha256.restore(state));
+    }
+
+    @Test
+    public void reset_startsOver() throws Exception {
+        byte[] data = randomBytes(100, 5);
+        ResumableSha256 sha = new ResumableSha256();
+        sha.update(data, 0, 50);
+        sha.reset();
+        sha.update(data, 0, data.length);
+        assertArrayEquals(expected(data), sha.digest());
+        assertEquals(ResumableSha256.toHex(expected(data)), sha.digestHex());
+    }
+
+    private static byte[] expected(byte[] data) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}